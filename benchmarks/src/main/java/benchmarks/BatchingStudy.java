@@ -0,0 +1,122 @@
+package benchmarks;
+
+import model.ArrivalProcess;
+import model.BatchPlanner;
+import model.Order;
+import model.Product;
+import model.ServiceTimeModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+// How much throughput does barista batching gain at different arrival rates?
+// Replays the same Poisson workload in virtual time through servers without batching (window 1) and with
+// batching, using the BatchPlanner cost model, so a sweep over many rates finishes in seconds.
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.BatchingStudy [servers] [window] [beta] [maxBatchSize]
+public class BatchingStudy {
+    private static final int SERVE_TIME_MS = 1000; // Per item without batching
+    private static final int ORDERS = 20_000;
+    private static final double[] RATES_PER_MINUTE = {10, 20, 30, 40, 50, 60, 80, 100};
+
+    public static void main(String[] args) {
+        int servers = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int window = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        double beta = args.length > 2 ? Double.parseDouble(args[2]) : 0.7;
+        int maxBatchSize = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        ServiceTimeModel serviceTimeModel = new ServiceTimeModel(SERVE_TIME_MS);
+        List<Product> products = BenchmarkFixtures.createMenu().getAllProducts(); // Sorted by id
+
+        System.out.printf("Servers: %d, window: %d, cost exponent: %.2f, max batch: %d, %dms per item%n",
+                servers, window, beta, maxBatchSize, SERVE_TIME_MS);
+        System.out.printf("%-12s %-22s %-22s %-10s%n", "", "Without batching", "With batching", "");
+        System.out.printf("%-12s %-10s %-11s %-10s %-11s %-10s%n",
+                "orders/min", "done/min", "p95 time", "done/min", "p95 time", "gain");
+        for (double rate : RATES_PER_MINUTE) {
+            long[] arrivals = arrivals(rate / 60.0, ORDERS, 42);
+            List<Order> orders = orders(products, ORDERS, 42);
+            Result plain = simulate(arrivals, orders, servers, 1, new BatchPlanner(serviceTimeModel, 1.0, 1));
+            Result batched = simulate(arrivals, orders, servers, window, new BatchPlanner(serviceTimeModel, beta, maxBatchSize));
+            System.out.printf("%-12.0f %-10.1f %-11s %-10.1f %-11s %+.1f%%%n", rate,
+                    plain.throughputPerMinute, formatSeconds(plain.p95Millis),
+                    batched.throughputPerMinute, formatSeconds(batched.p95Millis),
+                    (batched.throughputPerMinute / plain.throughputPerMinute - 1) * 100);
+        }
+    }
+
+    private static class Result {
+        double throughputPerMinute;
+        long p95Millis;
+    }
+
+    // Event-driven replay: a free server takes up to window orders that have already arrived
+    private static Result simulate(long[] arrivals, List<Order> orders, int servers, int window, BatchPlanner planner) {
+        PriorityQueue<Long> freeAt = new PriorityQueue<>();
+        for (int i = 0; i < servers; i++) {
+            freeAt.add(0L);
+        }
+        long[] latencies = new long[arrivals.length];
+        long lastCompletion = 0;
+        int next = 0;
+        while (next < arrivals.length) {
+            long start = Math.max(freeAt.poll(), arrivals[next]);
+            int end = next;
+            while (end < arrivals.length && end - next < window && arrivals[end] <= start) {
+                end++;
+            }
+
+            List<Order> batch = orders.subList(next, end);
+            long clock = start;
+            for (BatchPlanner.Batch step : planner.plan(batch)) {
+                clock += step.getCost();
+                for (Order order : step.getCompletedOrders()) {
+                    int index = next + batch.indexOf(order);
+                    latencies[index] = clock - arrivals[index];
+                }
+            }
+            lastCompletion = Math.max(lastCompletion, clock);
+            freeAt.add(clock);
+            next = end;
+        }
+
+        Arrays.sort(latencies);
+        Result result = new Result();
+        result.throughputPerMinute = arrivals.length * 60_000.0 / lastCompletion;
+        result.p95Millis = latencies[(int) (latencies.length * 0.95)];
+        return result;
+    }
+
+    // Arrival times in milliseconds
+    private static long[] arrivals(double ratePerSecond, int count, long seed) {
+        ArrivalProcess process = new ArrivalProcess.Poisson(ratePerSecond, seed);
+        long[] times = new long[count];
+        long nanos = 0;
+        for (int i = 0; i < count; i++) {
+            nanos = process.nextArrival(nanos);
+            times[i] = nanos / 1_000_000;
+        }
+        return times;
+    }
+
+    // Baskets of 1..3 items drawn from the menu
+    private static List<Order> orders(List<Product> products, int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = new Order("STUDY-" + i, "2025-04-03 12:00:00", "Study", "WALK_IN");
+            int items = 1 + random.nextInt(3);
+            for (int j = 0; j < items; j++) {
+                order.addItem(products.get(random.nextInt(products.size())));
+            }
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static String formatSeconds(long millis) {
+        return String.format("%.1fs", millis / 1000.0);
+    }
+}
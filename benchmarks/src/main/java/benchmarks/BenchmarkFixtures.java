@@ -0,0 +1,43 @@
+package benchmarks;
+
+import model.Menu;
+import model.Order;
+import model.Product;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+// Shared test data for the benchmarks, mirroring src/menu.txt so runs do not depend on the working directory
+final class BenchmarkFixtures {
+    private BenchmarkFixtures() {
+    }
+
+    static Menu createMenu() {
+        Menu menu = new Menu();
+        menu.addProduct(new Product("BVG100", "Latte", "Espresso with steamed milk.", "Beverage", 5.0, 1_000_000));
+        menu.addProduct(new Product("BVG101", "Cappuccino", "Espresso with milk foam.", "Beverage", 4.5, 1_000_000));
+        menu.addProduct(new Product("BVG102", "Espresso", "Concentrated coffee.", "Beverage", 3.0, 1_000_000));
+        menu.addProduct(new Product("BVG103", "Water Bottle", "Drinking water.", "Beverage", 1.5, 1_000_000));
+        menu.addProduct(new Product("BVG104", "Tea", "Tea leaves.", "Beverage", 2.5, 1_000_000));
+        menu.addProduct(new Product("FOOD200", "Sandwich", "Layered bread.", "Food", 7.0, 1_000_000));
+        menu.addProduct(new Product("FOOD201", "Cake", "Soft and sweet.", "Food", 4.0, 1_000_000));
+        menu.addProduct(new Product("FOOD202", "Muffin", "Mini cakes.", "Food", 3.5, 1_000_000));
+        menu.addProduct(new Product("SNK301", "Chips", "Crispy.", "Dessert", 1.0, 1_000_000));
+        return menu;
+    }
+
+    // Build an order of basketSize items, cycling through the menu
+    static Order createOrder(String orderId, String orderType, List<Product> products, int basketSize) {
+        Order order = new Order(orderId, "2025-04-03 12:00:00", "Bench", orderType);
+        for (int i = 0; i < basketSize; i++) {
+            order.addItem(products.get(i % products.size()));
+        }
+        return order;
+    }
+
+    // Discard console output from code under test (e.g. generateReport prints the report)
+    static PrintStream silentStream() {
+        return new PrintStream(OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+// Runs every benchmark and writes JMH JSON results that can be diffed between versions.
+//   java -jar benchmarks/target/benchmarks.jar [resultDir] [maxQueueThreads]
+// Results: <resultDir>/<benchmark>.json, with one OrderQueue file per producer/consumer count.
+// Any JMH option (an argument starting with '-', e.g. -l or -tg 2,2) runs the plain JMH command line instead.
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        for (String arg : args) {
+            if (arg.startsWith("-")) {
+                Main.main(args);
+                return;
+            }
+        }
+        String resultDir = args.length > 0 ? args[0] : "benchmarks/target/jmh";
+        int maxQueueThreads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        new File(resultDir).mkdirs();
+
+        run(OrderLoadingBenchmark.class.getSimpleName(), resultDir, "order-loading");
+        run(DiscountBenchmark.class.getSimpleName(), resultDir, "discount");
+        run(ReportBenchmark.class.getSimpleName(), resultDir, "report");
+
+        // Hundreds of tills building carts concurrently
+        new Runner(options(CartBenchmark.class.getSimpleName(), resultDir, "carts-256-terminals").threads(256).build()).run();
+
+        // OrderQueue add/get with 1..N producers and 1..N consumers
+        for (int threads = 1; threads <= maxQueueThreads; threads *= 2) {
+            ChainedOptionsBuilder options = options(OrderQueueBenchmark.class.getSimpleName(),
+                    resultDir, "order-queue-" + threads + "x" + threads)
+                    .threadGroups(threads, threads);
+            new Runner(options.build()).run();
+        }
+    }
+
+    private static void run(String include, String resultDir, String name) throws RunnerException {
+        new Runner(options(include, resultDir, name).build()).run();
+    }
+
+    private static ChainedOptionsBuilder options(String include, String resultDir, String name) {
+        return new OptionsBuilder()
+                .include("benchmarks\\." + include + "\\.")
+                .resultFormat(ResultFormatType.JSON)
+                .result(new File(resultDir, name + ".json").getPath());
+    }
+}
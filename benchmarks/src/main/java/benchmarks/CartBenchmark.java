@@ -0,0 +1,59 @@
+package benchmarks;
+
+import controller.CartRegistry;
+import controller.CartSession;
+import model.DiscountCalculator;
+import model.OutOfStockException;
+import model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Many tills building carts at once: every thread is one terminal that opens a cart, adds a basket with
+// soft stock holds, prices it and abandons it (releasing the holds). BenchmarkRunner runs it with
+// hundreds of threads to show the registry and holds scale without a global lock.
+//   java -jar benchmarks/target/benchmarks.jar CartBenchmark -t 256
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartBenchmark {
+    @Param({"3"})
+    public int basketSize;
+
+    private CartRegistry registry;
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new CartRegistry(60_000, 120_000);
+        products = BenchmarkFixtures.createMenu().getAllProducts();
+    }
+
+    @State(Scope.Thread)
+    public static class Terminal {
+        final DiscountCalculator discountCalculator = new DiscountCalculator();
+        String name;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            name = Thread.currentThread().getName();
+        }
+    }
+
+    @Benchmark
+    public void cartCycle(Terminal terminal, Blackhole blackhole) throws OutOfStockException {
+        CartSession cart = registry.open(terminal.name);
+        for (int i = 0; i < basketSize; i++) {
+            cart.add(products.get(terminal.next++ % products.size()), 1);
+        }
+        blackhole.consume(cart.price(terminal.discountCalculator));
+        blackhole.consume(registry.get(cart.getId()));
+        registry.close(cart);
+    }
+}
@@ -0,0 +1,124 @@
+package benchmarks;
+
+import model.ColumnarOrderStore;
+import model.Order;
+import model.OrderManager;
+import model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+// What does a finished order cost on the heap as an Order object, and in an OrderManager, which keeps only
+// its row in the columns? Builds the same completed orders both ways and measures the retained heap after a
+// full GC, then times the same end-of-day aggregation (revenue per type and items per product) on the objects
+// and on the manager's columns.
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.ColumnarStudy [orders] [maxItems]
+public class ColumnarStudy {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int maxItems = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        List<Product> products = BenchmarkFixtures.createMenu().getAllProducts();
+
+        long before = usedHeap();
+        List<Order> orders = new ArrayList<>(count);
+        orders(products, count, maxItems, 42, orders::add);
+        long objectBytes = usedHeap() - before;
+
+        // The same orders again, each completed once added; nothing else keeps them
+        before = usedHeap();
+        OrderManager manager = new OrderManager();
+        orders(products, count, maxItems, 42, order -> {
+            manager.addOrder(order);
+            order.completeOrder();
+        });
+        long managerBytes = usedHeap() - before;
+        ColumnarOrderStore store = manager.getColumns();
+
+        System.out.printf("Orders: %,d (1-%d items each), %,d customers, %,d still held as objects%n",
+                count, maxItems, store.getCustomerCount(), manager.getHotOrderCount());
+        System.out.printf("%-24s %,14d bytes  %6.1f bytes/order%n", "Order objects", objectBytes, objectBytes / (double) count);
+        System.out.printf("%-24s %,14d bytes  %6.1f bytes/order%n", "OrderManager (finished)", managerBytes, managerBytes / (double) count);
+        System.out.printf("The manager uses %.1f%% of the object model's heap%n%n", 100.0 * managerBytes / objectBytes);
+
+        // Warm up both, then time
+        long checksum = 0;
+        for (int i = 0; i < 5; i++) {
+            checksum += scanObjects(orders, products) + scanColumns(store, products);
+        }
+        long start = System.nanoTime();
+        long objectResult = scanObjects(orders, products);
+        long objectNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        long columnResult = scanColumns(store, products);
+        long columnNanos = System.nanoTime() - start;
+
+        System.out.printf("%-24s %8.1f ms%n", "Scan Order objects", objectNanos / 1e6);
+        System.out.printf("%-24s %8.1f ms (%d threads)%n", "Scan columns", columnNanos / 1e6,
+                Runtime.getRuntime().availableProcessors());
+        System.out.println(objectResult == columnResult ? "Results match" : "RESULTS DIFFER");
+        if (checksum == 42) System.out.println(); // Keep the warm-up from being optimised away
+    }
+
+    // Same aggregation as scanColumns, the way it is written against the object model
+    private static long scanObjects(List<Order> orders, List<Product> products) {
+        long preOrderCents = 0;
+        long walkInCents = 0;
+        long[] items = new long[Product.ordinalCount()];
+        for (Order order : orders) {
+            long cents = Math.round(order.getTotalPrice() * 100);
+            if ("PRE_ORDER".equals(order.getOrderType())) {
+                preOrderCents += cents;
+            } else {
+                walkInCents += cents;
+            }
+            for (Product product : order.getItems()) {
+                items[product.getOrdinal()]++;
+            }
+        }
+        return combine(preOrderCents, walkInCents, items, products);
+    }
+
+    private static long scanColumns(ColumnarOrderStore store, List<Product> products) {
+        Map<String, Long> byType = store.revenueByType();
+        return combine(byType.getOrDefault("PRE_ORDER", 0L), byType.getOrDefault("WALK_IN", 0L),
+                store.itemsByProduct(), products);
+    }
+
+    private static long combine(long preOrderCents, long walkInCents, long[] items, List<Product> products) {
+        long result = preOrderCents * 31 + walkInCents;
+        for (Product product : products) {
+            result = result * 31 + items[product.getOrdinal()];
+        }
+        return result;
+    }
+
+    private static void orders(List<Product> products, int count, int maxItems, long seed, Consumer<Order> sink) {
+        SplittableRandom random = new SplittableRandom(seed);
+        String timestamp = null;
+        for (int i = 0; i < count; i++) {
+            int second = i / 20; // 20 orders a second; orders in the same second share the string, as in the generator
+            if (i % 20 == 0) {
+                timestamp = String.format("2025-04-03 %02d:%02d:%02d", 6 + second / 3600 % 16, second / 60 % 60, second % 60);
+            }
+            Order order = new Order("ORD-" + i, timestamp, "Customer-" + random.nextInt(50_000),
+                    random.nextInt(5) == 0 ? "PRE_ORDER" : "WALK_IN");
+            int items = 1 + random.nextInt(maxItems);
+            for (int j = 0; j < items; j++) {
+                order.addItem(products.get(random.nextInt(products.size())));
+            }
+            order.setTotalPrice(order.calculateOriginalPrice());
+            sink.accept(order);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,34 @@
+package benchmarks;
+
+import model.DiscountCalculator;
+import model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// DiscountCalculator.calculateBestDiscount cost per basket size
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DiscountBenchmark {
+    @Param({"1", "3", "10", "50", "200"})
+    public int basketSize;
+
+    private DiscountCalculator calculator;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        calculator = new DiscountCalculator();
+        order = BenchmarkFixtures.createOrder("DISC", "WALK_IN",
+                BenchmarkFixtures.createMenu().getAllProducts(), basketSize);
+    }
+
+    @Benchmark
+    public DiscountCalculator.DiscountResult calculateBestDiscount() {
+        return calculator.calculateBestDiscount(order);
+    }
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import model.Menu;
+import model.OrderManager;
+import model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// OrderManager.loadFromFile parsing throughput, reported in lines per second
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderLoadingBenchmark {
+    private static final int LINES = 10_000;
+    private static final int LINES_PER_ORDER = 3;
+
+    private Menu menu;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        menu = BenchmarkFixtures.createMenu();
+        List<Product> products = menu.getAllProducts();
+        file = Files.createTempFile("pre_orders", ".txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < LINES; i++) {
+                Product product = products.get(i % products.size());
+                writer.write(String.format("ORD-%08X,2025-04-03 06:20:46,Customer%d,%s,%d,PRE_ORDER%n",
+                        i / LINES_PER_ORDER, i % 97, product.getId(), 1 + i % 3));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public OrderManager loadFromFile() {
+        OrderManager orderManager = new OrderManager();
+        orderManager.loadFromFile(file.toString(), menu);
+        return orderManager;
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import model.Order;
+import model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import util.OrderQueue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// OrderQueue add/get throughput with producer and consumer thread groups.
+// BenchmarkRunner sweeps the group sizes (1..N producers x 1..N consumers) via threadGroups.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class OrderQueueBenchmark {
+    // Unbounded enough that producers never block; consumers poll with a timeout so iterations can end
+    @Param({"100000"})
+    public int maxSize;
+
+    private OrderQueue queue;
+    private Order preOrder;
+    private Order walkIn;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = new OrderQueue(maxSize);
+        List<Product> products = BenchmarkFixtures.createMenu().getAllProducts();
+        preOrder = BenchmarkFixtures.createOrder("PRE", "PRE_ORDER", products, 3);
+        walkIn = BenchmarkFixtures.createOrder("WALK", "WALK_IN", products, 3);
+    }
+
+    @State(Scope.Thread)
+    public static class ProducerState {
+        long sequence;
+    }
+
+    @Benchmark
+    @Group("addGet")
+    @GroupThreads(1)
+    public void add(ProducerState state) throws InterruptedException {
+        // One pre-order in every four orders
+        queue.addOrder((state.sequence++ & 3) == 0 ? preOrder : walkIn);
+    }
+
+    @Benchmark
+    @Group("addGet")
+    @GroupThreads(1)
+    public void get(Blackhole blackhole) throws InterruptedException {
+        blackhole.consume(queue.getNextOrder(1));
+    }
+}
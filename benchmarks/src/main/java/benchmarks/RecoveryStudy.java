@@ -0,0 +1,73 @@
+package benchmarks;
+
+import model.Menu;
+import model.Order;
+import model.OrderManager;
+import model.OutOfStockException;
+import model.Product;
+import model.ShopStateStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+// How long does a restart take after a full day? Runs a day of orders through a ShopStateStore (each item
+// reserved from stock, each order accepted and completed), with a snapshot halfway through, then "crashes"
+// without closing the store. Then it times reading the snapshot and replaying the log, and putting the
+// result (stock levels and the orders still pending) into a fresh menu and order manager.
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.RecoveryStudy [orders] [directory]
+public class RecoveryStudy {
+    public static void main(String[] args) throws IOException, OutOfStockException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path directory = args.length > 1 ? Path.of(args[1]) : Files.createTempDirectory("recovery-study");
+
+        Menu menu = BenchmarkFixtures.createMenu();
+        OrderManager manager = new OrderManager();
+        ShopStateStore store = new ShopStateStore(directory, 20, Long.MAX_VALUE / 2);
+        store.attach(menu, manager);
+        List<Product> products = menu.getAllProducts();
+        SplittableRandom random = new SplittableRandom(42);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order("ORD-" + i, String.format("2025-04-03 %02d:%02d:%02d", 6 + i / 7200 % 16,
+                    i / 120 % 60, i / 2 % 60), "Customer-" + random.nextInt(10_000), random.nextInt(5) == 0 ? "PRE_ORDER" : "WALK_IN");
+            int items = 1 + random.nextInt(4);
+            for (int j = 0; j < items; j++) {
+                Product product = products.get(random.nextInt(products.size()));
+                product.reduceStock(1);
+                order.addItem(product);
+            }
+            manager.addOrder(order);
+            if (i < count - 50) order.completeOrder(); // The last few are still being made at the crash
+            if (i == count / 2) store.snapshot();
+        }
+        store.flush();
+        long runNanos = System.nanoTime() - start;
+        long bytes;
+        try (Stream<Path> files = Files.list(directory)) {
+            bytes = files.mapToLong(p -> p.toFile().length()).sum();
+        }
+        System.out.printf("Logged %,d orders in %.0f ms; state directory holds %,d bytes (%.0f bytes/order)%n",
+                count, runNanos / 1e6, bytes, bytes / (double) count);
+
+        // Restart
+        ShopStateStore reopened = new ShopStateStore(directory, 20, Long.MAX_VALUE / 2);
+        Menu recoveredMenu = BenchmarkFixtures.createMenu();
+        OrderManager recovered = new OrderManager();
+        long restoreStart = System.nanoTime();
+        List<Order> pending = reopened.restore(recoveredMenu, recovered);
+        double restoreMillis = (System.nanoTime() - restoreStart) / 1e6;
+
+        System.out.printf("Snapshot load + log replay: %8.1f ms (%,d orders since the snapshot)%n",
+                reopened.getRecoveryMillis(), reopened.getOrderCount());
+        System.out.printf("Restore into the models:    %8.1f ms (%d pending)%n", restoreMillis, pending.size());
+        boolean same = pending.size() == Math.min(50, count) && recovered.getHistory().size() == pending.size();
+        for (Product product : products) {
+            same &= recoveredMenu.getProductById(product.getId()).getStock() == product.getStock();
+        }
+        System.out.println(same ? "Recovered state matches" : "RECOVERED STATE DIFFERS");
+    }
+}
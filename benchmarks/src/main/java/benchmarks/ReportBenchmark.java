@@ -0,0 +1,66 @@
+package benchmarks;
+
+import model.Order;
+import model.OrderManager;
+import model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// End-of-day report generation and per-order detail formatting
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+    @Param({"100", "10000"})
+    public int orderCount;
+
+    private OrderManager orderManager;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() {
+        List<Product> products = BenchmarkFixtures.createMenu().getAllProducts();
+        orderManager = new OrderManager();
+        for (int i = 0; i < orderCount; i++) {
+            orderManager.addOrder(BenchmarkFixtures.createOrder("ORD-" + i,
+                    i % 4 == 0 ? "PRE_ORDER" : "WALK_IN", products, 1 + i % 6));
+        }
+
+        // generateReport also prints the report; keep that out of the benchmark output
+        originalOut = System.out;
+        System.setOut(BenchmarkFixtures.silentStream());
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public String generateReport() {
+        return orderManager.generateReport();
+    }
+
+    // Separate state so getOrderDetails is not repeated for every orderCount
+    @State(Scope.Thread)
+    public static class DetailsState {
+        Order order;
+
+        @Setup
+        public void setUp() {
+            order = BenchmarkFixtures.createOrder("DETAILS", "WALK_IN",
+                    BenchmarkFixtures.createMenu().getAllProducts(), 8);
+        }
+    }
+
+    @Benchmark
+    public String getOrderDetails(DetailsState state) {
+        return state.order.getOrderDetails();
+    }
+}
@@ -0,0 +1,173 @@
+package controller;
+
+import model.ServerThread;
+import util.CoffeeShopLogger;
+import util.MetricsRegistry;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Elastic staffing: every interval, look at queue depth per server and the p95 queue wait of that interval,
+// then add or retire one server within [minServers, maxServers].
+// Hysteresis: scaling up needs one bad interval, scaling down needs scaleDownIntervals calm intervals in a row
+// with depth and wait well below the scale-up thresholds; a cooldown separates consecutive changes.
+// Staffing cost is integrated over time, so runs can compare staff-hours against p95 wait.
+public class AutoScaler {
+    private static final MetricsRegistry.Counter SCALE_UPS = MetricsRegistry.getInstance().counter(
+            "coffeeshop_scaling_events_total", "Servers added or retired by the autoscaler", "direction", "up");
+    private static final MetricsRegistry.Counter SCALE_DOWNS = MetricsRegistry.getInstance().counter(
+            "coffeeshop_scaling_events_total", "Servers added or retired by the autoscaler", "direction", "down");
+
+    private final CoffeeShopSimulator simulator;
+    private final int minServers;
+    private final int maxServers;
+    private final long intervalMillis;
+    private final long cooldownMillis;
+    private final double targetP95Seconds;   // Scale up when the interval's p95 queue wait exceeds this
+    private final double maxDepthPerServer;  // Scale up when more orders than this wait per server
+    private final int scaleDownIntervals;
+    private final double hourlyCost;
+
+    private ScheduledExecutorService timer;
+    private long[] lastWaitCounts;
+    private long[] startWaitCounts;
+    private long lastTick;
+    private long lastChange;
+    private int calmIntervals;
+
+    // Statistics (written by the timer thread only)
+    private volatile double staffMillis;
+    private volatile int peakServers;
+    private volatile int lowestServers;
+    private volatile int scaleUps;
+    private volatile int scaleDowns;
+
+    public AutoScaler(CoffeeShopSimulator simulator, int minServers, int maxServers, long intervalMillis,
+                      long cooldownMillis, double targetP95Seconds, double maxDepthPerServer, double hourlyCost) {
+        if (minServers <= 0 || maxServers < minServers) throw new IllegalArgumentException("Need 0 < min servers <= max servers");
+        if (intervalMillis <= 0) throw new IllegalArgumentException("Scaling interval must be greater than 0");
+        this.simulator = simulator;
+        this.minServers = minServers;
+        this.maxServers = maxServers;
+        this.intervalMillis = intervalMillis;
+        this.cooldownMillis = cooldownMillis;
+        this.targetP95Seconds = targetP95Seconds;
+        this.maxDepthPerServer = maxDepthPerServer;
+        this.scaleDownIntervals = 3;
+        this.hourlyCost = hourlyCost;
+
+        MetricsRegistry.getInstance().gauge("coffeeshop_staff_hours", "Server-hours staffed since the autoscaler started",
+                this::getStaffHours);
+    }
+
+    public synchronized void start() {
+        if (timer != null) return;
+        // Bring the pool inside the bounds first
+        while (simulator.serverCount < minServers) {
+            if (simulator.addServer() == null) break;
+        }
+        while (simulator.serverCount > maxServers) {
+            if (simulator.retireServer() == null) break;
+        }
+        startWaitCounts = ServerThread.QUEUE_WAIT.getBucketCounts();
+        lastWaitCounts = startWaitCounts;
+        lastTick = System.currentTimeMillis();
+        lastChange = lastTick;
+        peakServers = simulator.serverCount;
+        lowestServers = simulator.serverCount;
+
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "autoscaler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (timer == null) return;
+        timer.shutdownNow();
+        timer = null;
+        accrueStaffTime(System.currentTimeMillis());
+    }
+
+    // One scaling decision; package-private so tests can step it without waiting for the timer
+    synchronized void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            accrueStaffTime(now);
+            if (!simulator.isRunning()) return;
+
+            int servers = simulator.serverCount;
+            double depthPerServer = simulator.getOrderQueue().getQueueSize() / (double) servers;
+            long[] counts = ServerThread.QUEUE_WAIT.getBucketCounts();
+            double p95 = ServerThread.QUEUE_WAIT.quantile(difference(counts, lastWaitCounts), 0.95);
+            lastWaitCounts = counts;
+
+            boolean overloaded = depthPerServer > maxDepthPerServer || p95 > targetP95Seconds;
+            boolean calm = depthPerServer < maxDepthPerServer / 4 && !(p95 > targetP95Seconds / 2); // NaN = no orders = calm
+            calmIntervals = calm ? calmIntervals + 1 : 0;
+            if (now - lastChange < cooldownMillis) return;
+
+            if (overloaded && servers < maxServers) {
+                if (simulator.addServer() != null) {
+                    scaleUps++;
+                    SCALE_UPS.inc();
+                    lastChange = now;
+                    calmIntervals = 0;
+                    log("up", servers, depthPerServer, p95);
+                }
+            } else if (calmIntervals >= scaleDownIntervals && servers > minServers) {
+                if (simulator.retireServer() != null) {
+                    scaleDowns++;
+                    SCALE_DOWNS.inc();
+                    lastChange = now;
+                    calmIntervals = 0;
+                    log("down", servers, depthPerServer, p95);
+                }
+            }
+            peakServers = Math.max(peakServers, simulator.serverCount);
+            lowestServers = Math.min(lowestServers, simulator.serverCount);
+        } catch (RuntimeException e) {
+            // Never let one bad tick cancel the schedule
+            CoffeeShopLogger.getInstance().logEvent("Autoscaler tick failed: " + e.getMessage());
+        }
+    }
+
+    private void accrueStaffTime(long now) {
+        staffMillis += (double) simulator.serverCount * (now - lastTick);
+        lastTick = now;
+    }
+
+    private void log(String direction, int servers, double depthPerServer, double p95) {
+        CoffeeShopLogger.getInstance().logEvent(String.format(
+                "Autoscaler: scale %s from %d servers (queue %.1f per server, p95 wait %s)",
+                direction, servers, depthPerServer, Double.isNaN(p95) ? "n/a" : p95 + "s"));
+    }
+
+    private static long[] difference(long[] now, long[] before) {
+        long[] diff = new long[now.length];
+        for (int i = 0; i < now.length; i++) {
+            diff[i] = now[i] - before[i];
+        }
+        return diff;
+    }
+
+    public double getStaffHours() {
+        return staffMillis / 3_600_000.0;
+    }
+
+    // Staffing against service level for the whole run, to tune rosters
+    public synchronized String generateScalingReport() {
+        double p95 = ServerThread.QUEUE_WAIT.quantile(
+                difference(ServerThread.QUEUE_WAIT.getBucketCounts(), startWaitCounts), 0.95);
+        StringBuilder sb = new StringBuilder("\n=== Autoscaling ===\n");
+        sb.append(String.format("Servers: %d..%d (bounds %d..%d), scaled up %d times, down %d times\n",
+                lowestServers, peakServers, minServers, maxServers, scaleUps, scaleDowns));
+        sb.append(String.format("Staff-hours: %.3f (cost $%.2f at $%.2f/hour)\n",
+                getStaffHours(), getStaffHours() * hourlyCost, hourlyCost));
+        sb.append("p95 queue wait: ").append(Double.isNaN(p95) ? "n/a" : "<= " + p95 + "s").append("\n");
+        return sb.toString();
+    }
+}
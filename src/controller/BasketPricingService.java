@@ -0,0 +1,70 @@
+package controller;
+
+import model.Basket;
+import model.DiscountCalculator;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Prices a basket on a worker thread. basketChanged() is O(1) for the caller: it only schedules a pricing
+// run debounceMillis later unless one is already pending, so a burst of clicks is priced once, on the latest
+// tallies. A quote whose basket changed again while it was being computed is dropped; the newer run follows.
+public class BasketPricingService {
+    private final Basket basket;
+    private final DiscountCalculator discountCalculator;
+    private final Consumer<Quote> listener; // Called on the worker thread
+    private final long debounceMillis;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final ScheduledExecutorService worker;
+
+    public static class Quote {
+        public final long version;
+        public final double originalPrice;
+        public final double discountedPrice;
+        public final String description;
+
+        Quote(long version, double originalPrice, double discountedPrice, String description) {
+            this.version = version;
+            this.originalPrice = originalPrice;
+            this.discountedPrice = discountedPrice;
+            this.description = description;
+        }
+    }
+
+    public BasketPricingService(Basket basket, DiscountCalculator discountCalculator, long debounceMillis, Consumer<Quote> listener) {
+        if (debounceMillis < 0) throw new IllegalArgumentException("Debounce cannot be negative");
+        this.basket = basket;
+        this.discountCalculator = discountCalculator;
+        this.debounceMillis = debounceMillis;
+        this.listener = listener;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "basket-pricing");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void basketChanged() {
+        if (scheduled.compareAndSet(false, true)) {
+            worker.schedule(this::price, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void price() {
+        scheduled.set(false); // Changes from here on schedule another run
+        Basket.Totals totals = basket.totals();
+        DiscountCalculator.DiscountResult discount = discountCalculator.calculateBestDiscount(
+                totals.cakeCount, totals.foodCount, totals.beverageCount, totals.priceWithoutCakes);
+        if (basket.getVersion() != totals.version) return; // Stale: the run scheduled by that change replaces it
+
+        double discounted = Math.round((totals.originalPrice - discount.discountAmount) * 100.0) / 100.0;
+        listener.accept(new Quote(totals.version, totals.originalPrice, discounted, discount.description));
+    }
+}
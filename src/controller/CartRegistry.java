@@ -0,0 +1,97 @@
+package controller;
+
+import util.CoffeeShopLogger;
+import util.MetricsRegistry;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Open cart sessions of all tills. Sessions live in a ConcurrentHashMap, so opening, looking up and closing
+// carts from many threads takes no global lock. A sweeper releases the holds of idle carts and closes carts
+// left idle for sessionTimeoutMillis.
+public class CartRegistry {
+    private static final MetricsRegistry.Counter HOLDS_EXPIRED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_cart_holds_expired_total", "Items whose soft stock hold lapsed in an idle cart");
+
+    private final ConcurrentHashMap<String, CartSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final long holdMillis;
+    private final long sessionTimeoutMillis;
+    private ScheduledExecutorService sweeper;
+
+    public CartRegistry(long holdMillis, long sessionTimeoutMillis) {
+        if (holdMillis <= 0 || sessionTimeoutMillis < holdMillis) {
+            throw new IllegalArgumentException("Need 0 < hold time <= session timeout");
+        }
+        this.holdMillis = holdMillis;
+        this.sessionTimeoutMillis = sessionTimeoutMillis;
+        MetricsRegistry.getInstance().gauge("coffeeshop_cart_sessions", "Open cart sessions", sessions::size);
+    }
+
+    public synchronized void start() {
+        if (sweeper != null) return;
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cart-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, holdMillis / 4);
+        sweeper.scheduleAtFixedRate(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    public CartSession open(String terminal) {
+        CartSession session = new CartSession(terminal + "-" + nextId.incrementAndGet(), terminal, holdMillis);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    public CartSession get(String id) {
+        return sessions.get(id);
+    }
+
+    // Close a cart and put its held stock back
+    public void close(CartSession session) {
+        if (sessions.remove(session.getId(), session)) {
+            session.close();
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public Collection<CartSession> getSessions() {
+        return sessions.values();
+    }
+
+    // Weakly consistent walk over the sessions; carts opened meanwhile are seen on the next sweep
+    void sweep() {
+        try {
+            long now = System.currentTimeMillis();
+            for (CartSession session : sessions.values()) {
+                if (session.getIdleMillis(now) >= sessionTimeoutMillis) {
+                    close(session);
+                    continue;
+                }
+                int released = session.expireHolds(now);
+                if (released > 0) {
+                    HOLDS_EXPIRED.inc(released);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Never let one bad sweep cancel the schedule
+            CoffeeShopLogger.getInstance().logEvent("Cart sweep failed: " + e.getMessage());
+        }
+    }
+}
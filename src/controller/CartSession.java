@@ -0,0 +1,162 @@
+package controller;
+
+import model.Basket;
+import model.DiscountCalculator;
+import model.Order;
+import model.OutOfStockException;
+import model.Product;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// One till's cart. Adding an item puts a soft hold on its stock, so two tills cannot sell the same last cake.
+// Holds lapse after holdMillis without activity and the stock goes back on sale; the items stay in the cart
+// and are held again at checkout if the stock is still there. Each session has its own lock, so carts on
+// different tills never contend except on the products themselves.
+public class CartSession {
+    private final String id;
+    private final String terminal;
+    private final long holdMillis;
+    private final Basket basket = new Basket();
+    private final Map<Product, Integer> held = new HashMap<>();
+    private volatile long lastActivity;
+    private boolean closed;
+    private boolean checkingOut; // A checkout is with the pipeline; the cart is frozen until it answers
+
+    CartSession(String id, String terminal, long holdMillis) {
+        this.id = id;
+        this.terminal = terminal;
+        this.holdMillis = holdMillis;
+        this.lastActivity = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTerminal() {
+        return terminal;
+    }
+
+    public Basket getBasket() {
+        return basket;
+    }
+
+    // Hold the stock, then add it to the cart
+    public synchronized void add(Product product, int quantity) throws OutOfStockException {
+        checkIdle();
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be greater than 0");
+        try {
+            product.reduceStock(quantity);
+        } catch (OutOfStockException e) {
+            throw new OutOfStockException(product.getName() + " is out of stock (Remaining: " + product.getStock() + ")");
+        }
+        held.merge(product, quantity, Integer::sum);
+        basket.add(product, quantity);
+        touch();
+    }
+
+    public synchronized void remove(Product product, int quantity) {
+        checkIdle();
+        int removed = Math.min(quantity, basket.getQuantity(product));
+        if (removed <= 0) return;
+        basket.add(product, -removed);
+        release(product, Math.min(removed, held.getOrDefault(product, 0)));
+        touch();
+    }
+
+    // Price the current cart on the caller's thread
+    public DiscountCalculator.DiscountResult price(DiscountCalculator discountCalculator) {
+        Basket.Totals totals = basket.totals();
+        return discountCalculator.calculateBestDiscount(
+                totals.cakeCount, totals.foodCount, totals.beverageCount, totals.priceWithoutCakes);
+    }
+
+    // Hold whatever has lapsed, then hand the cart and its held stock to the pipeline. The cart is emptied once
+    // the order is accepted; if it fails, the items stay in the cart (unheld, the pipeline puts the stock back).
+    public synchronized CompletableFuture<Order> checkout(OrderSubmissionPipeline pipeline, String customerName)
+            throws OutOfStockException {
+        checkIdle();
+        Map<Product, Integer> quantities = basket.getQuantities();
+        Map<Product, Integer> taken = new HashMap<>();
+        for (Map.Entry<Product, Integer> entry : quantities.entrySet()) {
+            Product product = entry.getKey();
+            int missing = entry.getValue() - held.getOrDefault(product, 0);
+            if (missing <= 0) continue;
+            try {
+                product.reduceStock(missing);
+                taken.put(product, missing);
+            } catch (OutOfStockException e) {
+                taken.forEach(Product::restoreStock);
+                throw new OutOfStockException(product.getName() + " is out of stock (Remaining: " + product.getStock() + ")");
+            }
+        }
+        held.clear(); // The pipeline owns the stock from here
+        touch();
+        checkingOut = true;
+        CompletableFuture<Order> result = new CompletableFuture<>();
+        pipeline.submitReserved(quantities, customerName, "WALK_IN").whenComplete((order, error) -> {
+            checkedOut(error == null);
+            if (error == null) {
+                result.complete(order);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+
+    private synchronized void checkedOut(boolean accepted) {
+        checkingOut = false;
+        if (accepted) basket.clear();
+        touch();
+    }
+
+    // Release every hold if the cart has been idle for holdMillis; returns the number of items released
+    synchronized int expireHolds(long now) {
+        if (held.isEmpty() || now - lastActivity < holdMillis) return 0;
+        return releaseAll();
+    }
+
+    long getIdleMillis(long now) {
+        return now - lastActivity;
+    }
+
+    synchronized int close() {
+        if (closed) return 0;
+        closed = true;
+        basket.clear();
+        return releaseAll();
+    }
+
+    public synchronized int getHeldCount(Product product) {
+        return held.getOrDefault(product, 0);
+    }
+
+    private int releaseAll() {
+        int released = 0;
+        for (Map.Entry<Product, Integer> entry : held.entrySet()) {
+            entry.getKey().restoreStock(entry.getValue());
+            released += entry.getValue();
+        }
+        held.clear();
+        return released;
+    }
+
+    private void release(Product product, int quantity) {
+        if (quantity <= 0) return;
+        product.restoreStock(quantity);
+        held.merge(product, -quantity, Integer::sum);
+        if (held.get(product) == 0) held.remove(product);
+    }
+
+    private void touch() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    private void checkIdle() {
+        if (closed) throw new IllegalStateException("Cart " + id + " is closed");
+        if (checkingOut) throw new IllegalStateException("Cart " + id + " is being checked out");
+    }
+}
@@ -3,17 +3,20 @@ package controller;
 import model.*;
 import util.CoffeeShopLogger;
 import util.OrderQueue;
+import util.QueueEventChannel;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 import java.util.concurrent.*;
+import java.util.stream.LongStream;
 
 // Coffee shop simulation controller
 public class CoffeeShopSimulator {
     public OrderQueue orderQueue;
-    public int serverCount;
+    public volatile int serverCount; // Changes at runtime when an AutoScaler is attached
     public int serveTime;
     public List<ServerThread> servers;
     public OrderManager orderManager;
@@ -21,6 +24,17 @@ public class CoffeeShopSimulator {
     public CustomerGeneratorThread customerGenerator;
     public volatile boolean isRunning = false;
     public ScheduledExecutorService scheduler;
+    public QueueEventChannel eventChannel;
+    public ServiceTimeModel serviceTimeModel;
+    public StationPipeline stationPipeline; // Replaces the generalist servers when stations are configured
+    private Map<String, Integer> stationWorkers;
+    public WorkStealingDispatcher dispatcher; // Per-server local queues, when work stealing is enabled
+    private int localQueueCapacity;
+    private int batchWindow; // > 0 when servers batch identical items
+    private double batchBeta;
+    private int maxBatchSize;
+    private int nextServerId = 1;
+    private final List<ServerThread> retiredServers = new CopyOnWriteArrayList<>(); // Kept for completed counts
 
     public CoffeeShopSimulator(OrderQueue queue,
                                int serverCount,
@@ -37,11 +51,89 @@ public class CoffeeShopSimulator {
         this.serveTime = serveTime;
         this.orderManager = orderManager;
 
-        // Initialize server list
-        this.servers = new ArrayList<>(serverCount);
+        this.serviceTimeModel = new ServiceTimeModel(serveTime);
+
+        // Initialize server list (copy-on-write: servers can be added and retired while observers read it)
+        this.servers = new CopyOnWriteArrayList<>();
         for (int i = 1; i <= serverCount; i++) {
-            servers.add(new ServerThread("Server-" + i, orderQueue, serveTime));
+            servers.add(createServer());
+        }
+    }
+
+    private ServerThread createServer() {
+        String name = "Server-" + nextServerId++;
+        ServerThread server = batchWindow > 0
+                ? new BatchingServerThread(name, orderQueue, serveTime, batchWindow, batchBeta, maxBatchSize)
+                : new ServerThread(name, orderQueue, serveTime);
+        server.setServiceTimeModel(serviceTimeModel);
+        return server;
+    }
+
+    // Prepare orders at category stations (e.g. Beverage=2, Food=1) instead of generalist servers.
+    // Must be called before startSimulation.
+    public void setStations(Map<String, Integer> stationWorkers) {
+        if (isRunning) throw new IllegalStateException("Stations must be configured before the simulation starts");
+        this.stationWorkers = stationWorkers;
+    }
+
+    // Replace the servers with batching servers that merge identical items across up to window orders.
+    // Must be called before startSimulation.
+    public void setBatching(int window, double beta, int maxBatchSize) {
+        if (isRunning) throw new IllegalStateException("Batching must be configured before the simulation starts");
+        if (localQueueCapacity > 0) throw new IllegalStateException("Batching servers take from the shared queue; disable work stealing");
+        this.batchWindow = window;
+        this.batchBeta = beta;
+        this.maxBatchSize = maxBatchSize;
+        servers.clear();
+        nextServerId = 1;
+        for (int i = 1; i <= serverCount; i++) {
+            servers.add(createServer());
+        }
+    }
+
+    // Dispatch orders to per-server local queues of localCapacity orders, with idle servers stealing work.
+    // Must be called before startSimulation.
+    public void setWorkStealing(int localCapacity) {
+        if (isRunning) throw new IllegalStateException("Work stealing must be configured before the simulation starts");
+        if (batchWindow > 0) throw new IllegalStateException("Batching servers take from the shared queue; disable batching");
+        this.localQueueCapacity = localCapacity;
+    }
+
+    // Add a server at runtime; returns it, or null when stations or work stealing fix the worker set
+    public synchronized ServerThread addServer() {
+        if (stationPipeline != null || dispatcher != null) return null;
+        ServerThread server = createServer();
+        servers.add(server);
+        serverCount = servers.size();
+        if (isRunning) {
+            // The pool only runs core-size tasks at once; retiring servers may still hold a thread
+            ScheduledThreadPoolExecutor pool = (ScheduledThreadPoolExecutor) scheduler;
+            pool.setCorePoolSize(Math.max(pool.getCorePoolSize(), pool.getActiveCount() + 1));
+            server.setRunning(true);
+            scheduler.execute(server);
         }
+        CoffeeShopLogger.getInstance().logEvent(server.getName() + " joined the shift (" + serverCount + " servers)");
+        notifyObservers();
+        return server;
+    }
+
+    // Retire one server, preferring an idle one; it finishes its current order first. Returns null at one server.
+    public synchronized ServerThread retireServer() {
+        if (servers.size() <= 1) return null;
+        ServerThread chosen = servers.get(servers.size() - 1);
+        for (int i = servers.size() - 1; i >= 0; i--) {
+            if (servers.get(i).getCurrentOrder() == null) {
+                chosen = servers.get(i);
+                break;
+            }
+        }
+        chosen.retire();
+        servers.remove(chosen);
+        retiredServers.add(chosen);
+        serverCount = servers.size();
+        CoffeeShopLogger.getInstance().logEvent(chosen.getName() + " is leaving the shift (" + serverCount + " servers)");
+        notifyObservers();
+        return chosen;
     }
 
     public synchronized void startSimulation() {
@@ -53,19 +145,33 @@ public class CoffeeShopSimulator {
         // Initialize thread pool
         scheduler = Executors.newScheduledThreadPool(servers.size() + 1);
 
-        // Start server threads
-        servers.forEach(server -> {
-            server.setRunning(true);
-            scheduler.execute(server);
-        });
+        if (stationWorkers != null && !stationWorkers.isEmpty()) {
+            // Station mode: one dispatcher feeds the category stations
+            stationPipeline = new StationPipeline(orderQueue, stationWorkers, serviceTimeModel, serverCount);
+            stationPipeline.setFailureHandler(orderManager::cancelOrder);
+            stationPipeline.start();
+        } else {
+            if (localQueueCapacity > 0) {
+                dispatcher = new WorkStealingDispatcher(orderQueue, servers, localQueueCapacity);
+                dispatcher.start();
+            }
+
+            // Start server threads
+            servers.forEach(server -> {
+                server.setRunning(true);
+                scheduler.execute(server);
+            });
+        }
 
         // Start customer generation thread
         List<Order> pendingOrders = getPendingPreOrders();
         customerGenerator = new CustomerGeneratorThread(orderQueue, pendingOrders);
         scheduler.execute(customerGenerator);
 
-        // Start status observer timer
-        scheduler.scheduleAtFixedRate(this::notifyObservers, 0, 1, TimeUnit.SECONDS);
+        // Observers get a full snapshot once, then only change events
+        eventChannel = new QueueEventChannel(10_000, 1_000);
+        orderQueue.setEventChannel(eventChannel);
+        eventChannel.start(this::notifyObservers, this::dispatchEvents);
     }
 
     public synchronized void stopSimulation() {
@@ -81,12 +187,25 @@ public class CoffeeShopSimulator {
 
         // Stop servers
         servers.forEach(ServerThread::stopWorking);
+        retiredServers.forEach(ServerThread::stopWorking);
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        if (stationPipeline != null) {
+            stationPipeline.stop();
+        }
 
         // Shutdown thread pool
         if (scheduler != null) {
             scheduler.shutdownNow();
         }
 
+        // Detach observers from the event stream
+        if (eventChannel != null) {
+            orderQueue.setEventChannel(null);
+            eventChannel.stop();
+        }
+
         // Final state notification
         notifyObservers();
         CoffeeShopLogger.getInstance().logEvent("Simulation stopped");
@@ -98,26 +217,71 @@ public class CoffeeShopSimulator {
         }
     }
 
-    private void notifyObservers() {
-        List<Order> queueSnapshot = orderQueue.getQueueSnapshot();
+    // Full resync: only at start, at stop and after the event channel overflowed.
+    // Returns the event channel's mark for the snapshot, so events it already reflects are skipped.
+    private long notifyObservers() {
+        if (observers.isEmpty()) return 0; // Headless runs have nobody to show a snapshot to
+
+        QueueEventChannel channel = eventChannel;
+        List<Order> queueSnapshot;
+        long mark;
+        synchronized (orderQueue.lock) { // Queue events are published under this lock, so none can fall in between
+            mark = channel != null ? channel.mark() : 0;
+            queueSnapshot = new ArrayList<>(orderQueue.getQueueSnapshot());
+        }
+        if (dispatcher != null) {
+            // Orders already handed to a server but not started are still waiting from the customer's view
+            queueSnapshot.addAll(dispatcher.getLocalOrders());
+        }
         List<ServerThread> serversSnapshot = new ArrayList<>(servers);
 
         observers.forEach(observer -> {
             observer.updateQueue(queueSnapshot);
             observer.updateServers(serversSnapshot);
         });
+        return mark;
     }
 
+    private void dispatchEvents(List<QueueEvent> events) {
+        observers.forEach(observer -> observer.onQueueEvents(events));
+    }
+
+    // Straight from the pending index, without scanning the day's orders
     private List<Order> getPendingPreOrders() {
-        return orderManager.getOrders().stream()
-                .filter(order -> !order.isCompleted() && "PRE_ORDER".equals(order.getOrderType()))
-                .collect(Collectors.toList());
+        return orderManager.getHistory().findPending("PRE_ORDER");
     }
 
     public boolean isRunning() {
         return isRunning;
     }
 
+    // Number of servers currently preparing an order
+    public int getBusyServerCount() {
+        int busy = 0;
+        for (ServerThread server : servers) {
+            if (server.getCurrentOrder() != null) busy++;
+        }
+        if (stationPipeline != null) {
+            busy += stationPipeline.getBusyWorkers();
+        }
+        return busy;
+    }
+
+    // Orders completed by all servers since the simulation started
+    public long getCompletedOrderCount() {
+        long completed = 0;
+        for (ServerThread server : servers) {
+            completed += server.getCompletedCount();
+        }
+        for (ServerThread server : retiredServers) {
+            completed += server.getCompletedCount();
+        }
+        if (stationPipeline != null) {
+            completed += stationPipeline.getCompletedCount();
+        }
+        return completed;
+    }
+
     public OrderQueue getOrderQueue() {
         return orderQueue;
     }
@@ -126,7 +290,38 @@ public class CoffeeShopSimulator {
         if (orderQueue == null || servers == null || orderManager == null) {
             return false; // If key components are not initialized, assume not completed
         }
-        return orderManager.getOrders().stream()
-                .allMatch(Order::isCompleted);
+        return orderManager.getCompletionTracker().isAllCompleted();
+    }
+
+    // Tail latency from arrival to completion, per lane, for the active scheduling policy, over the orders
+    // completed in this run. Generated orders count from their intended arrival (see Order.getLatencyMillis).
+    public String generateLatencyReport() {
+        long[] preOrders = orderManager.getColumns().latenciesMillis("PRE_ORDER");
+        long[] walkIns = orderManager.getColumns().latenciesMillis("WALK_IN");
+        long[] all = LongStream.concat(Arrays.stream(preOrders), Arrays.stream(walkIns)).toArray();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n=== Latency (arrival to completion), policy: ").append(orderQueue.getPolicyName()).append(" ===\n");
+        sb.append(latencyLine("Pre-orders", preOrders));
+        sb.append(latencyLine("Walk-ins", walkIns));
+        sb.append(latencyLine("All", all));
+        return sb.toString();
+    }
+
+    private static String latencyLine(String label, long[] latencies) {
+        if (latencies.length == 0) {
+            return String.format("%-11s none completed\n", label);
+        }
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return String.format("%-11s n=%-7d p50: %6.2fs  p95: %6.2fs  p99: %6.2fs  max: %6.2fs\n", label, sorted.length,
+                percentile(sorted, 0.50) / 1000.0, percentile(sorted, 0.95) / 1000.0,
+                percentile(sorted, 0.99) / 1000.0, sorted[sorted.length - 1] / 1000.0);
+    }
+
+    // Nearest-rank percentile of a sorted array
+    private static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
     }
 }
@@ -2,33 +2,53 @@ package controller;
 
 import model.*;
 import util.CoffeeShopLogger;
+import util.MetricsRegistry;
+import util.MetricsServer;
 import util.OrderQueue;
+import util.SchedulingPolicy;
 import view.MainView;
 
 import javax.swing.*;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import java.awt.event.ActionEvent;
 
 public class MainController {
-    private volatile boolean isMonitoring = false; // Control the status of the monitoring thread
     public DiscountCalculator discountCalculator;
     public MainView view;
     public Menu menu;
     public OrderManager orderManager;
-    public CoffeeShopSimulator simulator;
-    public Map<Product, Integer> selectedProducts = new HashMap<>();
+    public volatile CoffeeShopSimulator simulator;
+    public Basket basket = new Basket();
+    public BasketPricingService pricingService;
     public OrderQueue orderQueue;
+    public OrderSubmissionPipeline submissionPipeline;
+    public MetricsServer metricsServer;
+    public MenuReloader menuReloader;
+    public RetentionCompactor retentionCompactor;
+    public ShopStateStore stateStore;
+    private final List<Order> recoveredWalkIns = new ArrayList<>(); // Queued once the simulation starts
 
     public MainController() {
         this.discountCalculator = new DiscountCalculator();
+        // Price the basket off the EDT; a burst of clicks within 50ms is priced once
+        this.pricingService = new BasketPricingService(basket, discountCalculator, 50,
+                quote -> SwingUtilities.invokeLater(() -> showQuote(quote)));
         // 1. Initialize models
         this.menu = new Menu();
         this.orderManager = new OrderManager();
-        this.orderQueue = new OrderQueue(100); // Set queue capacity
+        this.orderQueue = new OrderQueue(Integer.getInteger("coffeeshop.queue.size", 100), // Set queue capacity
+                SchedulingPolicy.byName(System.getProperty("coffeeshop.policy", "strict")));
+        // Never block the EDT on a full queue
+        this.orderQueue.setAdmission(admissionProperty(), Long.getLong("coffeeshop.admission.timeout", 200));
+        this.orderQueue.setShedHandler(order -> orderManager.cancelOrder(order));
+        this.submissionPipeline = new OrderSubmissionPipeline(orderManager, orderQueue, 64, 16);
+        this.submissionPipeline.start();
         this.simulator = new CoffeeShopSimulator(orderQueue, 2, 2000, orderManager); // Default order processing time: 2000ms
         loadInitialData();
 
@@ -36,6 +56,9 @@ public class MainController {
         this.view = new MainView();
         setupEventHandlers();
         initProductDisplay();
+        view.setOrderHistory(orderManager::getOrdersPage);
+        watchMenu();
+        startRetention();
 
         // 3. Show the window
         view.setVisible(true);
@@ -47,47 +70,63 @@ public class MainController {
         // 4. Start monitoring for order completion
         startCompletionMonitor();
 
+        // 5. Expose metrics for local scraping
+        startMetricsServer();
+
         System.out.println("[DEBUG] Initialization completed, all components are ready");
     }
 
-    // Start the order completion monitoring thread
+    // Stop the simulation the moment the last outstanding order is completed (no polling)
     private void startCompletionMonitor() {
-        if (isMonitoring) {
-            return; // Avoid starting repeatedly
-        }
-
-        isMonitoring = true;
+        orderManager.getCompletionTracker().addAllCompletedListener(
+                () -> SwingUtilities.invokeLater(this::stopSimulation));
+    }
 
-        Thread completionMonitorThread = new Thread(() -> {
-            while (isMonitoring) {
-                try {
-                    // Check order status every second
-                    Thread.sleep(1000);
+    // Start the Prometheus endpoint; port from -Dcoffeeshop.metrics.port, a negative port disables it
+    private void startMetricsServer() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        ShopMetrics.bind(registry, () -> simulator, orderQueue, orderManager, menu);
 
-                    // Check if all orders are completed
-                    if (simulator != null && simulator.areAllOrdersCompleted()) {
-                        SwingUtilities.invokeLater(this::stopSimulation);
-                        break; // Exit monitoring loop
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
-
-        completionMonitorThread.start(); // Start the monitoring thread
+        int port = Integer.getInteger("coffeeshop.metrics.port", MetricsServer.DEFAULT_PORT);
+        if (port < 0) {
+            return;
+        }
+        try {
+            metricsServer = new MetricsServer(registry, port);
+            metricsServer.start();
+        } catch (IOException e) {
+            CoffeeShopLogger.getInstance().logEvent("Metrics endpoint disabled: " + e.getMessage());
+        }
     }
 
     private void loadInitialData() {
         try {
-            menu.loadFromFile("src\\menu.txt");
-            orderManager.loadFromFile("src\\pre_orders.txt", menu);
+            menu.loadFromFile(menuFile().toString());
+            if (!restoreState()) {
+                orderManager.loadFromFile(Paths.get("src", "pre_orders.txt").toString(), menu);
+            }
+            if (stateStore != null) {
+                stateStore.attach(menu, orderManager);
+            }
         } catch (Exception e) {
             showErrorDialog("Initialization Error", "Failed to load data: " + e.getMessage());
         }
     }
 
+    // With -Dcoffeeshop.state.dir, stock and orders survive a restart; returns whether saved state was restored
+    private boolean restoreState() throws IOException {
+        String directory = System.getProperty("coffeeshop.state.dir");
+        if (directory == null) return false;
+        stateStore = new ShopStateStore(Paths.get(directory), 20, 60000);
+        if (!stateStore.hasState()) return false;
+        for (Order order : stateStore.restore(menu, orderManager)) {
+            if (!"PRE_ORDER".equals(order.getOrderType())) {
+                recoveredWalkIns.add(order); // Pending pre-orders are queued by the simulator
+            }
+        }
+        return true;
+    }
+
     private void setupEventHandlers() {
         // Order button
         view.setOrderButtonListener(this::handlePlaceOrder);
@@ -98,84 +137,93 @@ public class MainController {
     }
 
     private void initProductDisplay() {
-        menu.getAllProducts().forEach(product -> {
-            view.addProductCard(
-                    product,
-                    e -> handleAddProduct(product),
-                    e -> handleRemoveProduct(product)
-            );
-
-            // Initialize selected quantity
-            selectedProducts.put(product, 0);
-        });
+        view.setProducts(menu.getAllProducts(), this::handleAddProduct, this::handleRemoveProduct);
     }
 
-    // Order processing logic
-    private void handlePlaceOrder(ActionEvent e) {
-        if (selectedProducts.values().stream().allMatch(q -> q == 0)) {
-            showWarningDialog("Order Error", "Please select at least one product");
-            return;
+    // -Dcoffeeshop.admission; spilling needs an overflow file, so it is a headless option only
+    private static OrderQueue.Admission admissionProperty() {
+        String name = System.getProperty("coffeeshop.admission", "reject");
+        OrderQueue.Admission admission;
+        try {
+            admission = OrderQueue.Admission.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown admission policy: " + name + " (block, timeout, reject, shed)");
+        }
+        if (admission == OrderQueue.Admission.SPILL) {
+            throw new IllegalArgumentException("Spill admission is only available in headless mode (--admission spill)");
         }
+        return admission;
+    }
 
-        if (simulator == null || !simulator.isRunning()) {
-            showWarningDialog("System Not Ready", "Please start the simulation first");
+    // Menu file from -Dcoffeeshop.menu, relative to the working directory
+    private Path menuFile() {
+        return Paths.get(System.getProperty("coffeeshop.menu", Paths.get("src", "menu.txt").toString()));
+    }
+
+    // Pick up edits to the menu file without a restart (-Dcoffeeshop.menu.watch=false turns it off)
+    private void watchMenu() {
+        menu.addListener(snapshot -> SwingUtilities.invokeLater(() -> showReloadedMenu(snapshot)));
+        if (!Boolean.parseBoolean(System.getProperty("coffeeshop.menu.watch", "true"))) {
             return;
         }
-
+        menuReloader = new MenuReloader(menu, menuFile(), 200);
         try {
-            // 1. Create new order
-            Order newOrder = createNewOrder();
-
-            // 2. Add products to order
-            addItemsToOrder(newOrder);
-
-            // 3. Calculate and apply discounts
-            applyDiscounts(newOrder);
-
-            // 4. Submit order to system
-            submitOrder(newOrder);
-
-            // 5. Update UI state
-            resetOrderUI();
-            showSuccessMessage(newOrder);
-
-        } catch (Exception ex) {
-            handleOrderException(ex);
+            menuReloader.start();
+        } catch (IOException e) {
+            CoffeeShopLogger.getInstance().logEvent("Menu hot reload disabled: " + e.getMessage());
         }
     }
 
-    private Order createNewOrder() {
-        String orderId = "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-        return new Order(orderId, timestamp, "User", "WALK_IN");
+    // With -Dcoffeeshop.archive.dir, completed orders older than coffeeshop.retention.age ms leave memory
+    private void startRetention() {
+        String directory = System.getProperty("coffeeshop.archive.dir");
+        if (directory == null) return;
+        if (stateStore != null) {
+            CoffeeShopLogger.getInstance().logEvent("Order archive disabled: it cannot be combined with coffeeshop.state.dir");
+            return;
+        }
+        try {
+            orderManager.enableRetention(new OrderArchive(Paths.get(directory), OrderArchive.DEFAULT_SEGMENT_BYTES),
+                    Long.getLong("coffeeshop.retention.age", 60000));
+            retentionCompactor = new RetentionCompactor(orderManager, 5000);
+            retentionCompactor.start();
+        } catch (IOException e) {
+            CoffeeShopLogger.getInstance().logEvent("Order archive disabled: " + e.getMessage());
+        }
     }
 
-    private void addItemsToOrder(Order order) throws OutOfStockException {
-        for (Map.Entry<Product, Integer> entry : selectedProducts.entrySet()) {
-            Product product = entry.getKey();
-            int quantity = entry.getValue();
-
-            if (quantity > 0) {
-                if (quantity > product.getStock()) {
-                    throw new OutOfStockException(
-                            product.getName() + " is out of stock (Remaining: " + product.getStock() + ")");
-                }
-                order.addItem(product, quantity);
-                product.reduceStock(quantity);
-                view.updateProductStock(product);
-            }
-        }
+    // Runs on the EDT: move the basket onto the new products (new prices) and redraw the menu
+    private void showReloadedMenu(MenuSnapshot snapshot) {
+        if (snapshot != menu.snapshot()) return; // A newer reload is on its way
+        basket.remap(snapshot);
+        view.setProducts(snapshot.getProducts(), this::handleAddProduct, this::handleRemoveProduct);
+        pricingService.basketChanged();
     }
 
-    private void applyDiscounts(Order order) {
-        DiscountCalculator.DiscountResult discount =
-                new DiscountCalculator().calculateBestDiscount(order);
+    // Order processing logic: the pipeline does the work off the EDT and reports back here
+    private void handlePlaceOrder(ActionEvent e) {
+        if (basket.isEmpty()) {
+            showWarningDialog("Order Error", "Please select at least one product");
+            return;
+        }
 
-        order.setDiscountAmount(discount.discountAmount);
-        order.setTotalPrice(order.calculateOriginalPrice() - discount.discountAmount);
+        if (simulator == null || !simulator.isRunning()) {
+            showWarningDialog("System Not Ready", "Please start the simulation first");
+            return;
+        }
 
-        // Display discounted order details
-        view.appendOrderNote(order.getOrderDetails());
+        Map<Product, Integer> quantities = basket.getQuantities();
+        submissionPipeline.submit(quantities, "User", "WALK_IN").whenComplete((order, ex) ->
+                SwingUtilities.invokeLater(() -> {
+                    quantities.keySet().forEach(view::updateProductStock);
+                    if (ex != null) {
+                        handleOrderException(ex instanceof CompletionException ? (Exception) ex.getCause() : (Exception) ex);
+                        return;
+                    }
+                    view.addLiveOrder(order); // Newest at the top of Live Orders
+                    resetOrderUI(quantities);
+                    showSuccessMessage(order);
+                }));
     }
 
     // Simulation control logic
@@ -198,8 +246,16 @@ public class MainController {
                 // 3. Set observer
                 simulator.addObserver(view);
 
-                // 4. Start simulation
+                // 4. Start simulation, then queue the recovered walk-ins (waiting for room, off the EDT)
                 simulator.startSimulation();
+                List<Order> walkIns;
+                synchronized (recoveredWalkIns) {
+                    walkIns = new ArrayList<>(recoveredWalkIns);
+                    recoveredWalkIns.clear();
+                }
+                for (Order order : walkIns) {
+                    orderQueue.addOrder(order);
+                }
 
                 // 5. Update UI on EDT
                 SwingUtilities.invokeLater(() -> {
@@ -208,7 +264,7 @@ public class MainController {
                 });
 
             } catch (Exception e) {
-                e.printStackTrace();
+                CoffeeShopLogger.getInstance().logError("Simulation start failed", e);
 
                 SwingUtilities.invokeLater(() ->
                         showErrorDialog("Start Failed",
@@ -227,7 +283,7 @@ public class MainController {
             CoffeeShopLogger.getInstance().logEvent(orderManager.generateReport());
 
             try {
-                CoffeeShopLogger.getInstance().saveToFile("src\\coffee_shop_log.txt");
+                CoffeeShopLogger.getInstance().saveToFile(Paths.get("src", "coffee_shop_log.txt").toString());
             } catch (Exception e) {
                 showErrorDialog("Log Error", "Failed to save log: " + e.getMessage());
             }
@@ -236,16 +292,15 @@ public class MainController {
         }
     }
 
-    // Product selection handlers
+    // Product selection handlers: O(1) on the EDT, pricing happens on the pricing worker
     private void handleAddProduct(Product product) {
         try {
-            int current = selectedProducts.get(product);
-            if (current >= product.getStock()) {
+            if (basket.getQuantity(product) >= product.getStock()) {
                 throw new OutOfStockException("Stock limit reached");
             }
 
-            selectedProducts.put(product, current + 1);
-            updatePriceDisplay();
+            basket.add(product, 1);
+            pricingService.basketChanged();
 
         } catch (OutOfStockException e) {
             showWarningDialog("Stock Warning", e.getMessage());
@@ -253,55 +308,32 @@ public class MainController {
     }
 
     private void handleRemoveProduct(Product product) {
-        int current = selectedProducts.get(product);
-        if (current > 0) {
-            selectedProducts.put(product, current - 1);
-            updatePriceDisplay();
+        if (basket.getQuantity(product) > 0) {
+            basket.add(product, -1);
+            pricingService.basketChanged();
         }
     }
 
-    private void updatePriceDisplay() {
-        // Create a temporary order for calculation
-        Order tempOrder = createTempOrder();
-
-        // Calculate discount
-        DiscountCalculator.DiscountResult discountResult = calculateDiscount(tempOrder);
-
-        double total = tempOrder.calculateOriginalPrice();
-        double discountedPrice = total - discountResult.discountAmount;
-
+    // Runs on the EDT; a quote for an older basket (e.g. from before a reset) is ignored
+    private void showQuote(BasketPricingService.Quote quote) {
+        if (quote.version != basket.getVersion()) return;
         view.updatePriceDisplay(
-                total,
-                discountedPrice,
-                discountResult.description // Display discount description
+                quote.originalPrice,
+                quote.discountedPrice,
+                quote.description // Display discount description
         );
     }
 
-    private Order createTempOrder() {
-        Order tempOrder = new Order("TEMP", "TEMP", "TEMP", "TEMP");
-        selectedProducts.forEach((product, quantity) -> {
-            if (quantity > 0) {
-                tempOrder.addItem(product, quantity);
-            }
-        });
-        return tempOrder;
-    }
-
-    private DiscountCalculator.DiscountResult calculateDiscount(Order order) {
-        return discountCalculator.calculateBestDiscount(order);
-    }
-
-    private void submitOrder(Order order) throws InterruptedException {
-        orderManager.addOrder(order);
-        simulator.getOrderQueue().addOrder(order);
-        CoffeeShopLogger.getInstance().logEvent(
-                "New order submitted: " + order.getOrderId() + " Total: " + order.getTotalPrice());
-    }
-
-    private void resetOrderUI() {
-        selectedProducts.replaceAll((p, q) -> 0);
-        view.resetProductSelections();
-        view.resetOrderSummariesSelections();
+    // Take only the submitted items out of the basket: items added while the order was in flight stay
+    private void resetOrderUI(Map<Product, Integer> ordered) {
+        basket.subtract(ordered);
+        if (basket.isEmpty()) {
+            view.resetProductSelections();
+            view.resetOrderSummariesSelections();
+        } else {
+            view.showSelectedQuantities(basket.getQuantities());
+            pricingService.basketChanged();
+        }
     }
 
     private void showSuccessMessage(Order order) {
@@ -315,6 +347,8 @@ public class MainController {
         CoffeeShopLogger.getInstance().logEvent("Order Error: " + ex.getMessage());
         if (ex instanceof OutOfStockException) {
             showWarningDialog("Stock Error", ex.getMessage());
+        } else if (ex instanceof ShopBusyException) {
+            showWarningDialog("Shop Busy", ex.getMessage());
         } else {
             showErrorDialog("System Error", ex.getMessage());
         }
@@ -0,0 +1,113 @@
+package controller;
+
+import model.Menu;
+import model.MenuSnapshot;
+import model.Product;
+import util.CoffeeShopLogger;
+import util.MetricsRegistry;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Watches the menu file and publishes a new menu snapshot when it changes. Parsing happens on the watcher
+// thread, and Menu.reload swaps the snapshot in one step, so readers never wait on a reload.
+// Editors often write a file in several steps, so the reload waits until the file has been quiet
+// for debounceMillis. A file that fails to parse or is empty leaves the current menu in place.
+public class MenuReloader {
+    private static final String HELP = "Menu file reloads, by result";
+    private static final MetricsRegistry.Counter RELOADED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_menu_reloads_total", HELP, "result", "ok");
+    private static final MetricsRegistry.Counter FAILED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_menu_reloads_total", HELP, "result", "failed");
+
+    private final Menu menu;
+    private final Path file;
+    private final long debounceMillis;
+    private WatchService watchService;
+    private Thread watcher;
+
+    public MenuReloader(Menu menu, Path file, long debounceMillis) {
+        if (debounceMillis < 0) throw new IllegalArgumentException("Debounce cannot be negative");
+        this.menu = menu;
+        this.file = file.toAbsolutePath();
+        this.debounceMillis = debounceMillis;
+    }
+
+    public synchronized void start() throws IOException {
+        if (watcher != null) return;
+        watchService = FileSystems.getDefault().newWatchService();
+        // Watch the directory: editors and deploy scripts often replace the file rather than write it in place
+        file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher = new Thread(this::watch, "menu-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    public synchronized void stop() {
+        if (watcher == null) return;
+        try {
+            watchService.close(); // Wakes the watcher out of take()
+        } catch (IOException e) {
+            CoffeeShopLogger.getInstance().logEvent("Closing menu watch failed: " + e.getMessage());
+        }
+        watcher.interrupt();
+        watcher = null;
+    }
+
+    // Parse the file and publish it; returns the new snapshot, or null if the current menu was kept
+    public MenuSnapshot reloadNow() {
+        try {
+            List<Product> products = Menu.parseFile(file.toString());
+            MenuSnapshot snapshot = menu.reload(products);
+            RELOADED.inc();
+            CoffeeShopLogger.getInstance().logEvent("Menu reloaded: " + snapshot.size()
+                    + " products (version " + snapshot.getVersion() + ")");
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            FAILED.inc();
+            CoffeeShopLogger.getInstance().logEvent("Menu reload failed, keeping the current menu: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void watch() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = drain(key);
+                // Wait for the writes to settle: keep draining until nothing arrives for debounceMillis
+                while ((key = service.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(key);
+                }
+                if (changed) {
+                    reloadNow();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    // True if any event was about the menu file (or events were lost)
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
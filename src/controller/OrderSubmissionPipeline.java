@@ -0,0 +1,292 @@
+package controller;
+
+import model.DiscountCalculator;
+import model.Order;
+import model.OrderManager;
+import model.OutOfStockException;
+import model.Product;
+import model.ShopBusyException;
+import util.CoffeeShopLogger;
+import util.MetricsRegistry;
+import util.OrderQueue;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Asynchronous order submission: validate -> reserve stock -> price -> persist -> enqueue.
+// Each stage is one thread fed by a bounded queue; it drains up to batchSize submissions at a time,
+// so persisting takes the order manager lock once per batch. submit() never blocks: the caller
+// (the Swing EDT, a terminal, a generator) gets a future that completes with the queued order,
+// or fails with OutOfStockException, ShopBusyException or IllegalArgumentException.
+// A failed submission undoes the earlier stages (stock reservation, sales figures).
+public class OrderSubmissionPipeline {
+    private static final String HELP = "Orders submitted through the submission pipeline, by result";
+    private static final MetricsRegistry.Counter ACCEPTED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_submissions_total", HELP, "result", "accepted");
+    private static final MetricsRegistry.Counter OUT_OF_STOCK = MetricsRegistry.getInstance().counter(
+            "coffeeshop_submissions_total", HELP, "result", "out_of_stock");
+    private static final MetricsRegistry.Counter BUSY = MetricsRegistry.getInstance().counter(
+            "coffeeshop_submissions_total", HELP, "result", "busy");
+    private static final MetricsRegistry.Counter FAILED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_submissions_total", HELP, "result", "failed");
+
+    private final OrderManager orderManager;
+    private final OrderQueue orderQueue;
+    private final DiscountCalculator discountCalculator = new DiscountCalculator(); // Used by the price stage only
+    private final int batchSize;
+    private final List<Stage> stages = new ArrayList<>();
+    private final SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"); // Validate stage only
+    private volatile boolean running;
+
+    // One order on its way through the stages
+    private static class Submission {
+        final Map<Product, Integer> quantities;
+        final String customerName;
+        final String orderType;
+        final CompletableFuture<Order> future = new CompletableFuture<>();
+        Order order;
+        boolean reserved;
+        boolean persisted;
+
+        Submission(Map<Product, Integer> quantities, String customerName, String orderType) {
+            this.quantities = quantities;
+            this.customerName = customerName;
+            this.orderType = orderType;
+        }
+    }
+
+    // A stage thread: take a batch, work on it, hand the survivors to the next stage
+    private class Stage implements Runnable {
+        final String name;
+        final BlockingQueue<Submission> input;
+        final Consumer<List<Submission>> work;
+        Stage next;
+        Thread thread;
+
+        Stage(String name, int capacity, Consumer<List<Submission>> work) {
+            this.name = name;
+            this.input = new ArrayBlockingQueue<>(capacity);
+            this.work = work;
+            MetricsRegistry.getInstance().gauge("coffeeshop_submission_stage_depth",
+                    "Submissions waiting for a pipeline stage", input::size, "stage", name);
+        }
+
+        @Override
+        public void run() {
+            List<Submission> batch = new ArrayList<>(batchSize);
+            while (running) {
+                try {
+                    Submission first = input.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    input.drainTo(batch, batchSize - 1);
+                    try {
+                        work.accept(batch);
+                    } catch (RuntimeException e) {
+                        for (Submission submission : batch) {
+                            fail(submission, e);
+                        }
+                    }
+                    int handed = 0;
+                    try {
+                        for (; handed < batch.size(); handed++) {
+                            Submission submission = batch.get(handed);
+                            if (next != null && !submission.future.isDone()) {
+                                next.input.put(submission); // Blocks while the next stage is backed up
+                            }
+                        }
+                    } finally {
+                        batch.subList(0, handed).clear(); // Keep what was not handed on, so a stop fails it
+                    }
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            // Stopping: nothing in hand or still queued here will be finished
+            input.drainTo(batch);
+            failAll(batch);
+        }
+    }
+
+    public OrderSubmissionPipeline(OrderManager orderManager, OrderQueue orderQueue, int capacity, int batchSize) {
+        if (capacity <= 0 || batchSize <= 0) throw new IllegalArgumentException("Capacity and batch size must be greater than 0");
+        this.orderManager = orderManager;
+        this.orderQueue = orderQueue;
+        this.batchSize = batchSize;
+
+        stages.add(new Stage("validate", capacity, batch -> batch.forEach(this::validate)));
+        stages.add(new Stage("reserve", capacity, batch -> batch.forEach(this::reserve)));
+        stages.add(new Stage("price", capacity, batch -> batch.forEach(this::price)));
+        stages.add(new Stage("persist", capacity, this::persist));
+        stages.add(new Stage("enqueue", capacity, batch -> batch.forEach(this::enqueue)));
+        for (int i = 0; i < stages.size() - 1; i++) {
+            stages.get(i).next = stages.get(i + 1);
+        }
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        for (Stage stage : stages) {
+            stage.thread = new Thread(stage, "submit-" + stage.name);
+            stage.thread.setDaemon(true);
+            stage.thread.start();
+        }
+    }
+
+    // Stops the stages and fails every submission not yet queued. A stage may hand a submission on to a
+    // stage that has already exited, so once all of them have finished their queues are swept again.
+    public synchronized void stop() {
+        running = false;
+        for (Stage stage : stages) {
+            if (stage.thread != null) {
+                stage.thread.interrupt();
+            }
+        }
+        for (Stage stage : stages) {
+            if (stage.thread == null) continue;
+            try {
+                stage.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Stage stage : stages) {
+            List<Submission> left = new ArrayList<>();
+            stage.input.drainTo(left);
+            failAll(left);
+        }
+    }
+
+    private void failAll(List<Submission> submissions) {
+        for (Submission submission : submissions) {
+            fail(submission, new CancellationException("Order submission stopped"));
+        }
+    }
+
+    // Submit an order for the given product quantities; never blocks. Safe to call from any thread.
+    public CompletableFuture<Order> submit(Map<Product, Integer> quantities, String customerName, String orderType) {
+        return submit(quantities, customerName, orderType, false);
+    }
+
+    // Submit quantities whose stock the caller has already taken (e.g. a cart's holds). The pipeline owns that
+    // stock from now on: it skips the reserve stage and puts the stock back if the submission fails.
+    public CompletableFuture<Order> submitReserved(Map<Product, Integer> quantities, String customerName, String orderType) {
+        return submit(quantities, customerName, orderType, true);
+    }
+
+    private CompletableFuture<Order> submit(Map<Product, Integer> quantities, String customerName, String orderType,
+                                            boolean reserved) {
+        Submission submission = new Submission(new LinkedHashMap<>(quantities), customerName, orderType);
+        submission.reserved = reserved;
+        if (!running) {
+            fail(submission, new IllegalStateException("Order submission is not running"));
+        } else if (!stages.get(0).input.offer(submission)) {
+            BUSY.inc();
+            fail(submission, new ShopBusyException("Too many orders are being submitted, please try again"));
+        } else if (!running && stages.get(0).input.remove(submission)) {
+            fail(submission, new IllegalStateException("Order submission is not running")); // Raced with stop()
+        }
+        return submission.future;
+    }
+
+    private void validate(Submission submission) {
+        submission.quantities.values().removeIf(quantity -> quantity <= 0);
+        if (submission.quantities.isEmpty()) {
+            fail(submission, new IllegalArgumentException("Please select at least one product"));
+            return;
+        }
+        String orderId = "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        Order order = new Order(orderId, timestampFormat.format(new Date()), submission.customerName, submission.orderType);
+        submission.quantities.forEach(order::addItem);
+        submission.order = order;
+    }
+
+    // All products or none: roll back what was taken if one is short
+    private void reserve(Submission submission) {
+        if (submission.reserved) return; // Already held by the caller
+        List<Map.Entry<Product, Integer>> taken = new ArrayList<>();
+        for (Map.Entry<Product, Integer> entry : submission.quantities.entrySet()) {
+            Product product = entry.getKey();
+            try {
+                product.reduceStock(entry.getValue());
+                taken.add(entry);
+            } catch (OutOfStockException e) {
+                taken.forEach(t -> t.getKey().restoreStock(t.getValue()));
+                fail(submission, new OutOfStockException(
+                        product.getName() + " is out of stock (Remaining: " + product.getStock() + ")"));
+                return;
+            }
+        }
+        submission.reserved = true;
+    }
+
+    private void price(Submission submission) {
+        Order order = submission.order;
+        DiscountCalculator.DiscountResult discount = discountCalculator.calculateBestDiscount(order);
+        order.setDiscountAmount(discount.discountAmount);
+        order.setTotalPrice(order.calculateOriginalPrice() - discount.discountAmount);
+    }
+
+    // Recorded before it is queued, so a server can never complete an unrecorded order
+    private void persist(List<Submission> batch) {
+        List<Order> orders = new ArrayList<>(batch.size());
+        for (Submission submission : batch) {
+            if (!submission.future.isDone()) {
+                submission.order.setStockReserved(true); // Every submission gets here with its stock taken
+                orders.add(submission.order);
+            }
+        }
+        orderManager.addOrders(orders);
+        for (Submission submission : batch) {
+            if (!submission.future.isDone()) submission.persisted = true;
+        }
+    }
+
+    private void enqueue(Submission submission) {
+        try {
+            if (orderQueue.offerOrder(submission.order) == OrderQueue.AdmissionResult.REJECTED) {
+                BUSY.inc();
+                fail(submission, new ShopBusyException("The order queue is full, please try again in a moment"));
+                return;
+            }
+        } catch (InterruptedException e) {
+            fail(submission, new CancellationException("Order submission stopped"));
+            Thread.currentThread().interrupt(); // Let the stage loop see it
+            return;
+        }
+        ACCEPTED.inc();
+        CoffeeShopLogger.getInstance().logEvent(
+                "New order submitted: " + submission.order.getOrderId() + " Total: " + submission.order.getTotalPrice());
+        submission.future.complete(submission.order);
+    }
+
+    // Undo the stages already done, then fail the future
+    private void fail(Submission submission, Throwable cause) {
+        if (submission.future.isDone()) return;
+        if (submission.persisted) {
+            orderManager.cancelOrder(submission.order); // Puts the reserved stock back too
+        } else if (submission.reserved) {
+            submission.quantities.forEach(Product::restoreStock);
+        }
+        if (cause instanceof OutOfStockException) {
+            OUT_OF_STOCK.inc();
+        } else if (!(cause instanceof ShopBusyException)) {
+            FAILED.inc();
+        }
+        CoffeeShopLogger.getInstance().logEvent("Order submission failed: " + cause.getMessage());
+        submission.future.completeExceptionally(cause);
+    }
+}
@@ -0,0 +1,66 @@
+package controller;
+
+import model.OrderManager;
+import util.CoffeeShopLogger;
+import util.MetricsRegistry;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Runs OrderManager.compact every intervalMillis on a background thread, so completed orders older than
+// the retention age are written to the archive while the shop keeps running.
+public class RetentionCompactor {
+    private static final MetricsRegistry.Counter ARCHIVED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_orders_archived_total", "Completed orders written to the archive");
+
+    private final OrderManager orderManager;
+    private final long intervalMillis;
+    private ScheduledExecutorService scheduler;
+
+    public RetentionCompactor(OrderManager orderManager, long intervalMillis) {
+        if (intervalMillis <= 0) throw new IllegalArgumentException("Compaction interval must be positive");
+        this.orderManager = orderManager;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) return;
+        MetricsRegistry.getInstance().gauge("coffeeshop_orders_in_memory", "Pending orders held in memory as objects",
+                orderManager::getHotOrderCount);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "retention-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::compactNow, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Stops the schedule and waits for a compaction in progress to finish
+    public synchronized void stop() {
+        if (scheduler == null) return;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    // Archive what is old enough now; returns how many orders moved
+    public int compactNow() {
+        try {
+            int moved = orderManager.compact(System.currentTimeMillis());
+            if (moved > 0) {
+                ARCHIVED.inc(moved);
+                CoffeeShopLogger.getInstance().logEvent("Archived " + moved + " completed orders");
+            }
+            return moved;
+        } catch (IOException | RuntimeException e) {
+            CoffeeShopLogger.getInstance().logEvent("Order archiving failed, orders stay in the columns until the next run: " + e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package controller;
+
+import model.Menu;
+import model.MenuSnapshot;
+import model.OrderManager;
+import model.Product;
+import util.MetricsRegistry;
+import util.OrderQueue;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Registers the shop-level gauges (queue depth, busy servers, stock, revenue) with the metrics registry
+public class ShopMetrics {
+    private ShopMetrics() {
+    }
+
+    // The simulator is looked up through a supplier because the controller recreates it on start
+    public static void bind(MetricsRegistry registry,
+                            Supplier<CoffeeShopSimulator> simulator,
+                            OrderQueue orderQueue,
+                            OrderManager orderManager,
+                            Menu menu) {
+        // Queue depth per lane (volatile reads, no queue lock)
+        registry.gauge("coffeeshop_queue_depth", "Orders waiting in the queue",
+                orderQueue::getPreOrderDepth, "lane", "pre_order");
+        registry.gauge("coffeeshop_queue_depth", "Orders waiting in the queue",
+                orderQueue::getWalkInDepth, "lane", "walk_in");
+        registry.gauge("coffeeshop_queue_capacity", "Maximum number of queued orders",
+                () -> orderQueue.maxSize);
+
+        // Server activity
+        registry.gauge("coffeeshop_servers_busy", "Servers currently preparing an order", () -> {
+            CoffeeShopSimulator current = simulator.get();
+            return current == null ? 0 : current.getBusyServerCount();
+        });
+        registry.gauge("coffeeshop_servers_total", "Servers in the simulation", () -> {
+            CoffeeShopSimulator current = simulator.get();
+            return current == null ? 0 : current.serverCount;
+        });
+
+        // Revenue
+        registry.gauge("coffeeshop_revenue_dollars", "Revenue taken today",
+                orderManager::getPreOrderRevenue, "lane", "pre_order");
+        registry.gauge("coffeeshop_revenue_dollars", "Revenue taken today",
+                orderManager::getWalkInRevenue, "lane", "walk_in");
+
+        // Stock per product; a menu reload swaps the series over to the new snapshot
+        registry.gauge("coffeeshop_menu_version", "Menu snapshots published since start",
+                () -> menu.snapshot().getVersion());
+        AtomicReference<MenuSnapshot> bound = new AtomicReference<>();
+        bindStock(registry, bound, menu.snapshot());
+        menu.addListener(snapshot -> bindStock(registry, bound, snapshot));
+    }
+
+    private static void bindStock(MetricsRegistry registry, AtomicReference<MenuSnapshot> bound, MenuSnapshot snapshot) {
+        MenuSnapshot previous = bound.getAndSet(snapshot);
+        if (previous != null) {
+            for (Product product : previous.getProducts()) {
+                registry.remove("coffeeshop_product_stock", "product", product.getId(), "name", product.getName());
+            }
+        }
+        for (Product product : snapshot.getProducts()) {
+            registry.gauge("coffeeshop_product_stock", "Remaining stock per product",
+                    product::getStock, "product", product.getId(), "name", product.getName());
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package controller;
+
+import model.Order;
+import model.Product;
+import model.QueueEvent;
+import model.ServerThread;
+import model.ServiceTimeModel;
+import util.CoffeeShopLogger;
+import util.MetricsRegistry;
+import util.OrderQueue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Station-based preparation: beverage, food and dessert stations with their own worker pools.
+// A dispatcher takes orders from the queue, splits them by product category into one sub-task per station,
+// runs the parts in parallel and completes the order when every part has finished. If a part fails,
+// the order is cancelled instead.
+public class StationPipeline {
+    public static final String NAME = "Stations";
+    // Same metric families as the servers, so dashboards work in both modes
+    private static final MetricsRegistry.Counter ORDERS_COMPLETED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_orders_completed_total", "Orders completed by servers (use rate() for orders/sec)");
+    private static final MetricsRegistry.Histogram QUEUE_WAIT = MetricsRegistry.getInstance().histogram(
+            "coffeeshop_queue_wait_seconds", "Time orders spent in the queue before a server took them", ServerThread.LATENCY_BUCKETS);
+    private static final MetricsRegistry.Histogram RESPONSE_TIME = MetricsRegistry.getInstance().histogram(
+            "coffeeshop_response_seconds", "Generated orders: intended arrival to completion (no coordinated omission)", ServerThread.LATENCY_BUCKETS);
+
+    private final OrderQueue orderQueue;
+    private final ServiceTimeModel serviceTimeModel;
+    private final Map<String, Station> stations = new LinkedHashMap<>();
+    private final Semaphore inFlight; // Bounds orders taken from the queue but not yet completed
+    private final AtomicLong completedCount = new AtomicLong();
+    private volatile Consumer<Order> failureHandler = Order::cancelOrder; // Told about orders a station failed
+    private volatile boolean running;
+    private Thread dispatcher;
+    private long startedAt;
+
+    // One station: a fixed worker pool for a single product category
+    public static class Station {
+        private final String category;
+        private final int workers;
+        private final ThreadPoolExecutor executor;
+        private final AtomicInteger busyWorkers = new AtomicInteger();
+        private final AtomicLong busyMillis = new AtomicLong();
+        private final AtomicLong tasksCompleted = new AtomicLong();
+
+        Station(String category, int workers) {
+            this.category = category;
+            this.workers = workers;
+            this.executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(workers, r -> {
+                Thread thread = new Thread(r, category + "-station");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public int getBusyWorkers() {
+            return busyWorkers.get();
+        }
+
+        public int getQueuedTasks() {
+            return executor.getQueue().size();
+        }
+
+        public long getTasksCompleted() {
+            return tasksCompleted.get();
+        }
+
+        public long getBusyMillis() {
+            return busyMillis.get();
+        }
+    }
+
+    public StationPipeline(OrderQueue orderQueue, Map<String, Integer> workersPerCategory,
+                           ServiceTimeModel serviceTimeModel, int maxInFlight) {
+        if (workersPerCategory.isEmpty()) throw new IllegalArgumentException("At least one station is required");
+        this.orderQueue = orderQueue;
+        this.serviceTimeModel = serviceTimeModel;
+        this.inFlight = new Semaphore(maxInFlight);
+        workersPerCategory.forEach((category, workers) -> {
+            if (workers <= 0) throw new IllegalArgumentException("Station " + category + " needs at least one worker");
+            stations.put(category, new Station(category, workers));
+        });
+        registerMetrics();
+    }
+
+    // Parse "Beverage=2,Food=1,Dessert=1" (also used for per-category times)
+    public static Map<String, Integer> parseCategoryMap(String spec) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.split("=");
+            if (pair.length != 2) throw new IllegalArgumentException("Expected Category=value: " + part);
+            result.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        return result;
+    }
+
+    // E.g. OrderManager::cancelOrder, so a failed order leaves the sales figures and returns its stock
+    public void setFailureHandler(Consumer<Order> failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        startedAt = System.currentTimeMillis();
+        dispatcher = new Thread(this::dispatch, "station-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        CoffeeShopLogger.getInstance().logEvent("Station pipeline started with stations " + stations.keySet());
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        stations.values().forEach(station -> station.executor.shutdownNow());
+    }
+
+    private void dispatch() {
+        while (running) {
+            try {
+                inFlight.acquire();
+                Order order = orderQueue.getNextOrder(100);
+                if (order == null) {
+                    inFlight.release();
+                    continue;
+                }
+                orderQueue.publish(QueueEvent.taken(order, NAME));
+                QUEUE_WAIT.observe((System.currentTimeMillis() - order.getEnqueueTime()) / 1000.0);
+                process(order);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    // Split the order by category and join the parts
+    private void process(Order order) {
+        Map<String, List<Product>> parts = new LinkedHashMap<>();
+        for (Product product : order.getItems()) {
+            parts.computeIfAbsent(stationFor(product), k -> new ArrayList<>()).add(product);
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(parts.size());
+        parts.forEach((category, products) -> {
+            Station station = stations.get(category);
+            futures.add(CompletableFuture.runAsync(() -> prepare(station, products), station.executor));
+        });
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+            inFlight.release();
+            if (error != null) {
+                CoffeeShopLogger.getInstance().logEvent("Order " + order.getOrderId() + " was not completed: " + error.getMessage());
+                failureHandler.accept(order); // Cancelled, so completion trackers do not wait for it forever
+                return;
+            }
+            completedCount.incrementAndGet(); // Count first so awaiters of completion see it
+            ORDERS_COMPLETED.inc();
+            if (order.getScheduledTime() > 0) {
+                RESPONSE_TIME.observe((System.nanoTime() - order.getScheduledTime()) / 1e9);
+            }
+            order.completeOrder();
+            orderQueue.publish(QueueEvent.completed(order, NAME));
+            CoffeeShopLogger.getInstance().logEvent(NAME + " completed order: " + order.getOrderId());
+        });
+    }
+
+    // Categories without a station of their own go to the first configured station
+    private String stationFor(Product product) {
+        return stations.containsKey(product.getCategory())
+                ? product.getCategory()
+                : stations.keySet().iterator().next();
+    }
+
+    private void prepare(Station station, List<Product> products) {
+        long time = 0;
+        for (Product product : products) {
+            time += serviceTimeModel.itemTime(product);
+        }
+        station.busyWorkers.incrementAndGet();
+        try {
+            Thread.sleep(time);
+            station.tasksCompleted.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Station " + station.category + " was interrupted");
+        } finally {
+            station.busyWorkers.decrementAndGet();
+            station.busyMillis.addAndGet(time);
+        }
+    }
+
+    private void registerMetrics() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        for (Station station : stations.values()) {
+            registry.gauge("coffeeshop_station_busy_workers", "Station workers currently preparing items",
+                    station::getBusyWorkers, "station", station.category);
+            registry.gauge("coffeeshop_station_queued_tasks", "Sub-tasks waiting for a station worker",
+                    station::getQueuedTasks, "station", station.category);
+            registry.gauge("coffeeshop_station_workers", "Workers per station",
+                    () -> station.workers, "station", station.category);
+        }
+    }
+
+    public int getBusyWorkers() {
+        return stations.values().stream().mapToInt(Station::getBusyWorkers).sum();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public List<Station> getStations() {
+        return new ArrayList<>(stations.values());
+    }
+
+    // Utilisation per station; the busiest station is the bottleneck
+    public String generateStationReport() {
+        long elapsed = Math.max(1, System.currentTimeMillis() - startedAt);
+        StringBuilder sb = new StringBuilder("\n=== Station Utilisation ===\n");
+        for (Station station : stations.values()) {
+            double utilisation = station.getBusyMillis() * 100.0 / (elapsed * station.workers);
+            sb.append(String.format("%-10s workers: %-3d sub-tasks: %-8d utilisation: %5.1f%%\n",
+                    station.category, station.workers, station.getTasksCompleted(), utilisation));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,215 @@
+package controller;
+
+import model.Order;
+import model.OrderSource;
+import model.ServerThread;
+import util.CoffeeShopLogger;
+import util.MetricsRegistry;
+import util.OrderQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Work-stealing dispatch: one dispatcher thread moves orders from the shared OrderQueue to small per-server
+// local queues (least-loaded server first), so servers no longer compete for the OrderQueue lock.
+// An idle server steals from the other servers: pre-orders from the front, walk-ins from the back.
+// Pre-orders go ahead of every walk-in in their local queue and are stolen first, so a pre-order waits at most
+// behind the current order and localCapacity - 1 earlier pre-orders of one server.
+public class WorkStealingDispatcher {
+    private static final MetricsRegistry.Counter STEALS = MetricsRegistry.getInstance().counter(
+            "coffeeshop_orders_stolen_total", "Orders an idle server took from another server's local queue");
+    private static final long STEAL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(2); // Idle servers look for work this often
+
+    private final OrderQueue orderQueue;
+    private final List<LocalQueue> locals = new ArrayList<>();
+    private final int localCapacity;
+    private final AtomicLong stolenCount = new AtomicLong();
+    private volatile boolean running;
+    private volatile boolean waitingForSpace;
+    private Thread dispatcher;
+
+    // A server's local queue; one permit per queued order, so a taker that got a permit always finds an order
+    private class LocalQueue implements OrderSource {
+        private final ServerThread server;
+        private final ConcurrentLinkedDeque<Order> preOrders = new ConcurrentLinkedDeque<>();
+        private final ConcurrentLinkedDeque<Order> walkIns = new ConcurrentLinkedDeque<>();
+        private final Semaphore queued = new Semaphore(0);
+
+        LocalQueue(ServerThread server) {
+            this.server = server;
+        }
+
+        int depth() {
+            return queued.availablePermits();
+        }
+
+        int load() {
+            return depth() + (server.getCurrentOrder() != null ? 1 : 0);
+        }
+
+        void offer(Order order) {
+            if ("PRE_ORDER".equals(order.getOrderType())) {
+                preOrders.offerLast(order);
+            } else {
+                walkIns.offerLast(order);
+            }
+            queued.release();
+        }
+
+        // Owner side: oldest pre-order, then oldest walk-in
+        Order pollOwn() {
+            if (!queued.tryAcquire()) return null;
+            Order order = preOrders.pollFirst();
+            return order != null ? order : walkIns.pollFirst();
+        }
+
+        // Thief side: pre-orders from the front (they have waited longest), walk-ins from the back
+        Order pollStolen() {
+            if (!queued.tryAcquire()) return null;
+            Order order = preOrders.pollFirst();
+            return order != null ? order : walkIns.pollLast();
+        }
+
+        @Override
+        public Order take(long timeoutMillis) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (true) {
+                Order order = pollOwn();
+                if (order == null) order = steal(this);
+                if (order != null) {
+                    spaceFreed();
+                    return order;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) return null;
+                if (queued.tryAcquire(Math.min(remaining, STEAL_INTERVAL_NANOS), TimeUnit.NANOSECONDS)) {
+                    queued.release(); // Work arrived; take it through pollOwn on the next pass
+                }
+            }
+        }
+    }
+
+    public WorkStealingDispatcher(OrderQueue orderQueue, List<ServerThread> servers, int localCapacity) {
+        if (localCapacity <= 0) throw new IllegalArgumentException("Local queue capacity must be greater than 0");
+        this.orderQueue = orderQueue;
+        this.localCapacity = localCapacity;
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        for (ServerThread server : servers) {
+            LocalQueue local = new LocalQueue(server);
+            locals.add(local);
+            server.setOrderSource(local);
+            registry.gauge("coffeeshop_local_queue_depth", "Orders waiting in a server's local queue",
+                    local::depth, "server", server.getName());
+        }
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        dispatcher = new Thread(this::dispatch, "order-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        CoffeeShopLogger.getInstance().logEvent("Work-stealing dispatcher started for " + locals.size()
+                + " servers (local capacity " + localCapacity + ")");
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    private void dispatch() {
+        while (running) {
+            try {
+                // Orders stay in the shared queue, under its scheduling policy, until some server has room
+                awaitSpace();
+                Order order = orderQueue.getNextOrder(100);
+                if (order != null) {
+                    leastLoaded().offer(order); // Only this thread adds, so there is still room
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    private void awaitSpace() throws InterruptedException {
+        while (leastLoaded() == null) {
+            waitingForSpace = true;
+            if (leastLoaded() == null) {
+                LockSupport.parkNanos(this, STEAL_INTERVAL_NANOS);
+            }
+            waitingForSpace = false;
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+    }
+
+    // Server with the fewest queued plus in-progress orders among those with room, or null if all are full
+    private LocalQueue leastLoaded() {
+        LocalQueue best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (LocalQueue candidate : locals) {
+            if (candidate.depth() >= localCapacity) continue;
+            int load = candidate.load();
+            if (load < bestLoad) {
+                best = candidate;
+                bestLoad = load;
+                if (load == 0) break;
+            }
+        }
+        return best;
+    }
+
+    // Visit the other servers from a random start so thieves spread over victims
+    private Order steal(LocalQueue thief) {
+        int count = locals.size();
+        int start = ThreadLocalRandom.current().nextInt(count);
+        for (int i = 0; i < count; i++) {
+            LocalQueue victim = locals.get((start + i) % count);
+            if (victim == thief) continue;
+            Order order = victim.pollStolen();
+            if (order != null) {
+                stolenCount.incrementAndGet();
+                STEALS.inc();
+                return order;
+            }
+        }
+        return null;
+    }
+
+    private void spaceFreed() {
+        if (waitingForSpace) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    // Orders dispatched to servers but not started yet (for observer snapshots)
+    public List<Order> getLocalOrders() {
+        List<Order> orders = new ArrayList<>();
+        for (LocalQueue local : locals) {
+            orders.addAll(local.preOrders);
+            orders.addAll(local.walkIns);
+        }
+        return orders;
+    }
+
+    public int getLocalOrderCount() {
+        int count = 0;
+        for (LocalQueue local : locals) {
+            count += local.depth();
+        }
+        return count;
+    }
+
+    public long getStolenCount() {
+        return stolenCount.get();
+    }
+}
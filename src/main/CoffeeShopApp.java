@@ -3,10 +3,18 @@ package main;
 import util.CoffeeShopLogger;
 import controller.MainController;
 import javax.swing.*;
+import java.awt.GraphicsEnvironment;
+import java.util.Arrays;
 
 // Main
 public class CoffeeShopApp {
     public static void main(String[] args) {
+        // No display (servers/CI) or explicitly requested: run without Swing
+        if (GraphicsEnvironment.isHeadless() || Arrays.asList(args).contains("--headless")) {
+            HeadlessApp.main(args);
+            return;
+        }
+
         // Create GUI on the Event Dispatch Thread
         SwingUtilities.invokeLater(() -> {
             try {
@@ -0,0 +1,456 @@
+package main;
+
+import controller.AutoScaler;
+import controller.CoffeeShopSimulator;
+import controller.MenuReloader;
+import controller.RetentionCompactor;
+import controller.ShopMetrics;
+import controller.StationPipeline;
+import model.ArrivalProcess;
+import model.BatchingServerThread;
+import model.Menu;
+import model.OrderArchive;
+import model.Order;
+import model.OrderManager;
+import model.ServerThread;
+import model.ShopStateStore;
+import model.WorkloadGenerator;
+import util.CoffeeShopLogger;
+import util.MetricsRegistry;
+import util.MetricsServer;
+import util.OrderQueue;
+import util.OverflowBuffer;
+import util.SchedulingPolicy;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// Headless entry point for load runs on servers/CI: no Swing, no System.exit from the simulator.
+//   java -cp coffee-shop.jar main.HeadlessApp --arrivals poisson --rate 500 --duration 60 --servers 4
+// Options may also come from a properties file (--config run.properties); command-line values win.
+public class HeadlessApp {
+    private static final String USAGE = String.join("\n",
+            "Usage: HeadlessApp [--option value]...",
+            "  --config <file>            properties file with any of the options below (without --)",
+            "  --menu <file>              menu file (default src/menu.txt)",
+            "  --menu-watch <true|false>  reload the menu file when it changes (default false)",
+            "  --pre-orders <file|none>   pre-order file (default src/pre_orders.txt)",
+            "  --servers <n>              number of servers (default 2)",
+            "  --serve-time <ms>          service time per item (default 2000)",
+            "  --category-times <spec>    per-category prep times, e.g. Beverage=1500,Food=4000",
+            "  --batch-window <n>         batching servers: merge identical items across up to n queued orders (default 1 = off)",
+            "  --batch-beta <b>           batching: n identical items cost n^b single items (default 0.7)",
+            "  --batch-max <n>            batching: maximum items per batch (default 4)",
+            "  --work-stealing <n>        per-server local queues of n orders with work stealing (default 0 = off)",
+            "  --max-servers <n>          autoscale between --min-servers and this many servers (default off)",
+            "  --min-servers <n>          autoscaling: fewest servers (default 1)",
+            "  --scale-interval <ms>      autoscaling: decision interval (default 1000)",
+            "  --scale-cooldown <ms>      autoscaling: minimum time between changes (default 5000)",
+            "  --target-p95 <ms>          autoscaling: scale up above this p95 queue wait (default 2000)",
+            "  --max-queue-per-server <n> autoscaling: scale up above this many queued orders per server (default 5)",
+            "  --server-hourly-cost <$>   autoscaling: staffing cost per server-hour (default 15)",
+            "  --stations <spec>          category stations instead of servers, e.g. Beverage=2,Food=1,Dessert=1",
+            "  --queue-size <n>           order queue capacity (default 100)",
+            "  --admission <name>         full queue: block | timeout | reject | shed | spill (default block)",
+            "  --admission-timeout <ms>   timeout admission: longest wait for space (default 200)",
+            "  --overflow-file <file>     spill admission: overflow journal (default overflow_orders.txt)",
+            "  --archive-dir <dir>        move old completed orders out of memory into segment files here (default off)",
+            "  --retention-age <ms>       archive: completed orders older than this leave memory (default 60000)",
+            "  --segment-size <bytes>     archive: size of one segment file (default 16777216)",
+            "  --state-dir <dir>          keep stock and orders across restarts: write-ahead log and snapshots here (default off)",
+            "  --flush-interval <ms>      state: group commit interval, the most a crash can lose (default 20)",
+            "  --snapshot-interval <ms>   state: time between snapshots (default 60000)",
+            "  --policy <name>            scheduling policy: strict | sjf | fair | aging | edf (default strict)",
+            "  --duration <s>             stop after this many seconds (default 0 = run until done)",
+            "  --orders <n>               orders per generator (default 0 = unlimited)",
+            "  --arrivals <type>          none | poisson | bursty | trace (default none)",
+            "  --rate <per s>             arrival rate, base rate for bursty (default 10)",
+            "  --rush-rate <per s>        bursty: rate inside the rush window (default 10 x rate)",
+            "  --rush-period <ms>         bursty: length of one cycle (default 60000)",
+            "  --rush-start <ms>          bursty: rush start inside the cycle (default 20000)",
+            "  --rush-length <ms>         bursty: rush length (default 10000)",
+            "  --trace <file>             trace: file of millisecond arrival offsets",
+            "  --trace-speedup <x>        trace: replay speed factor (default 1)",
+            "  --generators <n>           parallel generator threads sharing the rate (default 1)",
+            "  --pre-order-fraction <f>   share of generated pre-orders (default 0.2)",
+            "  --max-items <n>            maximum basket size (default 5)",
+            "  --seed <n>                 random seed (default 42)",
+            "  --metrics-port <port>      Prometheus endpoint port, -1 to disable (default -1)",
+            "  --metrics-out <file>       write the final metrics scrape to a file",
+            "  --report <file>            write the sales report to a file",
+            "  --log <file>               write the event log to a file",
+            "  --quiet <true|false>       disable per-order event logging (default false)");
+
+    public static void main(String[] args) {
+        try {
+            Properties options = parseOptions(args);
+            int exitCode = new HeadlessApp().run(options);
+            System.exit(exitCode);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (Exception e) {
+            CoffeeShopLogger.getInstance().logError("Headless run failed: " + e.getMessage(), e);
+            System.exit(1);
+        }
+    }
+
+    // Merge the optional config file with command-line options (command line wins)
+    static Properties parseOptions(String[] args) throws IOException {
+        Properties cli = new Properties();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--headless".equals(arg)) continue;
+            if ("--help".equals(arg)) throw new IllegalArgumentException("Coffee shop headless mode");
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + arg);
+
+            String key = arg.substring(2);
+            String value;
+            int eq = key.indexOf('=');
+            if (eq >= 0) {
+                value = key.substring(eq + 1);
+                key = key.substring(0, eq);
+            } else if (i + 1 < args.length) {
+                value = args[++i];
+            } else {
+                throw new IllegalArgumentException("Missing value for --" + key);
+            }
+            cli.setProperty(key, value);
+        }
+
+        Properties options = new Properties();
+        String config = cli.getProperty("config");
+        if (config != null) {
+            try (Reader reader = new FileReader(config)) {
+                options.load(reader);
+            }
+        }
+        options.putAll(cli);
+        return options;
+    }
+
+    int run(Properties options) throws Exception {
+        long seed = longOption(options, "seed", 42);
+        double durationSeconds = doubleOption(options, "duration", 0);
+        boolean quiet = Boolean.parseBoolean(options.getProperty("quiet", "false"));
+        CoffeeShopLogger.getInstance().setEnabled(!quiet);
+
+        // 1. Models
+        Menu menu = new Menu();
+        menu.loadFromFile(options.getProperty("menu", Paths.get("src", "menu.txt").toString()));
+        if (menu.getAllProducts().isEmpty()) {
+            throw new IllegalArgumentException("Menu is empty; check --menu");
+        }
+        MenuReloader menuReloader = null;
+        if (Boolean.parseBoolean(options.getProperty("menu-watch", "false"))) {
+            menuReloader = new MenuReloader(menu, Paths.get(options.getProperty("menu", Paths.get("src", "menu.txt").toString())), 200);
+            menuReloader.start();
+        }
+        OrderManager orderManager = new OrderManager();
+        ShopStateStore stateStore = null;
+        List<Order> recoveredPending = new ArrayList<>();
+        String stateDir = options.getProperty("state-dir");
+        if (stateDir != null) {
+            if (options.getProperty("archive-dir") != null) {
+                throw new IllegalArgumentException("--state-dir cannot be combined with --archive-dir");
+            }
+            stateStore = new ShopStateStore(Paths.get(stateDir),
+                    longOption(options, "flush-interval", 20), longOption(options, "snapshot-interval", 60000));
+            if (stateStore.hasState()) {
+                long restoreStart = System.nanoTime();
+                recoveredPending = stateStore.restore(menu, orderManager);
+                System.out.printf("Recovered %d orders (%d pending) from %s: loaded in %.1f ms, restored in %.1f ms%n",
+                        stateStore.getOrderCount(), recoveredPending.size(), stateDir,
+                        stateStore.getRecoveryMillis(), (System.nanoTime() - restoreStart) / 1e6);
+            }
+        }
+        OrderArchive archive = null;
+        RetentionCompactor compactor = null;
+        String archiveDir = options.getProperty("archive-dir");
+        if (archiveDir != null) {
+            archive = new OrderArchive(Paths.get(archiveDir), intOption(options, "segment-size", OrderArchive.DEFAULT_SEGMENT_BYTES));
+            long retentionAge = longOption(options, "retention-age", 60000);
+            orderManager.enableRetention(archive, retentionAge);
+            compactor = new RetentionCompactor(orderManager, Math.max(100, Math.min(retentionAge, 5000)));
+            compactor.start();
+        }
+        String preOrders = options.getProperty("pre-orders", Paths.get("src", "pre_orders.txt").toString());
+        if (!"none".equals(preOrders) && (stateStore == null || !stateStore.hasState())) {
+            orderManager.loadFromFile(preOrders, menu); // Recovered state already has them
+        }
+        if (stateStore != null) {
+            stateStore.attach(menu, orderManager);
+        }
+        OrderQueue orderQueue = new OrderQueue(intOption(options, "queue-size", 100),
+                SchedulingPolicy.byName(options.getProperty("policy", "strict")));
+        OrderQueue.Admission admission = admissionOption(options);
+        if (admission == OrderQueue.Admission.SPILL) {
+            orderQueue.setOverflowBuffer(new OverflowBuffer(Paths.get(options.getProperty("overflow-file", "overflow_orders.txt"))));
+        }
+        orderQueue.setAdmission(admission, longOption(options, "admission-timeout", 200));
+        orderQueue.setShedHandler(orderManager::cancelOrder);
+
+        // 2. Simulator
+        CoffeeShopSimulator simulator = new CoffeeShopSimulator(
+                orderQueue,
+                intOption(options, "servers", 2),
+                intOption(options, "serve-time", 2000),
+                orderManager);
+        String categoryTimes = options.getProperty("category-times");
+        if (categoryTimes != null) {
+            StationPipeline.parseCategoryMap(categoryTimes).forEach(simulator.serviceTimeModel::setCategoryTime);
+        }
+        int batchWindow = intOption(options, "batch-window", 1);
+        if (batchWindow > 1) {
+            simulator.setBatching(batchWindow, doubleOption(options, "batch-beta", 0.7), intOption(options, "batch-max", 4));
+        }
+        int localQueue = intOption(options, "work-stealing", 0);
+        if (localQueue > 0) {
+            simulator.setWorkStealing(localQueue);
+        }
+        String stations = options.getProperty("stations");
+        if (stations != null) {
+            simulator.setStations(StationPipeline.parseCategoryMap(stations));
+        }
+
+        AutoScaler autoScaler = null;
+        if (options.getProperty("max-servers") != null) {
+            autoScaler = new AutoScaler(simulator,
+                    intOption(options, "min-servers", 1),
+                    intOption(options, "max-servers", 1),
+                    longOption(options, "scale-interval", 1000),
+                    longOption(options, "scale-cooldown", 5000),
+                    longOption(options, "target-p95", 2000) / 1000.0,
+                    doubleOption(options, "max-queue-per-server", 5),
+                    doubleOption(options, "server-hourly-cost", 15));
+        }
+
+        // 3. Metrics
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        ShopMetrics.bind(registry, () -> simulator, orderQueue, orderManager, menu);
+        MetricsServer metricsServer = null;
+        int metricsPort = intOption(options, "metrics-port", -1);
+        if (metricsPort >= 0) {
+            metricsServer = new MetricsServer(registry, metricsPort);
+            metricsServer.start();
+        }
+
+        // 4. Input: generators on top of the pre-orders the simulator replays
+        List<WorkloadGenerator> generators = createGenerators(options, orderQueue, orderManager, menu, seed);
+        boolean bounded = durationSeconds > 0 || generators.isEmpty()
+                || longOption(options, "orders", 0) > 0 || "trace".equals(options.getProperty("arrivals"));
+        if (!bounded) {
+            throw new IllegalArgumentException("Open-ended arrivals need --duration or --orders");
+        }
+
+        long start = System.nanoTime();
+        simulator.startSimulation();
+        for (Order order : recoveredPending) {
+            if (!"PRE_ORDER".equals(order.getOrderType())) {
+                orderQueue.addOrder(order); // Pending pre-orders are queued by the simulator
+            }
+        }
+        if (autoScaler != null) {
+            autoScaler.start();
+        }
+        generators.forEach(Thread::start);
+
+        // 5. Run for the fixed duration, or until generators are done and every order completed
+        long deadline = durationSeconds > 0 ? start + (long) (durationSeconds * 1e9) : Long.MAX_VALUE;
+        for (WorkloadGenerator generator : generators) {
+            if (deadline == Long.MAX_VALUE) {
+                generator.join();
+            } else {
+                TimeUnit.NANOSECONDS.timedJoin(generator, Math.max(1, deadline - System.nanoTime()));
+            }
+        }
+        long remaining = deadline == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.nanoTime();
+        orderManager.getCompletionTracker().awaitAllCompleted(remaining, TimeUnit.NANOSECONDS);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        generators.forEach(WorkloadGenerator::stopGenerating);
+        if (autoScaler != null) {
+            autoScaler.stop();
+        }
+        simulator.stopSimulation();
+        if (menuReloader != null) {
+            menuReloader.stop();
+        }
+        orderQueue.closeOverflow(); // Orders never served stay in the overflow file
+        if (compactor != null) {
+            compactor.stop();
+        }
+        if (stateStore != null) {
+            stateStore.close(); // Final snapshot: the next start has no log to replay
+        }
+
+        // 6. Outputs
+        CoffeeShopLogger.getInstance().setEnabled(true);
+        String summary = runSummary(simulator, generators, elapsedSeconds);
+        if (autoScaler != null) {
+            summary += autoScaler.generateScalingReport();
+        }
+        if (archive != null) {
+            summary += String.format("Archived orders: %d in %d segment(s), %d still pending\n",
+                    archive.size(), archive.getSegmentCount(), orderManager.getHotOrderCount());
+        }
+        String report = orderManager.generateReport() + summary;
+        System.out.println(summary);
+        writeIfRequested(options, "report", report);
+        writeIfRequested(options, "metrics-out", registry.scrape());
+        String logFile = options.getProperty("log");
+        if (logFile != null) {
+            CoffeeShopLogger.getInstance().logEvent(report);
+            CoffeeShopLogger.getInstance().saveToFile(logFile);
+        }
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        if (archive != null) {
+            archive.close();
+        }
+        return 0;
+    }
+
+    private List<WorkloadGenerator> createGenerators(Properties options, OrderQueue orderQueue,
+                                                     OrderManager orderManager, Menu menu, long seed) throws IOException {
+        List<WorkloadGenerator> generators = new ArrayList<>();
+        String arrivals = options.getProperty("arrivals", "none");
+        if ("none".equals(arrivals)) {
+            return generators;
+        }
+
+        int count = "trace".equals(arrivals) ? 1 : intOption(options, "generators", 1);
+        double rate = doubleOption(options, "rate", 10) / count;
+        for (int i = 0; i < count; i++) {
+            ArrivalProcess process;
+            switch (arrivals) {
+                case "poisson":
+                    process = new ArrivalProcess.Poisson(rate, seed + i);
+                    break;
+                case "bursty":
+                    process = new ArrivalProcess.Bursty(rate,
+                            doubleOption(options, "rush-rate", rate * count * 10) / count,
+                            longOption(options, "rush-period", 60_000),
+                            longOption(options, "rush-start", 20_000),
+                            longOption(options, "rush-length", 10_000),
+                            seed + i);
+                    break;
+                case "trace":
+                    String trace = options.getProperty("trace");
+                    if (trace == null) throw new IllegalArgumentException("--arrivals trace needs --trace <file>");
+                    process = new ArrivalProcess.Trace(trace, doubleOption(options, "trace-speedup", 1));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown arrival process: " + arrivals);
+            }
+
+            WorkloadGenerator generator = new WorkloadGenerator("GEN" + (i + 1), orderQueue, menu, process,
+                    doubleOption(options, "pre-order-fraction", 0.2),
+                    intOption(options, "max-items", 5),
+                    longOption(options, "orders", 0),
+                    seed + i);
+            generator.setOrderManager(orderManager);
+            generators.add(generator);
+        }
+        return generators;
+    }
+
+    private String runSummary(CoffeeShopSimulator simulator, List<WorkloadGenerator> generators, double elapsedSeconds) {
+        long generated = generators.stream().mapToLong(WorkloadGenerator::getGeneratedCount).sum();
+        long maxLagMillis = generators.stream().mapToLong(WorkloadGenerator::getMaxLagNanos).max().orElse(0) / 1_000_000;
+        long completed = simulator.getCompletedOrderCount();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n=== Headless Run Summary ===\n");
+        sb.append(String.format("Elapsed: %.2fs\n", elapsedSeconds));
+        if (simulator.stationPipeline != null) {
+            sb.append("Stations: ").append(simulator.stationPipeline.getStations().size())
+                    .append(" (max orders in progress: ").append(simulator.serverCount).append(")\n");
+        } else {
+            sb.append("Servers: ").append(simulator.serverCount).append("\n");
+        }
+        sb.append("Generated orders: ").append(generated).append(" (max lag behind schedule: ").append(maxLagMillis).append("ms)\n");
+        sb.append("Completed orders: ").append(completed).append("\n");
+        OrderQueue queue = simulator.getOrderQueue();
+        sb.append("Still queued: ").append(queue.getQueueSize());
+        if (queue.getOverflowSize() > 0) {
+            sb.append(" (plus ").append(queue.getOverflowSize()).append(" spilled)");
+        }
+        sb.append("\n");
+        sb.append("Admission (").append(queue.getAdmission().name().toLowerCase()).append("):");
+        for (OrderQueue.AdmissionResult result : OrderQueue.AdmissionResult.values()) {
+            sb.append(" ").append(result.name().toLowerCase()).append(" ").append(queue.getAdmissionCount(result));
+        }
+        if (queue.getShedCount() > 0) {
+            sb.append(", walk-ins shed ").append(queue.getShedCount());
+        }
+        sb.append("\n");
+        if (simulator.dispatcher != null) {
+            sb.append("Still in local queues: ").append(simulator.dispatcher.getLocalOrderCount())
+                    .append(" (orders stolen: ").append(simulator.dispatcher.getStolenCount()).append(")\n");
+        }
+        sb.append(String.format("Throughput: %.2f orders/s\n", completed / Math.max(elapsedSeconds, 1e-9)));
+        long savedMillis = 0;
+        for (ServerThread server : simulator.servers) {
+            if (server instanceof BatchingServerThread) {
+                savedMillis += ((BatchingServerThread) server).getSavedMillis();
+            }
+        }
+        sb.append(simulator.generateLatencyReport());
+        if (savedMillis > 0) {
+            sb.append(String.format("Batching saved: %.1fs of preparation time\n", savedMillis / 1000.0));
+        }
+        if (simulator.stationPipeline != null) {
+            sb.append(simulator.stationPipeline.generateStationReport());
+        }
+        return sb.toString();
+    }
+
+    private void writeIfRequested(Properties options, String key, String content) throws IOException {
+        String file = options.getProperty(key);
+        if (file != null) {
+            Files.write(Paths.get(file), content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static OrderQueue.Admission admissionOption(Properties options) {
+        String name = options.getProperty("admission", "block");
+        try {
+            return OrderQueue.Admission.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown admission policy: " + name + " (block, timeout, reject, shed, spill)");
+        }
+    }
+
+    private static int intOption(Properties options, String key, int defaultValue) {
+        return (int) longOption(options, key, defaultValue);
+    }
+
+    private static long longOption(Properties options, String key, long defaultValue) {
+        String value = options.getProperty(key);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for --" + key + ": " + value);
+        }
+    }
+
+    private static double doubleOption(Properties options, String key, double defaultValue) {
+        String value = options.getProperty(key);
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for --" + key + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package model;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Arrival process for the workload generator: gives the intended time of the next customer.
+// Times are nanoseconds since the start of the run, independent of how fast orders are served (open loop).
+public interface ArrivalProcess {
+    // Returns the intended arrival time after previousNanos, or -1 when the process is exhausted
+    long nextArrival(long previousNanos);
+
+    // Memoryless arrivals at a constant rate (orders per second)
+    class Poisson implements ArrivalProcess {
+        private final double meanGapNanos;
+        private final SplittableRandom random;
+
+        public Poisson(double ratePerSecond, long seed) {
+            if (ratePerSecond <= 0) throw new IllegalArgumentException("Arrival rate must be greater than 0");
+            this.meanGapNanos = 1e9 / ratePerSecond;
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        public long nextArrival(long previousNanos) {
+            return previousNanos + exponentialGap(random, meanGapNanos);
+        }
+    }
+
+    // Poisson arrivals whose rate jumps to rushRate during a recurring rush window (e.g. lunch).
+    // Sampled by thinning a Poisson process at the peak rate, so gaps stay exact across rate changes.
+    class Bursty implements ArrivalProcess {
+        private final double baseRate;
+        private final double rushRate;
+        private final long periodNanos;
+        private final long rushStartNanos;
+        private final long rushLengthNanos;
+        private final double peakGapNanos;
+        private final SplittableRandom random;
+
+        public Bursty(double baseRate, double rushRate, long periodMillis,
+                      long rushStartMillis, long rushLengthMillis, long seed) {
+            if (baseRate <= 0 || rushRate <= 0) throw new IllegalArgumentException("Arrival rates must be greater than 0");
+            if (periodMillis <= 0 || rushLengthMillis > periodMillis) {
+                throw new IllegalArgumentException("Rush window must fit inside the period");
+            }
+            this.baseRate = baseRate;
+            this.rushRate = rushRate;
+            this.periodNanos = periodMillis * 1_000_000L;
+            this.rushStartNanos = rushStartMillis * 1_000_000L;
+            this.rushLengthNanos = rushLengthMillis * 1_000_000L;
+            this.peakGapNanos = 1e9 / Math.max(baseRate, rushRate);
+            this.random = new SplittableRandom(seed);
+        }
+
+        private double rateAt(long nanos) {
+            long offset = Math.floorMod(nanos - rushStartNanos, periodNanos);
+            return offset < rushLengthNanos ? rushRate : baseRate;
+        }
+
+        @Override
+        public long nextArrival(long previousNanos) {
+            double peakRate = Math.max(baseRate, rushRate);
+            long candidate = previousNanos;
+            do {
+                candidate += exponentialGap(random, peakGapNanos);
+            } while (random.nextDouble() * peakRate > rateAt(candidate));
+            return candidate;
+        }
+    }
+
+    // Replays recorded arrival offsets (one millisecond offset per line), optionally sped up
+    class Trace implements ArrivalProcess {
+        private final long[] offsetsNanos;
+        private int next;
+
+        public Trace(String filePath, double speedUp) throws IOException {
+            if (speedUp <= 0) throw new IllegalArgumentException("Speed-up must be greater than 0");
+            List<Long> offsets = new ArrayList<>();
+            try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
+                String line;
+                int lineNum = 0;
+                while ((line = br.readLine()) != null) {
+                    lineNum++;
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    try {
+                        double millis = Double.parseDouble(line.split(",")[0].trim());
+                        offsets.add((long) (millis * 1_000_000L / speedUp));
+                    } catch (NumberFormatException e) {
+                        System.err.println("Trace line " + lineNum + " format error: " + e.getMessage());
+                    }
+                }
+            }
+            this.offsetsNanos = offsets.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+
+        @Override
+        public long nextArrival(long previousNanos) {
+            if (next >= offsetsNanos.length) {
+                return -1;
+            }
+            return Math.max(previousNanos, offsetsNanos[next++]);
+        }
+    }
+
+    // Exponentially distributed gap with the given mean, at least 1ns so time always advances
+    static long exponentialGap(SplittableRandom random, double meanNanos) {
+        return Math.max(1L, (long) (-Math.log(1.0 - random.nextDouble()) * meanNanos));
+    }
+}
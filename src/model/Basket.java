@@ -0,0 +1,119 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// A customer's basket kept as running tallies: each click applies a delta in O(1), and the tallies are
+// everything DiscountCalculator needs, so pricing never rebuilds an Order. Prices are summed in cents so
+// adding and removing items cannot drift. Every change bumps the version, which lets a pricer drop stale results.
+public class Basket {
+    private final Map<Product, Integer> quantities = new HashMap<>();
+    private long version;
+    private int itemCount;
+    private int cakeCount;
+    private int foodCount;       // Excluding cakes
+    private int beverageCount;   // Excluding cakes
+    private long totalCents;
+    private long nonCakeCents;
+
+    // Immutable copy of the tallies at one version
+    public static class Totals {
+        public final long version;
+        public final int itemCount;
+        public final int cakeCount;
+        public final int foodCount;
+        public final int beverageCount;
+        public final double originalPrice;
+        public final double priceWithoutCakes;
+
+        Totals(Basket basket) {
+            this.version = basket.version;
+            this.itemCount = basket.itemCount;
+            this.cakeCount = basket.cakeCount;
+            this.foodCount = basket.foodCount;
+            this.beverageCount = basket.beverageCount;
+            this.originalPrice = basket.totalCents / 100.0;
+            this.priceWithoutCakes = basket.nonCakeCents / 100.0;
+        }
+    }
+
+    // Add (or with a negative delta remove) items; returns the new quantity of the product
+    public synchronized int add(Product product, int delta) {
+        int current = quantities.getOrDefault(product, 0);
+        int updated = current + delta;
+        if (updated < 0) throw new IllegalArgumentException("Quantity cannot be less than 0");
+        if (updated == 0) {
+            quantities.remove(product);
+        } else {
+            quantities.put(product, updated);
+        }
+
+        long cents = product.getPriceCents() * delta;
+        itemCount += delta;
+        totalCents += cents;
+        if (product.isCake()) {
+            cakeCount += delta;
+        } else {
+            nonCakeCents += cents;
+            if (product.getCategoryType() == Category.FOOD) foodCount += delta;
+            if (product.getCategoryType() == Category.BEVERAGE) beverageCount += delta;
+        }
+        version++;
+        return updated;
+    }
+
+    public synchronized int getQuantity(Product product) {
+        return quantities.getOrDefault(product, 0);
+    }
+
+    public synchronized Map<Product, Integer> getQuantities() {
+        return new HashMap<>(quantities);
+    }
+
+    public synchronized boolean isEmpty() {
+        return itemCount == 0;
+    }
+
+    public synchronized void clear() {
+        quantities.clear();
+        itemCount = 0;
+        cakeCount = 0;
+        foodCount = 0;
+        beverageCount = 0;
+        totalCents = 0;
+        nonCakeCents = 0;
+        version++;
+    }
+
+    // Take out items that were ordered, keeping any added since. Matched by id, so a menu reload in between is fine.
+    public synchronized void subtract(Map<Product, Integer> ordered) {
+        Map<String, Product> byId = new HashMap<>();
+        for (Product product : quantities.keySet()) {
+            byId.put(product.getId(), product);
+        }
+        for (Map.Entry<Product, Integer> entry : ordered.entrySet()) {
+            Product current = byId.get(entry.getKey().getId());
+            if (current == null) continue;
+            add(current, -Math.min(entry.getValue(), quantities.getOrDefault(current, 0)));
+        }
+    }
+
+    // After a menu reload: swap each product for its version on the new menu (by id) and drop products no
+    // longer sold; the tallies are rebuilt at the new prices
+    public synchronized void remap(MenuSnapshot menu) {
+        Map<Product, Integer> old = new HashMap<>(quantities);
+        clear();
+        for (Map.Entry<Product, Integer> entry : old.entrySet()) {
+            Product current = menu.getProductById(entry.getKey().getId());
+            if (current != null) add(current, entry.getValue());
+        }
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized Totals totals() {
+        return new Totals(this);
+    }
+}
@@ -0,0 +1,107 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Groups identical products across a window of orders into preparation batches.
+// Cost model: n identical items cost unitTime * n^beta (beta = 1 means no saving, 0.7 ~ one jug of milk for several lattes),
+// and a batch never exceeds maxBatchSize items (e.g. the size of the milk jug).
+public class BatchPlanner {
+    private final ServiceTimeModel serviceTimeModel;
+    private final double beta;
+    private final int maxBatchSize;
+
+    // One preparation step: count items of one product, shared by several orders
+    public static class Batch {
+        private final Product product;
+        private final int size;
+        private final long cost;
+        private final List<Order> completedOrders = new ArrayList<>(); // Orders whose last item is in this batch
+
+        Batch(Product product, int size, long cost) {
+            this.product = product;
+            this.size = size;
+            this.cost = cost;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getCost() {
+            return cost;
+        }
+
+        public List<Order> getCompletedOrders() {
+            return completedOrders;
+        }
+    }
+
+    public BatchPlanner(ServiceTimeModel serviceTimeModel, double beta, int maxBatchSize) {
+        if (beta <= 0 || beta > 1) throw new IllegalArgumentException("Batch cost exponent must be in (0, 1]");
+        if (maxBatchSize <= 0) throw new IllegalArgumentException("Maximum batch size must be greater than 0");
+        this.serviceTimeModel = serviceTimeModel;
+        this.beta = beta;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public static long batchCost(long unitTime, int size, double beta) {
+        return Math.round(unitTime * Math.pow(size, beta));
+    }
+
+    // Plan batches for orders given in priority order. Products are batched in order of first appearance,
+    // so the head order's products are prepared first; it still waits for the other orders' items of those
+    // products that share its batches (at most maxBatchSize - 1 per batch), but not for any other product.
+    public List<Batch> plan(List<Order> orders) {
+        Map<String, List<Order>> itemsByProduct = new LinkedHashMap<>(); // One entry per item, in priority order
+        Map<String, Product> products = new HashMap<>();
+        for (Order order : orders) {
+            for (Product product : order.getItems()) {
+                itemsByProduct.computeIfAbsent(product.getId(), k -> new ArrayList<>()).add(order);
+                products.putIfAbsent(product.getId(), product);
+            }
+        }
+
+        List<Batch> batches = new ArrayList<>();
+        Map<Order, Batch> lastBatch = new LinkedHashMap<>();
+        itemsByProduct.forEach((productId, items) -> {
+            Product product = products.get(productId);
+            long unitTime = serviceTimeModel.itemTime(product);
+            for (int from = 0; from < items.size(); from += maxBatchSize) {
+                int size = Math.min(maxBatchSize, items.size() - from);
+                Batch batch = new Batch(product, size, batchCost(unitTime, size, beta));
+                batches.add(batch);
+                for (Order order : items.subList(from, from + size)) {
+                    lastBatch.put(order, batch);
+                }
+            }
+        });
+
+        // Fan-out: each order completes with the last batch that holds one of its items
+        lastBatch.forEach((order, batch) -> batch.completedOrders.add(order));
+        for (Order order : orders) {
+            if (!lastBatch.containsKey(order)) {
+                // An order without items has nothing to wait for
+                if (batches.isEmpty()) batches.add(new Batch(null, 0, 0));
+                batches.get(0).completedOrders.add(order);
+            }
+        }
+        return batches;
+    }
+
+    // Time to prepare the orders one after another without batching
+    public long unbatchedCost(List<Order> orders) {
+        long total = 0;
+        for (Order order : orders) {
+            total += serviceTimeModel.orderTime(order);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,89 @@
+package model;
+
+import util.CoffeeShopLogger;
+import util.MetricsRegistry;
+import util.OrderQueue;
+
+import java.util.List;
+
+// Barista that looks ahead a bounded window of queued orders and prepares identical items together,
+// e.g. one jug of steamed milk for the lattes of five orders. Each order completes as soon as the
+// batch holding its last item is done.
+public class BatchingServerThread extends ServerThread {
+    private static final MetricsRegistry.Counter BATCHES = MetricsRegistry.getInstance().counter(
+            "coffeeshop_batches_total", "Preparation batches made by batching servers");
+    private static final MetricsRegistry.Counter TIME_SAVED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_batching_saved_milliseconds_total", "Preparation time saved by batching compared with order-by-order service");
+
+    private final int window;
+    private final double beta;
+    private final int maxBatchSize;
+    private volatile long savedMillis;
+
+    public BatchingServerThread(String name, OrderQueue orderQueue, int serveTime,
+                                int window, double beta, int maxBatchSize) {
+        super(name, orderQueue, serveTime);
+        if (window <= 0) throw new IllegalArgumentException("Batch window must be greater than 0");
+        this.window = window;
+        this.beta = beta;
+        this.maxBatchSize = maxBatchSize;
+        new BatchPlanner(serviceTimeModel, beta, maxBatchSize); // Validate the cost model up front
+    }
+
+    // The look-ahead window needs the shared queue; a per-server local queue would be bypassed
+    @Override
+    public void setOrderSource(OrderSource orderSource) {
+        if (orderSource != null) throw new IllegalStateException("Batching servers take from the shared queue; disable work stealing");
+    }
+
+    @Override
+    public void run() {
+        CoffeeShopLogger.getInstance().logEvent(getName() + " has started working (batch window " + window + ")");
+        BatchPlanner planner = new BatchPlanner(serviceTimeModel, beta, maxBatchSize);
+        while (running && !retiring) {
+            try {
+                List<Order> orders = orderQueue.takeBatch(window, 100);
+                if (orders.isEmpty()) continue;
+
+                long startedAt = System.currentTimeMillis();
+                for (Order order : orders) {
+                    orderQueue.publish(QueueEvent.taken(order, getName()));
+                    QUEUE_WAIT.observe((startedAt - order.getEnqueueTime()) / 1000.0);
+                }
+                currentOrder = orders.get(0);
+                if (CoffeeShopLogger.getInstance().isEnabled()) {
+                    CoffeeShopLogger.getInstance().logEvent(getName() + " starts a batch of " + orders.size() + " orders");
+                }
+
+                try {
+                    long batchedTime = 0;
+                    for (BatchPlanner.Batch batch : planner.plan(orders)) {
+                        Thread.sleep(batch.getCost());
+                        batchedTime += batch.getCost();
+                        BATCHES.inc();
+                        for (Order order : batch.getCompletedOrders()) {
+                            finishOrder(order, startedAt);
+                            CoffeeShopLogger.getInstance().logEvent(getName() + " completed order: " + order.getOrderId());
+                        }
+                    }
+                    long saved = planner.unbatchedCost(orders) - batchedTime;
+                    savedMillis += saved; // Only this thread writes it
+                    TIME_SAVED.inc(saved);
+                } finally {
+                    currentOrder = null;
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break; // Normal stop
+                }
+                CoffeeShopLogger.getInstance().logEvent(getName() + " was interrupted while processing");
+            }
+        }
+        CoffeeShopLogger.getInstance().logEvent(getName() + " has finished working");
+    }
+
+    // Preparation time saved compared with serving the same orders one by one
+    public long getSavedMillis() {
+        return savedMillis;
+    }
+}
@@ -0,0 +1,29 @@
+package model;
+
+// Product categories as a small enum, so category checks compare ids instead of strings and
+// per-category tallies fit in an int[] indexed by ordinal()
+public enum Category {
+    BEVERAGE("Beverage"),
+    FOOD("Food"),
+    DESSERT("Dessert"),
+    OTHER("Other"); // Anything the menu file names that is not one of the above
+
+    public static final int COUNT = values().length;
+
+    private final String label;
+
+    Category(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static Category of(String name) {
+        for (Category category : values()) {
+            if (category.label.equals(name)) return category;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,456 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+// Orders kept column by column in primitive arrays instead of as Order objects: timestamp, order type,
+// customer (dictionary id), total and discount in cents, the line items flattened into (product ordinal,
+// quantity) pairs, and the id, state and times needed to read an order back. Rows are stored in fixed-size
+// chunks that never move, so an aggregation is a tight loop over a few arrays per chunk, and chunks are
+// scanned in parallel. One writer at a time (appends and state changes are synchronized); scans run
+// concurrently and see every row appended before they started.
+// This is the history tier for finished orders: OrderManager lets go of an Order once it is completed or
+// cancelled, and read, find and getById rebuild it from its row. Cancelled rows are left out of the
+// aggregates; archived rows stay in them, the archive only keeps a durable copy.
+public class ColumnarOrderStore {
+    static final int CHUNK_ROWS = 1 << 14;
+    private static final byte PENDING = 0;
+    private static final byte COMPLETED = 1;
+    private static final byte CANCELLED = 2;
+    private static final byte ARCHIVED = 3; // Completed, and written to the archive
+
+    private final Dictionary customers = new Dictionary();
+    private final Dictionary types = new Dictionary();
+    private final Dictionary oddTimestamps = new Dictionary(); // Timestamps that are not "yyyy-MM-dd HH:mm:ss"
+    private Product[] products = new Product[0]; // Latest version of each product ordinal seen, to read rows back
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int rowCount; // Published after the row's columns are written
+    private volatile int finishedCount; // Rows completed or cancelled and not archived
+    private int archiveFloor; // Rows below it are archived or cancelled
+
+    // Strings stored once and referred to by a dense int id
+    static class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        synchronized int idOf(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+
+        synchronized int find(String name) {
+            return ids.getOrDefault(name, -1);
+        }
+
+        synchronized String nameOf(int id) {
+            return names.get(id);
+        }
+
+        synchronized int size() {
+            return names.size();
+        }
+    }
+
+    // CHUNK_ROWS rows; line and id arrays grow, and are only replaced by a fully written copy
+    private static class Chunk {
+        final long[] time = new long[CHUNK_ROWS];        // yyyyMMddHHmmss; -1 if none, -2 - id for an odd timestamp
+        final byte[] type = new byte[CHUNK_ROWS];        // Dictionary id
+        final int[] customer = new int[CHUNK_ROWS];      // Dictionary id
+        final int[] totalCents = new int[CHUNK_ROWS];
+        final int[] discountCents = new int[CHUNK_ROWS];
+        final byte[] state = new byte[CHUNK_ROWS];       // PENDING, COMPLETED, CANCELLED or ARCHIVED
+        final long[] enqueueTime = new long[CHUNK_ROWS];
+        final long[] completedTime = new long[CHUNK_ROWS];
+        final int[] latencyMillis = new int[CHUNK_ROWS]; // Arrival to completion, -1 if not known
+        final int[] idHash = new int[CHUNK_ROWS];        // String.hashCode() of the order id, for getById
+        final int[] idStart = new int[CHUNK_ROWS + 1];   // Id of row r is idBytes[idStart[r] .. idStart[r + 1] - 1]
+        final int[] lineStart = new int[CHUNK_ROWS + 1]; // Lines of row r are lineStart[r] .. lineStart[r + 1] - 1
+        volatile byte[] idBytes = new byte[CHUNK_ROWS * 8]; // UTF-8
+        volatile int[] lineProduct = new int[CHUNK_ROWS * 2];
+        volatile int[] lineQuantity = new int[CHUNK_ROWS * 2];
+        volatile long minTime = Long.MAX_VALUE; // Of the rows with a timestamp, so find can skip the chunk
+        volatile long maxTime = Long.MIN_VALUE;
+        int idLength;
+        int lineCount;
+    }
+
+    // Append an order; returns its row. Identical items are stored as one line with a quantity.
+    public synchronized int append(Order order) {
+        int row = rowCount;
+        int slot = row % CHUNK_ROWS;
+        if (slot == 0) {
+            Chunk[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[grown.length - 1] = new Chunk();
+            chunks = grown;
+        }
+        Chunk chunk = chunks[row / CHUNK_ROWS];
+        long time = timeOf(order.getTimeStamp());
+        chunk.time[slot] = time;
+        if (time >= 0) {
+            if (time < chunk.minTime) chunk.minTime = time;
+            if (time > chunk.maxTime) chunk.maxTime = time;
+        }
+        int type = types.idOf(order.getOrderType());
+        if (type > Byte.MAX_VALUE) throw new IllegalStateException("Too many order types");
+        chunk.type[slot] = (byte) type;
+        chunk.customer[slot] = customers.idOf(order.getCustomerName());
+        chunk.totalCents[slot] = (int) Math.round(order.getTotalPrice() * 100);
+        chunk.discountCents[slot] = (int) Math.round(order.getDiscountAmount() * 100);
+        chunk.state[slot] = PENDING;
+        chunk.latencyMillis[slot] = -1;
+        appendId(chunk, slot, order.getOrderId());
+        appendLines(chunk, order.getItems());
+        chunk.lineStart[slot + 1] = chunk.lineCount;
+        record(chunk, slot, order);
+        rowCount = row + 1;
+        return row;
+    }
+
+    private long timeOf(String timestamp) {
+        long key = OrderHistoryStore.timeKey(timestamp);
+        return key >= 0 || timestamp == null ? key : -2 - oddTimestamps.idOf(timestamp);
+    }
+
+    private static void appendId(Chunk chunk, int slot, String orderId) {
+        byte[] id = orderId.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = chunk.idBytes;
+        int start = chunk.idLength;
+        if (start + id.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, start + id.length));
+        }
+        System.arraycopy(id, 0, bytes, start, id.length);
+        if (bytes != chunk.idBytes) chunk.idBytes = bytes;
+        chunk.idHash[slot] = orderId.hashCode();
+        chunk.idStart[slot] = start;
+        chunk.idLength = start + id.length;
+        chunk.idStart[slot + 1] = chunk.idLength;
+    }
+
+    private void appendLines(Chunk chunk, List<Product> items) {
+        int[] products = chunk.lineProduct;
+        int[] quantities = chunk.lineQuantity;
+        int first = chunk.lineCount;
+        int count = first;
+        for (Product item : items) {
+            int ordinal = item.getOrdinal();
+            int line = first;
+            while (line < count && products[line] != ordinal) line++;
+            if (line < count) {
+                quantities[line]++;
+                continue;
+            }
+            if (count == products.length) {
+                products = Arrays.copyOf(products, products.length * 2);
+                quantities = Arrays.copyOf(quantities, quantities.length * 2);
+            }
+            products[count] = ordinal;
+            quantities[count] = 1;
+            count++;
+            if (ordinal >= this.products.length) this.products = Arrays.copyOf(this.products, ordinal + 1);
+            this.products[ordinal] = item;
+        }
+        if (products != chunk.lineProduct) {
+            chunk.lineQuantity = quantities;
+            chunk.lineProduct = products;
+        }
+        chunk.lineCount = count;
+    }
+
+    // Record that the order in a row was completed or cancelled; does nothing while it is still pending
+    public synchronized void finish(int row, Order order) {
+        if (row < 0 || row >= rowCount) return;
+        record(chunks[row / CHUNK_ROWS], row % CHUNK_ROWS, order);
+    }
+
+    // Must be called while holding the store's lock
+    private void record(Chunk chunk, int slot, Order order) {
+        if (chunk.state[slot] != PENDING) return;
+        chunk.enqueueTime[slot] = order.getEnqueueTime();
+        if (order.isCancelled()) {
+            chunk.state[slot] = CANCELLED;
+        } else if (order.isCompleted()) {
+            chunk.completedTime[slot] = order.getCompletedTime();
+            chunk.latencyMillis[slot] = (int) Math.min(Integer.MAX_VALUE, order.getLatencyMillis());
+            chunk.state[slot] = COMPLETED;
+        } else {
+            return;
+        }
+        finishedCount++;
+    }
+
+    // Rows of completed orders that finished before cutoffMillis (wall clock) and are not archived, oldest first
+    public synchronized int[] completedBefore(long cutoffMillis) {
+        IntStream.Builder rows = IntStream.builder();
+        for (int row = archiveFloor; row < rowCount; row++) {
+            Chunk chunk = chunks[row / CHUNK_ROWS];
+            int slot = row % CHUNK_ROWS;
+            if (chunk.state[slot] == COMPLETED && chunk.completedTime[slot] < cutoffMillis) rows.add(row);
+        }
+        return rows.build().toArray();
+    }
+
+    // The rows were written to the archive: find and getById leave them to it, the aggregates keep them
+    public synchronized void archive(int[] rows) {
+        for (int row : rows) {
+            if (row < 0 || row >= rowCount) continue;
+            Chunk chunk = chunks[row / CHUNK_ROWS];
+            if (chunk.state[row % CHUNK_ROWS] != COMPLETED) continue;
+            chunk.state[row % CHUNK_ROWS] = ARCHIVED;
+            finishedCount--;
+        }
+        while (archiveFloor < rowCount) {
+            byte state = chunks[archiveFloor / CHUNK_ROWS].state[archiveFloor % CHUNK_ROWS];
+            if (state != ARCHIVED && state != CANCELLED) break;
+            archiveFloor++;
+        }
+    }
+
+    // Rows appended so far
+    public int size() {
+        return rowCount;
+    }
+
+    // Rows of completed or cancelled orders that are not archived
+    public int getFinishedCount() {
+        return finishedCount;
+    }
+
+    public int getCustomerCount() {
+        return customers.size();
+    }
+
+    // The order in a row, rebuilt as a new Order whose items are the latest version of each product
+    public synchronized Order read(int row) {
+        if (row < 0 || row >= rowCount) throw new IndexOutOfBoundsException("No row " + row);
+        Chunk chunk = chunks[row / CHUNK_ROWS];
+        int slot = row % CHUNK_ROWS;
+        int idStart = chunk.idStart[slot];
+        String id = new String(chunk.idBytes, idStart, chunk.idStart[slot + 1] - idStart, StandardCharsets.UTF_8);
+        long time = chunk.time[slot];
+        String timestamp = time >= 0 ? timestampOf(time) : time == -1 ? null : oddTimestamps.nameOf((int) (-2 - time));
+        Order order = new Order(id, timestamp, customers.nameOf(chunk.customer[slot]), types.nameOf(chunk.type[slot]));
+        for (int line = chunk.lineStart[slot]; line < chunk.lineStart[slot + 1]; line++) {
+            order.addItem(products[chunk.lineProduct[line]], chunk.lineQuantity[line]);
+        }
+        if (chunk.totalCents[slot] > 0) order.setTotalPrice(chunk.totalCents[slot] / 100.0);
+        order.setDiscountAmount(chunk.discountCents[slot] / 100.0);
+        order.setEnqueueTime(chunk.enqueueTime[slot]);
+        if (chunk.state[slot] == CANCELLED) {
+            order.cancelOrder();
+        } else if (chunk.state[slot] != PENDING) {
+            order.restoreCompleted(chunk.completedTime[slot]);
+        }
+        return order;
+    }
+
+    // The row read back if its order is finished and not archived, else null
+    private synchronized Order readFinished(int row) {
+        byte state = chunks[row / CHUNK_ROWS].state[row % CHUNK_ROWS];
+        return state == COMPLETED || state == CANCELLED ? read(row) : null;
+    }
+
+    // yyyyMMddHHmmss back to "yyyy-MM-dd HH:mm:ss"
+    private static String timestampOf(long key) {
+        char[] text = "0000-00-00 00:00:00".toCharArray();
+        for (int i = text.length - 1; i >= 0; i--) {
+            if (text[i] == '0') {
+                text[i] = (char) ('0' + key % 10);
+                key /= 10;
+            }
+        }
+        return new String(text);
+    }
+
+    // Finished orders that are not archived and match the query, read back from their rows. Chunks outside
+    // the time range are skipped, and the other conditions are checked on the columns before a row is read.
+    public List<Order> find(OrderHistoryStore.Query query) {
+        List<Order> result = new ArrayList<>();
+        if (query.state == OrderHistoryStore.State.PENDING) return result;
+        byte wanted = query.state == null ? -1 : query.state == OrderHistoryStore.State.COMPLETED ? COMPLETED : CANCELLED;
+        int customer = query.customer == null ? -1 : customers.find(query.customer);
+        int type = query.type == null ? -1 : types.find(query.type);
+        if ((query.customer != null && customer < 0) || (query.type != null && type < 0)) return result;
+        long from = query.from == null ? Long.MIN_VALUE : OrderHistoryStore.timeKey(query.from);
+        long to = query.from == null ? Long.MAX_VALUE : OrderHistoryStore.timeKey(query.to);
+        int product = query.product == null ? -1 : query.product.getOrdinal();
+
+        int rows = rowCount; // Read before the chunks, so every counted row is fully written
+        Chunk[] current = chunks;
+        IntStream.Builder matches = IntStream.builder();
+        for (int c = 0; c * CHUNK_ROWS < rows; c++) {
+            Chunk chunk = current[c];
+            if (query.from != null && (chunk.maxTime < from || chunk.minTime >= to)) continue;
+            int[] products = chunk.lineProduct;
+            for (int r = 0, end = Math.min(CHUNK_ROWS, rows - c * CHUNK_ROWS); r < end; r++) {
+                byte state = chunk.state[r];
+                if (state != COMPLETED && state != CANCELLED) continue;
+                if (wanted >= 0 && state != wanted) continue;
+                if (customer >= 0 && chunk.customer[r] != customer) continue;
+                if (type >= 0 && chunk.type[r] != type) continue;
+                if (query.from != null && (chunk.time[r] < from || chunk.time[r] >= to)) continue;
+                if (product >= 0) {
+                    int line = chunk.lineStart[r];
+                    while (line < chunk.lineStart[r + 1] && products[line] != product) line++;
+                    if (line == chunk.lineStart[r + 1]) continue;
+                }
+                matches.add(c * CHUNK_ROWS + r);
+            }
+        }
+        for (int row : matches.build().toArray()) {
+            Order order = readFinished(row); // Checked again, the row may have been archived meanwhile
+            if (order != null && OrderHistoryStore.matches(order, query)) result.add(order);
+        }
+        return result;
+    }
+
+    // A finished order that is not archived, by id; null if there is none. A linear scan over the id hashes,
+    // like OrderArchive.getById: an index would put a heap entry back for every order.
+    public Order getById(String orderId) {
+        int hash = orderId.hashCode();
+        int rows = rowCount;
+        Chunk[] current = chunks;
+        for (int c = 0; c * CHUNK_ROWS < rows; c++) {
+            int[] hashes = current[c].idHash;
+            for (int r = 0, end = Math.min(CHUNK_ROWS, rows - c * CHUNK_ROWS); r < end; r++) {
+                if (hashes[r] != hash) continue;
+                Order order = readFinished(c * CHUNK_ROWS + r);
+                if (order != null && order.getOrderId().equals(orderId)) return order;
+            }
+        }
+        return null;
+    }
+
+    // Revenue of orders with a timestamp in [from, to) ("yyyy-MM-dd HH:mm:ss"), in cents
+    public long revenueCents(String from, String to) {
+        long fromKey = OrderHistoryStore.timeKey(from);
+        long toKey = OrderHistoryStore.timeKey(to);
+        return scan((chunk, rows) -> {
+            long sum = 0;
+            for (int r = 0; r < rows; r++) {
+                long time = chunk.time[r];
+                if (time >= fromKey && time < toKey && chunk.state[r] != CANCELLED) sum += chunk.totalCents[r];
+            }
+            return new long[]{sum};
+        }, 1)[0];
+    }
+
+    // Revenue per order type, in cents
+    public Map<String, Long> revenueByType() {
+        int typeCount = types.size();
+        long[] sums = scan((chunk, rows) -> {
+            long[] partial = new long[typeCount];
+            for (int r = 0; r < rows; r++) {
+                if (chunk.state[r] != CANCELLED && chunk.type[r] < typeCount) partial[chunk.type[r]] += chunk.totalCents[r];
+            }
+            return partial;
+        }, typeCount);
+        Map<String, Long> result = new HashMap<>();
+        for (int t = 0; t < typeCount; t++) {
+            result.put(types.nameOf(t), sums[t]);
+        }
+        return result;
+    }
+
+    // Total discount given, in cents
+    public long discountCents() {
+        return scan((chunk, rows) -> {
+            long sum = 0;
+            for (int r = 0; r < rows; r++) {
+                if (chunk.state[r] != CANCELLED) sum += chunk.discountCents[r];
+            }
+            return new long[]{sum};
+        }, 1)[0];
+    }
+
+    // Items sold per product, indexed by product ordinal
+    public long[] itemsByProduct() {
+        int ordinals = Product.ordinalCount();
+        return scan((chunk, rows) -> {
+            long[] partial = new long[ordinals];
+            int[] products = chunk.lineProduct;
+            int[] quantities = chunk.lineQuantity;
+            for (int r = 0; r < rows; r++) {
+                if (chunk.state[r] == CANCELLED) continue;
+                for (int line = chunk.lineStart[r]; line < chunk.lineStart[r + 1]; line++) {
+                    if (products[line] < ordinals) partial[products[line]] += quantities[line];
+                }
+            }
+            return partial;
+        }, ordinals);
+    }
+
+    // Orders per hour of the day (orders without a timestamp are left out)
+    public long[] ordersByHour() {
+        return scan((chunk, rows) -> {
+            long[] partial = new long[24];
+            for (int r = 0; r < rows; r++) {
+                long time = chunk.time[r];
+                if (time >= 0 && chunk.state[r] != CANCELLED) partial[(int) (time / 10_000 % 100)]++;
+            }
+            return partial;
+        }, 24);
+    }
+
+    // Revenue of one customer, in cents
+    public long revenueOfCustomerCents(String customerName) {
+        int id = customers.find(customerName);
+        if (id < 0) return 0;
+        return scan((chunk, rows) -> {
+            long sum = 0;
+            for (int r = 0; r < rows; r++) {
+                if (chunk.customer[r] == id && chunk.state[r] != CANCELLED) sum += chunk.totalCents[r];
+            }
+            return new long[]{sum};
+        }, 1)[0];
+    }
+
+    // Arrival-to-completion latencies of the completed orders of one type, in milliseconds
+    public long[] latenciesMillis(String orderType) {
+        int type = types.find(orderType);
+        LongStream.Builder latencies = LongStream.builder();
+        if (type < 0) return latencies.build().toArray();
+        int rows = rowCount;
+        Chunk[] current = chunks;
+        for (int c = 0; c * CHUNK_ROWS < rows; c++) {
+            Chunk chunk = current[c];
+            for (int r = 0, end = Math.min(CHUNK_ROWS, rows - c * CHUNK_ROWS); r < end; r++) {
+                byte state = chunk.state[r];
+                if (chunk.type[r] == type && (state == COMPLETED || state == ARCHIVED) && chunk.latencyMillis[r] >= 0) {
+                    latencies.add(chunk.latencyMillis[r]);
+                }
+            }
+        }
+        return latencies.build().toArray();
+    }
+
+    private interface ChunkScan {
+        long[] scan(Chunk chunk, int rows);
+    }
+
+    // Run a scan over every chunk in parallel and add up the partial results element by element
+    private long[] scan(ChunkScan work, int width) {
+        int rows = rowCount; // Read before the chunks, so every counted row is fully written
+        Chunk[] current = chunks;
+        int chunkCount = (rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        return IntStream.range(0, chunkCount).parallel()
+                .mapToObj(c -> work.scan(current[c], Math.min(CHUNK_ROWS, rows - c * CHUNK_ROWS)))
+                .reduce(new long[width], (a, b) -> {
+                    long[] sum = new long[width];
+                    for (int i = 0; i < width; i++) {
+                        sum[i] = a[i] + b[i];
+                    }
+                    return sum;
+                });
+    }
+}
@@ -0,0 +1,70 @@
+package model;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Counts outstanding orders; servers decrement it through Order.completeOrder().
+// "All orders completed" is an O(1) read, and listeners fire as soon as the last order finishes.
+public class CompletionTracker implements OrderObserver {
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+
+    // Start tracking an order; orders that are already completed are ignored
+    public void track(Order order) {
+        outstanding.incrementAndGet();
+        if (!order.addCompletionObserver(this)) {
+            outstanding.decrementAndGet(); // Completed before we could observe it
+        }
+    }
+
+    @Override
+    public void onOrderUpdated(Order order) {
+    }
+
+    @Override
+    public void onOrderCancelled(Order order) {
+        onOrderCompleted(order); // A cancelled order is no longer outstanding either
+    }
+
+    @Override
+    public void onOrderCompleted(Order order) {
+        if (outstanding.decrementAndGet() == 0) {
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+            listeners.forEach(Runnable::run);
+        }
+    }
+
+    // Called on the completing server's thread each time the outstanding count drops to zero
+    public void addAllCompletedListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public int getOutstandingCount() {
+        return outstanding.get();
+    }
+
+    public boolean isAllCompleted() {
+        return outstanding.get() == 0;
+    }
+
+    // Wait until no order is outstanding; returns false on timeout
+    public boolean awaitAllCompleted(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        synchronized (lock) {
+            while (outstanding.get() > 0) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                long waitStart = System.nanoTime();
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                remaining -= System.nanoTime() - waitStart;
+            }
+            return true;
+        }
+    }
+}
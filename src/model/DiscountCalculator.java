@@ -1,5 +1,7 @@
 package model;
 
+import util.ShopEvents;
+
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -24,17 +26,54 @@ public class DiscountCalculator {
 
     // Calculate all possible discounts and return the one with the highest discount
     public DiscountResult calculateBestDiscount(Order originalOrder) {
+        ShopEvents.DiscountComputed event = new ShopEvents.DiscountComputed();
+        event.begin();
+
+        DiscountResult best = findBestDiscount(originalOrder);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.orderId = originalOrder.getOrderId();
+            event.itemCount = originalOrder.getItems().size();
+            event.description = best.description;
+            event.discountAmount = best.discountAmount;
+            event.commit();
+        }
+        return best;
+    }
+
+    // One pass over the items: per-category counts in an array indexed by Category, prices in cents
+    private DiscountResult findBestDiscount(Order originalOrder) {
+        int cakes = 0;
+        int[] categoryCounts = new int[Category.COUNT];
+        long nonCakeCents = 0;
+        for (Product product : originalOrder.getItems()) {
+            if (product.isCake()) {
+                cakes++;
+            } else {
+                categoryCounts[product.getCategoryType().ordinal()]++;
+                nonCakeCents += product.getPriceCents();
+            }
+        }
+        return calculateBestDiscount(cakes,
+                categoryCounts[Category.FOOD.ordinal()],
+                categoryCounts[Category.BEVERAGE.ordinal()],
+                nonCakeCents / 100.0);
+    }
+
+    // Best discount from basket tallies alone (food, beverages and price exclude cakes),
+    // so a running basket can be priced in constant time
+    public DiscountResult calculateBestDiscount(int cakeCount, int foodCount, int beverageCount, double priceWithoutCakes) {
         List<DiscountResult> allDiscounts = new ArrayList<>();
 
         // 1. Calculate cake discount
-        allDiscounts.add(applyCakeDiscount(originalOrder));
+        allDiscounts.add(applyCakeDiscount(cakeCount));
 
         // 2. Calculate meal deal discount (excluding cake items)
-        Order orderWithoutCakes = createOrderWithoutCakes(originalOrder);
-        allDiscounts.add(applyMealDealDiscount(orderWithoutCakes));
+        allDiscounts.add(applyMealDealDiscount(foodCount, beverageCount, priceWithoutCakes));
 
         // 3. Calculate default discount (excluding cake items)
-        allDiscounts.add(applyDefaultDiscount(orderWithoutCakes));
+        allDiscounts.add(applyDefaultDiscount(priceWithoutCakes));
 
         // 4. Choose the discount with the highest discount amount
         return allDiscounts.stream()
@@ -42,26 +81,8 @@ public class DiscountCalculator {
                 .orElse(DiscountResult.NO_DISCOUNT);
     }
 
-    // Create a copy of the order without cakes
-    private Order createOrderWithoutCakes(Order originalOrder) {
-        Order orderWithoutCakes = new Order(
-                originalOrder.getOrderId() + "-nocakes",
-                originalOrder.getTimeStamp(),
-                originalOrder.getCustomerName(),
-                originalOrder.getOrderType()
-        );
-
-        for (Product product : originalOrder.getItems()) {
-            if (!"Cake".equals(product.getName())) {
-                orderWithoutCakes.addItem(product);
-            }
-        }
-        return orderWithoutCakes;
-    }
-
     // Apply cake discount rule: Buy 3, get 1 free
-    private DiscountResult applyCakeDiscount(Order order) {
-        int cakeCount = countCakes(order);
+    private DiscountResult applyCakeDiscount(int cakeCount) {
         if (cakeCount >= 3) {
             int freeCakes = cakeCount / 3;
             double discountAmount = freeCakes * CAKE_PRICE;
@@ -75,12 +96,8 @@ public class DiscountCalculator {
     }
 
     // Apply meal deal discount rule: 2 food items (excluding cakes) + 1 beverage at 20% off
-    private DiscountResult applyMealDealDiscount(Order order) {
-        int foodCount = countItemsByCategory(order, "Food");
-        int beverageCount = countItemsByCategory(order, "Beverage");
-
+    private DiscountResult applyMealDealDiscount(int foodCount, int beverageCount, double originalPrice) {
         if (foodCount >= 2 && beverageCount >= 1) {
-            double originalPrice = order.getTotalPrice();
             double discountedPrice = originalPrice * 0.8;
             return new DiscountResult(
                     true,
@@ -95,9 +112,7 @@ public class DiscountCalculator {
     // - 20% off for orders over 50
     // - $5 off for orders over 30
     // - $2 off for orders over 20
-    private DiscountResult applyDefaultDiscount(Order order) {
-        double originalPrice = order.getTotalPrice();
-
+    private DiscountResult applyDefaultDiscount(double originalPrice) {
         if (originalPrice >= 50) {
             double discountedPrice = originalPrice * 0.8;
             return new DiscountResult(
@@ -120,18 +135,4 @@ public class DiscountCalculator {
         }
         return DiscountResult.NO_DISCOUNT;
     }
-
-    // Count the number of cakes in the order
-    private int countCakes(Order order) {
-        return (int) order.getItems().stream()
-                .filter(p -> "Cake".equals(p.getName()))
-                .count();
-    }
-
-    // Count the number of items by category
-    private int countItemsByCategory(Order order, String category) {
-        return (int) order.getItems().stream()
-                .filter(p -> category.equals(p.getCategory()))
-                .count();
-    }
 }
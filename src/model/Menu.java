@@ -4,38 +4,104 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 // Menu class
+// The products live in an immutable MenuSnapshot behind an AtomicReference: readers (pricing, the UI,
+// order loaders) just read the current snapshot and never block, and every change publishes a new
+// snapshot with a single reference swap. Writers are serialised on the menu.
 public class Menu {
-    private Map<String, Product> products;
+    private final AtomicReference<MenuSnapshot> current = new AtomicReference<>(new MenuSnapshot(new ArrayList<>()));
+    private final List<Consumer<MenuSnapshot>> listeners = new CopyOnWriteArrayList<>();
 
-    public Menu() {
-        this.products = new HashMap<>();
+    // Frozen, ordinal-indexed view of the current products
+    public MenuSnapshot snapshot() {
+        return current.get();
     }
 
-    // Get all products
+    // Get all products (read-only, sorted by id)
     public List<Product> getAllProducts() {
-        return new ArrayList<>(products.values());
+        return snapshot().getProducts();
     }
 
     // Get product by ID
     public Product getProductById(String productId) {
-        return products.get(productId);
+        return snapshot().getProductById(productId);
+    }
+
+    // Called with each new snapshot, on the thread that published it
+    public void addListener(Consumer<MenuSnapshot> listener) {
+        listeners.add(listener);
     }
 
     // Add product
-    public void addProduct(Product product) {
-        if (products.containsKey(product.getId())) {
+    public synchronized void addProduct(Product product) {
+        if (snapshot().getProductById(product.getId()) != null) {
             throw new IllegalArgumentException("Product ID already exists: " + product.getId());
         }
-        products.put(product.getId(), product);
+        List<Product> products = new ArrayList<>(snapshot().getProducts());
+        products.add(product);
+        publish(products);
+    }
+
+    // Replace the whole menu. A product that is still on it keeps its stock counter (matched by id), so the
+    // stock in the new list only counts for new products; an unchanged product keeps its object.
+    // In-flight orders keep the product versions, and so the prices, they were priced with.
+    public synchronized MenuSnapshot reload(List<Product> products) {
+        if (products.isEmpty()) throw new IllegalArgumentException("Refusing to replace the menu with an empty one");
+        MenuSnapshot old = snapshot();
+        List<Product> next = new ArrayList<>(products.size());
+        for (Product product : products) {
+            Product existing = old.getProductById(product.getId());
+            if (existing == null) {
+                next.add(product);
+            } else if (existing.sameDetails(product)) {
+                next.add(existing);
+            } else {
+                next.add(existing.revise(product));
+            }
+        }
+        return publish(next);
+    }
+
+    private MenuSnapshot publish(List<Product> products) {
+        MenuSnapshot next = new MenuSnapshot(products, snapshot().getVersion() + 1);
+        current.set(next);
+        for (Consumer<MenuSnapshot> listener : listeners) {
+            listener.accept(next);
+        }
+        return next;
     }
 
     // Load menu from file
     public void loadFromFile(String filePath) {
+        try {
+            List<Product> parsed = parseFile(filePath); // Parse before taking the lock
+            synchronized (this) {
+                List<Product> products = new ArrayList<>(snapshot().getProducts());
+                for (Product product : parsed) {
+                    if (getProductById(product.getId()) != null) {
+                        System.err.println("Error loading product: Product ID already exists: " + product.getId());
+                        continue;
+                    }
+                    products.add(product);
+                }
+                publish(products);
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading menu file: " + e.getMessage());
+        }
+    }
+
+    // Parse a menu file without touching any menu; bad lines are reported and skipped
+    public static List<Product> parseFile(String filePath) throws IOException {
+        List<Product> products = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
         try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
             String line;
             int lineNum = 0;
@@ -43,8 +109,8 @@ public class Menu {
                 lineNum++;
                 try {
                     String[] parts = line.split(",");
-                    if (parts.length != 6) {
-                        System.err.println("Line " + lineNum + " format error: requires 6 fields, but got " + parts.length);
+                    if (parts.length != 6 && parts.length != 7) {
+                        System.err.println("Line " + lineNum + " format error: requires 6 or 7 fields, but got " + parts.length);
                         continue;
                     }
 
@@ -55,14 +121,17 @@ public class Menu {
                     String category = parts[3].trim();
                     double price = Double.parseDouble(parts[4].trim());
                     int stock = Integer.parseInt(parts[5].trim());
+                    int prepTime = parts.length == 7 ? Integer.parseInt(parts[6].trim()) : 0; // Optional, milliseconds
 
-                    addProduct(new Product(id, name, description, category, price, stock));
+                    if (!ids.add(id)) {
+                        throw new IllegalArgumentException("Product ID already exists: " + id);
+                    }
+                    products.add(new Product(id, name, description, category, price, stock, prepTime));
                 } catch (Exception e) {
                     System.err.println("Error processing line " + lineNum + ": " + e.getMessage());
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Error loading menu file: " + e.getMessage());
         }
+        return products;
     }
 }
@@ -0,0 +1,110 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A frozen view of the menu. Products are kept in an array indexed by their ordinal, with the ordinals of
+// each category precomputed, so counts, carts, discounts and stats can use primitive arrays instead of
+// hashing Product objects. Nothing changes after construction, so any thread may read it without locking.
+public final class MenuSnapshot {
+    private final long version;                   // Bumped by each change the Menu publishes
+    private final List<Product> products;         // Sorted by id
+    private final Product[] byOrdinal;            // null where an ordinal is not on this menu
+    private final Map<String, Product> byId;
+    private final int[][] ordinalsByCategory;     // Indexed by Category.ordinal()
+
+    public MenuSnapshot(Collection<Product> menuProducts) {
+        this(menuProducts, 0);
+    }
+
+    public MenuSnapshot(Collection<Product> menuProducts, long version) {
+        this.version = version;
+        List<Product> sorted = new ArrayList<>(menuProducts);
+        sorted.sort(Comparator.comparing(Product::getId));
+        this.products = Collections.unmodifiableList(sorted);
+
+        int bound = 0;
+        for (Product product : sorted) {
+            bound = Math.max(bound, product.getOrdinal() + 1);
+        }
+        this.byOrdinal = new Product[bound];
+        this.byId = new HashMap<>(sorted.size() * 2);
+        int[] categorySizes = new int[Category.COUNT];
+        for (Product product : sorted) {
+            if (byId.put(product.getId(), product) != null) {
+                throw new IllegalArgumentException("Product ID already exists: " + product.getId());
+            }
+            byOrdinal[product.getOrdinal()] = product;
+            categorySizes[product.getCategoryType().ordinal()]++;
+        }
+
+        this.ordinalsByCategory = new int[Category.COUNT][];
+        for (int c = 0; c < Category.COUNT; c++) {
+            ordinalsByCategory[c] = new int[categorySizes[c]];
+        }
+        int[] filled = new int[Category.COUNT];
+        for (Product product : sorted) {
+            int c = product.getCategoryType().ordinal();
+            ordinalsByCategory[c][filled[c]++] = product.getOrdinal();
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    // Length for arrays indexed by product ordinal
+    public int getOrdinalBound() {
+        return byOrdinal.length;
+    }
+
+    public Product getProduct(int ordinal) {
+        return ordinal >= 0 && ordinal < byOrdinal.length ? byOrdinal[ordinal] : null;
+    }
+
+    public Product getProductById(String productId) {
+        return byId.get(productId);
+    }
+
+    // Ordinal of a product id, or -1 if it is not on this menu
+    public int ordinalOf(String productId) {
+        Product product = byId.get(productId);
+        return product == null ? -1 : product.getOrdinal();
+    }
+
+    public boolean contains(Product product) {
+        return getProduct(product.getOrdinal()) == product;
+    }
+
+    // Ordinals of the products in one category, in id order
+    public int[] getOrdinals(Category category) {
+        return Arrays.copyOf(ordinalsByCategory[category.ordinal()], ordinalsByCategory[category.ordinal()].length);
+    }
+
+    public int getCategorySize(Category category) {
+        return ordinalsByCategory[category.ordinal()].length;
+    }
+
+    // Sum an ordinal-indexed array over one category without copying the ordinals
+    public long sumByCategory(int[] valuesByOrdinal, Category category) {
+        long sum = 0;
+        for (int ordinal : ordinalsByCategory[category.ordinal()]) {
+            if (ordinal < valuesByOrdinal.length) sum += valuesByOrdinal[ordinal];
+        }
+        return sum;
+    }
+}
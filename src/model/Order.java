@@ -2,6 +2,7 @@ package model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 // Order class
@@ -10,12 +11,18 @@ public class Order {
     private String timeStamp;
     private String customerName;
     private List<Product> items;
-    private boolean isCompleted;
+    private volatile boolean isCompleted;
+    private volatile boolean isCancelled;
     private double totalPrice;
     private String orderType;
     private double discountAmount;
-    private List<OrderObserver> observers = new ArrayList<>();
+    private List<OrderObserver> observers = new CopyOnWriteArrayList<>();
     private long enqueueTime;
+    private long scheduledTime; // Intended arrival (System.nanoTime) for generated load, 0 otherwise
+    private volatile long completedTime; // Wall-clock completion time, 0 while pending
+    private volatile long completedNanos; // System.nanoTime at completion, to compare with scheduledTime
+    private int columnRow = -1; // Row in the order manager's columnar store, -1 if not stored
+    private volatile boolean stockReserved; // Stock was taken for its items; cancelling puts it back
 
     public long getEnqueueTime() {
         return enqueueTime;
@@ -25,6 +32,46 @@ public class Order {
         this.enqueueTime = enqueueTime;
     }
 
+    public long getScheduledTime() {
+        return scheduledTime;
+    }
+
+    public void setScheduledTime(long scheduledTime) {
+        this.scheduledTime = scheduledTime;
+    }
+
+    public long getCompletedTime() {
+        return completedTime;
+    }
+
+    public long getCompletedNanos() {
+        return completedNanos;
+    }
+
+    // Arrival to completion in milliseconds, -1 if the order is not completed or never reached the queue.
+    // Generated orders count from their intended arrival, so time spent blocked before the queue is included.
+    public long getLatencyMillis() {
+        if (!isCompleted) return -1;
+        if (scheduledTime > 0 && completedNanos > 0) return (completedNanos - scheduledTime) / 1_000_000;
+        return enqueueTime > 0 ? completedTime - enqueueTime : -1;
+    }
+
+    public boolean isStockReserved() {
+        return stockReserved;
+    }
+
+    public void setStockReserved(boolean stockReserved) {
+        this.stockReserved = stockReserved;
+    }
+
+    int getColumnRow() {
+        return columnRow;
+    }
+
+    void setColumnRow(int columnRow) {
+        this.columnRow = columnRow;
+    }
+
     private void notifyOrderChanged() {
         for (OrderObserver o : observers) {
             o.onOrderUpdated(this);
@@ -82,8 +129,45 @@ public class Order {
         return isCompleted;
     }
 
-    public synchronized void completeOrder() {
-        isCompleted = true;
+    public void completeOrder() {
+        synchronized (this) {
+            if (isCompleted || isCancelled) return;
+            completedTime = System.currentTimeMillis();
+            completedNanos = System.nanoTime();
+            isCompleted = true;
+        }
+        for (OrderObserver o : observers) {
+            o.onOrderCompleted(this);
+        }
+    }
+
+    // Rebuild a completed order read back from the archive, keeping its original completion time
+    void restoreCompleted(long completedTime) {
+        this.completedTime = completedTime;
+        this.isCompleted = true;
+    }
+
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    // Cancel an order that has not been completed; returns whether it was cancelled
+    public boolean cancelOrder() {
+        synchronized (this) {
+            if (isCompleted || isCancelled) return false;
+            isCancelled = true;
+        }
+        for (OrderObserver o : observers) {
+            o.onOrderCancelled(this);
+        }
+        return true;
+    }
+
+    // Register an observer unless the order is already completed or cancelled; returns whether it was added
+    public synchronized boolean addCompletionObserver(OrderObserver observer) {
+        if (isCompleted || isCancelled) return false;
+        observers.add(observer);
+        return true;
     }
 
     public List<Product> getItems() {
@@ -0,0 +1,390 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+
+// Cold tier for completed orders: append-only segment files of a fixed size, memory-mapped, so archived
+// orders live in the page cache instead of the Java heap. The heap keeps only, per segment, the offset of
+// each record, the time range covered, and a small dictionary of the products used.
+//
+// Record layout (all in one segment; a 0 byte marks the end of the written part). Every record is framed as
+// kind, int body length, body, CRC32 of kind, length and body; reopening stops at the first record that does
+// not check out, so a torn write (or the zero-filled tail of a crashed segment) is never read as an order.
+//   'P' id name category priceCents prepTime        product version, numbered 0, 1, ... per segment
+//   'O' id timestamp customer type totalCents discountCents enqueueTime completedTime lines (product quantity)*
+// Strings are a short length followed by UTF-8 bytes; lines and product numbers are shorts.
+// Appends are serialised; reads run concurrently and see every record appended before they started.
+public class OrderArchive implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_BYTES = 16 << 20;
+    private static final byte END = 0;
+    private static final byte PRODUCT = 'P';
+    private static final byte ORDER = 'O';
+    private static final int HEADER = 1 + 4; // Kind and body length
+    private static final int FRAME = HEADER + 4; // Header and CRC
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private volatile int orderCount;
+
+    private static class Segment {
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final List<Product> products = new CopyOnWriteArrayList<>();
+        final Map<String, Integer> productNumbers = new HashMap<>(); // Writer only
+        volatile int[] offsets = new int[1024];                     // Start of each order record
+        volatile int[] idHashes = new int[1024];                    // Order id hash of each record, for getById
+        volatile int count;                                         // Orders in this segment
+        volatile long minTime = Long.MAX_VALUE;
+        volatile long maxTime = Long.MIN_VALUE;
+        int end;                                                    // Writer only
+
+        Segment(Path path, int size) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        }
+
+        void addOffset(int offset, String orderId) {
+            int[] current = offsets;
+            int[] hashes = idHashes;
+            if (count == current.length) {
+                hashes = Arrays.copyOf(hashes, hashes.length * 2);
+                idHashes = hashes;
+                current = Arrays.copyOf(current, current.length * 2);
+                offsets = current;
+            }
+            hashes[count] = orderId.hashCode();
+            current[count] = offset;
+        }
+    }
+
+    // Open (or create) the archive in a directory; segments already there are read back
+    public OrderArchive(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes < 4096) throw new IllegalArgumentException("Segments must be at least 4096 bytes");
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        List<Path> existing = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.seg")) {
+            files.forEach(existing::add);
+        }
+        existing.sort(null);
+        for (Path path : existing) {
+            Segment segment = new Segment(path, 0);
+            recover(segment);
+            segments.add(segment);
+            orderCount += segment.count;
+        }
+    }
+
+    public int size() {
+        return orderCount;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    // Append completed orders; they must not change afterwards
+    public synchronized void append(List<Order> orders) throws IOException {
+        Segment first = null;
+        for (Order order : orders) {
+            Segment segment = append(order);
+            if (first == null) first = segment;
+        }
+        if (first == null) return;
+        // Flush every segment written to; there is more than one only when a segment filled up
+        for (int s = segments.indexOf(first); s < segments.size(); s++) {
+            segments.get(s).buffer.force();
+        }
+    }
+
+    private Segment append(Order order) throws IOException {
+        Map<Product, Integer> lines = new HashMap<>();
+        List<Product> lineOrder = new ArrayList<>();
+        for (Product item : order.getItems()) {
+            if (lines.merge(item, 1, Integer::sum) == 1) lineOrder.add(item);
+        }
+        byte[][] strings = {
+                utf8(order.getOrderId()), utf8(order.getTimeStamp()), utf8(order.getCustomerName()), utf8(order.getOrderType())};
+        int size = FRAME + 4 + 4 + 8 + 8 + 2 + lineOrder.size() * 4 + 1;
+        for (byte[] s : strings) size += 2 + s.length;
+        for (Product product : lineOrder) size += productRecordSize(product); // Worst case: all new in a new segment
+
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.end + size > segment.buffer.capacity()) {
+            if (size > segmentBytes) throw new IOException("Order " + order.getOrderId() + " does not fit in a segment");
+            segment = new Segment(directory.resolve(String.format("segment-%06d.seg", segments.size() + 1)), segmentBytes);
+            segments.add(segment);
+        }
+
+        MappedByteBuffer buffer = segment.buffer;
+        int position = segment.end;
+        int[] numbers = new int[lineOrder.size()];
+        for (int i = 0; i < lineOrder.size(); i++) {
+            numbers[i] = productNumber(segment, lineOrder.get(i));
+            position = segment.end; // productNumber may have written a product record
+        }
+        int start = position;
+        position += HEADER;
+        position = putString(buffer, position, strings[0]);
+        position = putString(buffer, position, strings[1]);
+        position = putString(buffer, position, strings[2]);
+        position = putString(buffer, position, strings[3]);
+        buffer.putInt(position, (int) Math.round(order.getTotalPrice() * 100));
+        buffer.putInt(position + 4, (int) Math.round(order.getDiscountAmount() * 100));
+        buffer.putLong(position + 8, order.getEnqueueTime());
+        buffer.putLong(position + 16, order.getCompletedTime());
+        buffer.putShort(position + 24, (short) lineOrder.size());
+        position += 26;
+        for (int i = 0; i < lineOrder.size(); i++) {
+            buffer.putShort(position, (short) numbers[i]);
+            buffer.putShort(position + 2, (short) (int) lines.get(lineOrder.get(i)));
+            position += 4;
+        }
+        position = frame(buffer, start, ORDER, position);
+        buffer.put(position, END);
+        segment.end = position;
+
+        long time = OrderHistoryStore.timeKey(order.getTimeStamp());
+        segment.minTime = Math.min(segment.minTime, time);
+        segment.maxTime = Math.max(segment.maxTime, time);
+        segment.addOffset(start, order.getOrderId());
+        segment.count++; // Publishes the record to readers
+        orderCount++;
+        return segment;
+    }
+
+    // Number of a product version in this segment, writing its record the first time it is used
+    private int productNumber(Segment segment, Product product) {
+        String key = product.getId() + '\0' + product.getName() + '\0' + product.getCategory() + '\0'
+                + product.getPriceCents() + '\0' + product.getPrepTime();
+        Integer number = segment.productNumbers.get(key);
+        if (number != null) return number;
+        MappedByteBuffer buffer = segment.buffer;
+        int start = segment.end;
+        int position = start + HEADER;
+        position = putString(buffer, position, utf8(product.getId()));
+        position = putString(buffer, position, utf8(product.getName()));
+        position = putString(buffer, position, utf8(product.getCategory()));
+        buffer.putInt(position, (int) product.getPriceCents());
+        buffer.putInt(position + 4, product.getPrepTime());
+        segment.end = frame(buffer, start, PRODUCT, position + 8);
+        number = segment.products.size();
+        segment.products.add(detached(product.getId(), product.getName(), product.getCategory(),
+                (int) product.getPriceCents(), product.getPrepTime()));
+        segment.productNumbers.put(key, number);
+        return number;
+    }
+
+    private static int productRecordSize(Product product) {
+        return FRAME + 6 + utf8(product.getId()).length + utf8(product.getName()).length
+                + utf8(product.getCategory()).length + 8;
+    }
+
+    // Rebuild the in-heap summary of a segment found on disk; appends go on after the last whole record
+    private void recover(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position < buffer.capacity() && buffer.get(position) != END) {
+            try {
+                position = recoverRecord(segment, position);
+            } catch (RuntimeException e) {
+                position = -1; // Torn write
+            }
+            if (position < 0) break;
+            segment.end = position;
+        }
+    }
+
+    // Read one record back into the summary; returns where the next one starts, or -1 if it is not valid
+    private static int recoverRecord(Segment segment, int position) {
+        MappedByteBuffer buffer = segment.buffer;
+        byte kind = buffer.get(position);
+        if (kind != PRODUCT && kind != ORDER) return -1;
+        int length = buffer.getInt(position + 1);
+        if (length < 0 || length > buffer.capacity() - position - FRAME) return -1;
+        int end = position + HEADER + length;
+        if (buffer.getInt(end) != crc(buffer, position, end)) return -1;
+        if (kind == PRODUCT) {
+            int start = position + HEADER;
+            String id = getString(buffer, start);
+            start += 2 + buffer.getShort(start);
+            String name = getString(buffer, start);
+            start += 2 + buffer.getShort(start);
+            String category = getString(buffer, start);
+            start += 2 + buffer.getShort(start);
+            Product product = detached(id, name, category, buffer.getInt(start), buffer.getInt(start + 4));
+            segment.productNumbers.put(id + '\0' + name + '\0' + category + '\0'
+                    + product.getPriceCents() + '\0' + product.getPrepTime(), segment.products.size());
+            segment.products.add(product);
+            return end + 4;
+        }
+        Order order = read(segment, position);
+        long time = OrderHistoryStore.timeKey(order.getTimeStamp());
+        segment.minTime = Math.min(segment.minTime, time);
+        segment.maxTime = Math.max(segment.maxTime, time);
+        segment.addOffset(position, order.getOrderId());
+        segment.count++;
+        return end + 4;
+    }
+
+    // Fill in the header of the record at start whose body ends at bodyEnd, and append its CRC;
+    // returns where the next record starts
+    private static int frame(MappedByteBuffer buffer, int start, byte kind, int bodyEnd) {
+        buffer.put(start, kind);
+        buffer.putInt(start + 1, bodyEnd - start - HEADER);
+        buffer.putInt(bodyEnd, crc(buffer, start, bodyEnd));
+        return bodyEnd + 4;
+    }
+
+    private static int crc(MappedByteBuffer buffer, int from, int to) {
+        ByteBuffer range = buffer.duplicate();
+        range.limit(to).position(from);
+        CRC32 crc = new CRC32();
+        crc.update(range);
+        return (int) crc.getValue();
+    }
+
+    // Every archived order matching the query; segments outside the time range, or that never sold the
+    // product asked for, are skipped without reading them
+    public List<Order> find(OrderHistoryStore.Query query) {
+        long from = query.from == null ? Long.MIN_VALUE : OrderHistoryStore.timeKey(query.from);
+        long to = query.from == null ? Long.MAX_VALUE : OrderHistoryStore.timeKey(query.to);
+        List<Order> result = new ArrayList<>();
+        for (Segment segment : segments) {
+            int count = segment.count;
+            if (count == 0 || segment.maxTime < from || segment.minTime >= to) continue;
+            if (query.product != null && !uses(segment, query.product)) continue;
+            int[] offsets = segment.offsets;
+            for (int i = 0; i < count; i++) {
+                Order order = read(segment, offsets[i]);
+                if (OrderHistoryStore.matches(order, query)) result.add(order);
+            }
+        }
+        return result;
+    }
+
+    private static boolean uses(Segment segment, Product product) {
+        for (Product used : segment.products) {
+            if (used.getOrdinal() == product.getOrdinal()) return true;
+        }
+        return false;
+    }
+
+    // Archived orders newest first: skip offset, return at most limit
+    public List<Order> newest(int offset, int limit) {
+        List<Order> page = new ArrayList<>();
+        int skip = offset;
+        for (int s = segments.size() - 1; s >= 0 && page.size() < limit; s--) {
+            Segment segment = segments.get(s);
+            int count = segment.count;
+            if (skip >= count) {
+                skip -= count;
+                continue;
+            }
+            int[] offsets = segment.offsets;
+            for (int i = count - 1 - skip; i >= 0 && page.size() < limit; i--) {
+                page.add(read(segment, offsets[i]));
+            }
+            skip = 0;
+        }
+        return page;
+    }
+
+    // A linear scan, but over the in-heap id hashes: only records whose hash matches are read from the segment.
+    // There is no per-order index on purpose; it would put a heap entry back for every archived order.
+    public Order getById(String orderId) {
+        int hash = orderId.hashCode();
+        for (Segment segment : segments) {
+            int count = segment.count;
+            int[] hashes = segment.idHashes;
+            int[] offsets = segment.offsets;
+            for (int i = 0; i < count; i++) {
+                if (hashes[i] == hash && orderId.equals(getString(segment.buffer, offsets[i] + HEADER))) {
+                    return read(segment, offsets[i]);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+    }
+
+    private static Order read(Segment segment, int position) {
+        MappedByteBuffer buffer = segment.buffer;
+        int p = position + HEADER;
+        String id = getString(buffer, p);
+        p += 2 + buffer.getShort(p);
+        String timestamp = getString(buffer, p);
+        p += 2 + buffer.getShort(p);
+        String customer = getString(buffer, p);
+        p += 2 + buffer.getShort(p);
+        String type = getString(buffer, p);
+        p += 2 + buffer.getShort(p);
+        Order order = new Order(id, timestamp, customer, type);
+        int totalCents = buffer.getInt(p);
+        int discountCents = buffer.getInt(p + 4);
+        order.setEnqueueTime(buffer.getLong(p + 8));
+        long completedTime = buffer.getLong(p + 16);
+        int lines = buffer.getShort(p + 24);
+        p += 26;
+        for (int i = 0; i < lines; i++) {
+            order.addItem(segment.products.get(buffer.getShort(p)), buffer.getShort(p + 2));
+            p += 4;
+        }
+        if (totalCents > 0) order.setTotalPrice(totalCents / 100.0);
+        order.setDiscountAmount(discountCents / 100.0);
+        order.restoreCompleted(completedTime);
+        return order;
+    }
+
+    // A product as it was when archived; it shares the ordinal of its id but no stock
+    private static Product detached(String id, String name, String category, int priceCents, int prepTime) {
+        return new Product(id, name, "", category, priceCents / 100.0, 0, prepTime);
+    }
+
+    private static byte[] utf8(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) throw new IllegalArgumentException("String too long to archive");
+        return bytes;
+    }
+
+    private static int putString(MappedByteBuffer buffer, int position, byte[] bytes) {
+        buffer.putShort(position, (short) bytes.length);
+        ByteBuffer target = buffer.duplicate();
+        target.position(position + 2);
+        target.put(bytes);
+        return position + 2 + bytes.length;
+    }
+
+    private static String getString(MappedByteBuffer buffer, int position) {
+        byte[] bytes = new byte[buffer.getShort(position)];
+        ByteBuffer source = buffer.duplicate(); // Own position, so readers do not disturb each other
+        source.position(position + 2);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,400 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// The day's orders with secondary indexes: by time (sorted by timestamp), customer, product ordinal, order
+// type and completion state. Every index bucket keeps its own size, so a query walks only the smallest
+// bucket that matches it and checks the other conditions on each order: "pending pre-orders" or "Latte
+// orders between 12:00 and 13:00" cost time in proportion to the answer, not to the day's volume.
+// Inserts and queries run concurrently without a global lock; a query sees a weakly consistent view
+// (an order being added may show up in one index a moment before the others).
+// Finished orders can be evicted once the columnar store or the archive holds them; with those attached,
+// queries cover every tier.
+public class OrderHistoryStore implements OrderObserver {
+    public enum State { PENDING, COMPLETED, CANCELLED }
+
+    private static final long NO_TIME = -1; // Timestamps that are not "yyyy-MM-dd HH:mm:ss"
+
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Map<String, Order> byId = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Bucket> byTime = new ConcurrentSkipListMap<>();
+    private final Map<String, Bucket> byCustomer = new ConcurrentHashMap<>();
+    private final Map<Integer, Bucket> byProduct = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> byType = new ConcurrentHashMap<>();
+    // Pending orders per type in insertion order, so they can be removed once completed or cancelled
+    private final Map<String, Bucket> pendingByType = new ConcurrentHashMap<>();
+    private final Bucket completed = new Bucket();
+    private final Bucket cancelled = new Bucket();
+    private final Map<Order, Long> sequences = new ConcurrentHashMap<>(); // Order does not override equals
+    // Adds share it, evict takes it alone, so an add never lands in a bucket that evict is dropping
+    private final ReadWriteLock evictLock = new ReentrantReadWriteLock();
+    private volatile ColumnarOrderStore columns;
+    private volatile OrderArchive archive;
+
+    // Orders with one key in insertion order, keyed by insertion sequence so one can be removed in O(log n)
+    // (ConcurrentSkipListMap.size() is not O(1), so count separately)
+    private static class Bucket {
+        final ConcurrentSkipListMap<Long, Order> orders = new ConcurrentSkipListMap<>();
+        final AtomicInteger size = new AtomicInteger();
+
+        void add(long sequence, Order order) {
+            orders.put(sequence, order);
+            size.incrementAndGet();
+        }
+
+        // Returns whether the order was in the bucket
+        boolean remove(long sequence) {
+            if (orders.remove(sequence) == null) return false;
+            size.decrementAndGet();
+            return true;
+        }
+    }
+
+    // Conditions of a query; unset ones match everything
+    public static class Query {
+        String from;
+        String to;
+        String customer;
+        Product product;
+        String type;
+        State state;
+
+        // Timestamps as "yyyy-MM-dd HH:mm:ss"; from is inclusive, to exclusive
+        public Query between(String from, String to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        public Query customer(String customer) {
+            this.customer = customer;
+            return this;
+        }
+
+        public Query product(Product product) {
+            this.product = product;
+            return this;
+        }
+
+        public Query type(String type) {
+            this.type = type;
+            return this;
+        }
+
+        public Query state(State state) {
+            this.state = state;
+            return this;
+        }
+    }
+
+    public static Query query() {
+        return new Query();
+    }
+
+    // Where finished orders go once evicted; find, getById and size then include them
+    public void setColumns(ColumnarOrderStore columns) {
+        this.columns = columns;
+    }
+
+    // Where archived orders went; find, getById and size then include them
+    public void setArchive(OrderArchive archive) {
+        this.archive = archive;
+    }
+
+    public void add(Order order) {
+        evictLock.readLock().lock();
+        try {
+            addIndexed(order);
+        } finally {
+            evictLock.readLock().unlock();
+        }
+    }
+
+    private void addIndexed(Order order) {
+        long sequence = nextSequence.getAndIncrement();
+        if (sequences.putIfAbsent(order, sequence) != null) return; // Already stored
+        byId.put(order.getOrderId(), order);
+        byTime.computeIfAbsent(timeKey(order.getTimeStamp()), k -> new Bucket()).add(sequence, order);
+        byCustomer.computeIfAbsent(order.getCustomerName(), k -> new Bucket()).add(sequence, order);
+        byType.computeIfAbsent(order.getOrderType(), k -> new Bucket()).add(sequence, order);
+        BitSet seen = new BitSet();
+        for (Product product : order.getItems()) {
+            if (!seen.get(product.getOrdinal())) {
+                seen.set(product.getOrdinal());
+                byProduct.computeIfAbsent(product.getOrdinal(), k -> new Bucket()).add(sequence, order);
+            }
+        }
+        pendingByType.computeIfAbsent(order.getOrderType(), k -> new Bucket()).add(sequence, order);
+        size.incrementAndGet();
+        if (!order.addCompletionObserver(this)) {
+            // Finished before we could watch it
+            if (order.isCancelled()) {
+                onOrderCancelled(order);
+            } else {
+                onOrderCompleted(order);
+            }
+        }
+    }
+
+    // Orders in memory plus those in the columns and the archive
+    public int size() {
+        ColumnarOrderStore finished = columns;
+        OrderArchive cold = archive;
+        return size.get() + (finished == null ? 0 : finished.getFinishedCount()) + (cold == null ? 0 : cold.size());
+    }
+
+    public Order getById(String orderId) {
+        Order order = byId.get(orderId);
+        ColumnarOrderStore finished = columns;
+        if (order == null && finished != null) order = finished.getById(orderId);
+        OrderArchive cold = archive;
+        return order != null || cold == null ? order : cold.getById(orderId);
+    }
+
+    // Pending orders of one type (null = any type), oldest first within a type
+    public List<Order> findPending(String type) {
+        List<Order> result = new ArrayList<>();
+        if (type == null) {
+            pendingByType.values().forEach(pending -> result.addAll(pending.orders.values()));
+        } else if (pendingByType.containsKey(type)) {
+            result.addAll(pendingByType.get(type).orders.values());
+        }
+        return result;
+    }
+
+    // Pending orders of one type (null = any type)
+    public int countPending(String type) {
+        if (type == null) return size.get() - completed.size.get() - cancelled.size.get();
+        Bucket pending = pendingByType.get(type);
+        return pending == null ? 0 : pending.size.get();
+    }
+
+    public List<Order> findByState(State state) {
+        return find(query().state(state));
+    }
+
+    public List<Order> findByCustomer(String customer) {
+        return find(query().customer(customer));
+    }
+
+    public List<Order> findByProduct(Product product) {
+        return find(query().product(product));
+    }
+
+    public List<Order> findByTime(String from, String to) {
+        return find(query().between(from, to));
+    }
+
+    // Matching orders in memory, then matching finished ones in the columns, then archived ones (only
+    // completed orders are archived)
+    public List<Order> find(Query query) {
+        List<Order> result = findInMemory(query);
+        ColumnarOrderStore finished = columns;
+        OrderArchive cold = archive;
+        boolean inColumns = finished != null && query.state != State.PENDING;
+        boolean inArchive = cold != null && cold.size() > 0 && query.state != State.PENDING && query.state != State.CANCELLED;
+        if (!inColumns && !inArchive) return result;
+        // An order being evicted is briefly in two tiers
+        Set<String> seen = new HashSet<>();
+        for (Order order : result) {
+            seen.add(order.getOrderId());
+        }
+        if (inColumns) {
+            List<Order> fromColumns = finished.find(query);
+            addUnseen(result, seen, fromColumns);
+            for (Order order : fromColumns) {
+                seen.add(order.getOrderId());
+            }
+        }
+        if (inArchive) addUnseen(result, seen, cold.find(query));
+        return result;
+    }
+
+    private static void addUnseen(List<Order> result, Set<String> seen, List<Order> orders) {
+        for (Order order : orders) {
+            if (!seen.contains(order.getOrderId())) result.add(order);
+        }
+    }
+
+    // Walk the smallest index bucket the query selects and keep the orders that match everything
+    private List<Order> findInMemory(Query query) {
+        Collection<Order> candidates = null;
+        int best = Integer.MAX_VALUE;
+        if (query.customer != null) {
+            Bucket bucket = byCustomer.get(query.customer);
+            if (bucket == null) return new ArrayList<>();
+            candidates = bucket.orders.values();
+            best = bucket.size.get();
+        }
+        if (query.product != null) {
+            Bucket bucket = byProduct.get(query.product.getOrdinal());
+            if (bucket == null) return new ArrayList<>();
+            if (bucket.size.get() < best) {
+                candidates = bucket.orders.values();
+                best = bucket.size.get();
+            }
+        }
+        if (query.state == State.PENDING) {
+            int pending = countPending(query.type);
+            if (pending < best) {
+                candidates = findPending(query.type);
+                best = pending;
+            }
+        } else if (query.state != null) {
+            Bucket bucket = query.state == State.COMPLETED ? completed : cancelled;
+            if (bucket.size.get() < best) {
+                candidates = bucket.orders.values();
+                best = bucket.size.get();
+            }
+        }
+        if (query.type != null && query.state != State.PENDING) {
+            Bucket bucket = byType.get(query.type);
+            if (bucket == null) return new ArrayList<>();
+            if (bucket.size.get() < best) {
+                candidates = bucket.orders.values();
+                best = bucket.size.get();
+            }
+        }
+        if (query.from != null) {
+            Map<Long, Bucket> range = byTime.subMap(timeKey(query.from), true, timeKey(query.to), false);
+            int inRange = 0;
+            for (Bucket bucket : range.values()) {
+                inRange += bucket.size.get();
+                if (inRange >= best) break;
+            }
+            if (inRange < best) {
+                List<Order> orders = new ArrayList<>(inRange);
+                for (Bucket bucket : range.values()) {
+                    orders.addAll(bucket.orders.values());
+                }
+                candidates = orders;
+            }
+        }
+        if (candidates == null) {
+            candidates = byId.values(); // No condition at all
+        }
+
+        List<Order> result = new ArrayList<>();
+        for (Order order : candidates) {
+            if (matches(order, query)) result.add(order);
+        }
+        return result;
+    }
+
+    // Take orders out of every index, once the columns or the archive hold them
+    public void evict(Collection<Order> orders) {
+        evictLock.writeLock().lock();
+        try {
+            for (Order order : orders) {
+                Long sequence = sequences.remove(order);
+                if (sequence == null) continue; // Not stored here
+                byId.remove(order.getOrderId(), order);
+                // Buckets keyed by time and customer keep coming, so drop them once empty
+                long time = timeKey(order.getTimeStamp());
+                Bucket bucket = byTime.get(time);
+                if (bucket != null && bucket.remove(sequence) && bucket.size.get() == 0) byTime.remove(time, bucket);
+                bucket = byCustomer.get(order.getCustomerName());
+                if (bucket != null && bucket.remove(sequence) && bucket.size.get() == 0) {
+                    byCustomer.remove(order.getCustomerName(), bucket);
+                }
+                bucket = byType.get(order.getOrderType());
+                if (bucket != null) bucket.remove(sequence);
+                for (Product product : order.getItems()) {
+                    bucket = byProduct.get(product.getOrdinal());
+                    if (bucket != null) bucket.remove(sequence);
+                }
+                bucket = pendingByType.get(order.getOrderType());
+                if (bucket != null) bucket.remove(sequence);
+                completed.remove(sequence);
+                cancelled.remove(sequence);
+                size.decrementAndGet();
+            }
+        } finally {
+            evictLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onOrderUpdated(Order order) {
+    }
+
+    @Override
+    public void onOrderCompleted(Order order) {
+        finished(order, completed);
+    }
+
+    @Override
+    public void onOrderCancelled(Order order) {
+        finished(order, cancelled);
+    }
+
+    // Move an order from the pending index to its final state, unless it was evicted already
+    private void finished(Order order, Bucket state) {
+        evictLock.readLock().lock();
+        try {
+            Long sequence = sequences.get(order);
+            Bucket pending = pendingByType.get(order.getOrderType());
+            if (sequence != null && pending != null && pending.remove(sequence)) state.add(sequence, order);
+        } finally {
+            evictLock.readLock().unlock();
+        }
+    }
+
+    static boolean matches(Order order, Query query) {
+        if (query.customer != null && !query.customer.equals(order.getCustomerName())) return false;
+        if (query.type != null && !query.type.equals(order.getOrderType())) return false;
+        if (query.state != null && stateOf(order) != query.state) return false;
+        if (query.product != null && !contains(order, query.product)) return false;
+        if (query.from != null) {
+            long time = timeKey(order.getTimeStamp());
+            if (time < timeKey(query.from) || time >= timeKey(query.to)) return false;
+        }
+        return true;
+    }
+
+    private static State stateOf(Order order) {
+        if (order.isCancelled()) return State.CANCELLED;
+        return order.isCompleted() ? State.COMPLETED : State.PENDING;
+    }
+
+    private static boolean contains(Order order, Product product) {
+        for (Product item : order.getItems()) {
+            if (item.getOrdinal() == product.getOrdinal()) return true;
+        }
+        return false;
+    }
+
+    // "yyyy-MM-dd HH:mm:ss" as the number yyyyMMddHHmmss, which sorts like the time; NO_TIME otherwise
+    static long timeKey(String timestamp) {
+        if (timestamp == null || timestamp.length() != 19) return NO_TIME;
+        long key = 0;
+        for (int i = 0; i < 19; i++) {
+            char c = timestamp.charAt(i);
+            if (i == 4 || i == 7) {
+                if (c != '-') return NO_TIME;
+            } else if (i == 10) {
+                if (c != ' ') return NO_TIME;
+            } else if (i == 13 || i == 16) {
+                if (c != ':') return NO_TIME;
+            } else if (c >= '0' && c <= '9') {
+                key = key * 10 + (c - '0');
+            } else {
+                return NO_TIME;
+            }
+        }
+        return key;
+    }
+}
@@ -4,32 +4,54 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
-// Order management class
-public class OrderManager {
-    private List<Order> orders;
-    private double totalRevenue;
+// Order management class. Only pending orders are held as Order objects; once an order is completed or
+// cancelled it lives on as a row of the columnar store, which queries and pages read it back from.
+public class OrderManager implements OrderObserver {
+    private final ConcurrentSkipListMap<Integer, Order> pending = new ConcurrentSkipListMap<>(); // By column row
+    private volatile double totalRevenue;
 
     // New category statistics fields
-    private double preOrderRevenue;
-    private double walkInRevenue;
-    private Map<Product, Integer> preOrderProductCounts;
-    private Map<Product, Integer> walkInProductCounts;
+    private volatile double preOrderRevenue;
+    private volatile double walkInRevenue;
+    private ProductCounts preOrderProductCounts; // Indexed by product ordinal
+    private ProductCounts walkInProductCounts;
+    private int cancelledCount; // Rejected or shed orders, kept in the columns but not in the sales figures
+    private final CompletionTracker completionTracker = new CompletionTracker();
+    private final OrderHistoryStore history = new OrderHistoryStore(); // Indexed view for queries
+    private final ColumnarOrderStore columns = new ColumnarOrderStore(); // Every order; the history of finished ones
+    private volatile OrderArchive archive; // Durable copy of old completed orders, null when retention is off
+    private volatile long retentionMillis;
+    private volatile int archivedCount; // Orders of this run written to the archive
+    private final Object compactLock = new Object();
+    private final List<Consumer<Order>> orderListeners = new CopyOnWriteArrayList<>();
 
     public OrderManager() {
-        this.orders = new ArrayList<>();
         this.totalRevenue = 0;
         this.preOrderRevenue = 0;
         this.walkInRevenue = 0;
-        this.preOrderProductCounts = new HashMap<>();
-        this.walkInProductCounts = new HashMap<>();
+        this.preOrderProductCounts = new ProductCounts();
+        this.walkInProductCounts = new ProductCounts();
+        history.setColumns(columns);
     }
 
-    public void addOrder(Order order) {
-        orders.add(order);
+    public synchronized void addOrder(Order order) {
+        int row = columns.append(order);
+        order.setColumnRow(row);
+        pending.put(row, order);
+        completionTracker.track(order);
+        history.add(order);
+        for (Consumer<Order> listener : orderListeners) {
+            listener.accept(order);
+        }
 
         // Update revenue statistics
         double orderTotal = order.getTotalPrice();
@@ -42,25 +64,79 @@ public class OrderManager {
             walkInRevenue += orderTotal;
             updateProductCounts(order, walkInProductCounts);
         }
+        if (!order.addCompletionObserver(this)) {
+            onOrderCompleted(order); // Finished before it was added
+        }
+    }
+
+    @Override
+    public void onOrderUpdated(Order order) {
+    }
+
+    // The row now holds everything kept about the order, so the object can go
+    @Override
+    public void onOrderCompleted(Order order) {
+        columns.finish(order.getColumnRow(), order);
+        history.evict(Collections.singletonList(order));
+        pending.remove(order.getColumnRow(), order);
+    }
+
+    @Override
+    public void onOrderCancelled(Order order) {
+        onOrderCompleted(order);
+    }
+
+    // Record a batch of orders under one lock acquisition
+    public synchronized void addOrders(List<Order> batch) {
+        for (Order order : batch) {
+            addOrder(order);
+        }
+    }
+
+    // Cancel an order that will not be served (e.g. shed under overload) and take it out of the sales figures.
+    // Stock reserved for the order goes back on the shelf.
+    public synchronized boolean cancelOrder(Order order) {
+        if (!order.cancelOrder()) return false;
+        cancelledCount++;
+        double orderTotal = order.getTotalPrice();
+        totalRevenue -= orderTotal;
+        if ("PRE_ORDER".equals(order.getOrderType())) {
+            preOrderRevenue -= orderTotal;
+            removeProductCounts(order, preOrderProductCounts);
+        } else {
+            walkInRevenue -= orderTotal;
+            removeProductCounts(order, walkInProductCounts);
+        }
+        if (order.isStockReserved()) {
+            Map<Product, Integer> quantities = new LinkedHashMap<>();
+            for (Product product : order.getItems()) {
+                quantities.merge(product, 1, Integer::sum);
+            }
+            quantities.forEach(Product::restoreStock);
+        }
+        return true;
     }
 
     // Generate sales report and return as a string
-    public String generateReport() {
+    public synchronized String generateReport() {
         StringBuilder report = new StringBuilder();
 
         report.append("=== Daily Sales Report ===\n\n");
         report.append("=== Pre-order Sales ===\n");
-        report.append(printCategoryReport(getPreOrderProductCounts(), getPreOrderRevenue()));
+        report.append(printCategoryReport(preOrderProductCounts, getPreOrderRevenue()));
 
         report.append("\n=== Walk-in Sales ===\n");
-        report.append(printCategoryReport(getWalkInProductCounts(), getWalkInRevenue()));
+        report.append(printCategoryReport(walkInProductCounts, getWalkInRevenue()));
 
         report.append("\n=== Total Orders Summary ===\n");
         report.append(String.format("Total Sales: $%.2f\n", totalRevenue));
-        report.append("Total Orders: ").append(orders.size()).append("\n");
+        report.append("Total Orders: ").append(columns.size() - cancelledCount).append("\n");
+        if (cancelledCount > 0) {
+            report.append("Cancelled Orders: ").append(cancelledCount).append("\n");
+        }
         report.append("Among them:\n");
-        report.append("- Pre-order Sales: ").append(preOrderProductCounts.values().stream().mapToInt(i -> i).sum()).append(" items\n");
-        report.append("- Walk-in Sales: ").append(walkInProductCounts.values().stream().mapToInt(i -> i).sum()).append(" items\n");
+        report.append("- Pre-order Sales: ").append(preOrderProductCounts.total()).append(" items\n");
+        report.append("- Walk-in Sales: ").append(walkInProductCounts.total()).append(" items\n");
 
         // Print to terminal
         System.out.println(report);
@@ -68,41 +144,50 @@ public class OrderManager {
         return report.toString();
     }
 
-    private String printCategoryReport(Map<Product, Integer> productCounts, double revenue) {
+    private String printCategoryReport(ProductCounts productCounts, double revenue) {
         StringBuilder report = new StringBuilder();
 
         report.append("Product Sales Details:\n");
-        productCounts.entrySet().stream()
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                .forEach(entry -> {
-                    Product p = entry.getKey();
-                    report.append(String.format("%-20s ×%-4d $%-8.2f (Subtotal: $%.2f)\n",
-                            p.getName(),
-                            entry.getValue(),
-                            p.getPrice(),
-                            p.getPrice() * entry.getValue()));
-                });
+        for (Product p : productCounts.byCountDescending()) {
+            int count = productCounts.get(p);
+            report.append(String.format("%-20s ×%-4d $%-8.2f (Subtotal: $%.2f)\n",
+                    p.getName(),
+                    count,
+                    p.getPrice(),
+                    p.getPrice() * count));
+        }
         report.append("----------------------------\n");
         report.append(String.format("Total sales for this order type: $%.2f\n", revenue));
-        report.append("Number of product types: ").append(productCounts.size()).append("\n");
+        report.append("Number of product types: ").append(productCounts.distinct()).append("\n");
 
         return report.toString();
     }
 
-    private void updateProductCounts(Order order, Map<Product, Integer> countsMap) {
+    private void updateProductCounts(Order order, ProductCounts counts) {
         for (Product product : order.getItems()) {
-            countsMap.put(product, countsMap.getOrDefault(product, 0) + 1);
+            counts.add(product, 1);
             product.incrementOrderCount(1);
         }
     }
 
+    private void removeProductCounts(Order order, ProductCounts counts) {
+        for (Product product : order.getItems()) {
+            counts.add(product, -1);
+            product.incrementOrderCount(-1);
+        }
+    }
+
     // New category statistics methods
-    public Map<Product, Integer> getPreOrderProductCounts() {
-        return new HashMap<>(preOrderProductCounts);
+    public synchronized Map<Product, Integer> getPreOrderProductCounts() {
+        return preOrderProductCounts.toMap();
+    }
+
+    public synchronized Map<Product, Integer> getWalkInProductCounts() {
+        return walkInProductCounts.toMap();
     }
 
-    public Map<Product, Integer> getWalkInProductCounts() {
-        return new HashMap<>(walkInProductCounts);
+    public double getTotalRevenue() {
+        return totalRevenue;
     }
 
     public double getPreOrderRevenue() {
@@ -113,9 +198,90 @@ public class OrderManager {
         return walkInRevenue;
     }
 
-    // Get all orders
+    public CompletionTracker getCompletionTracker() {
+        return completionTracker;
+    }
+
+    // Orders added but not completed yet (O(1))
+    public int getOutstandingOrderCount() {
+        return completionTracker.getOutstandingCount();
+    }
+
+    // Called with each order as it is added, under the order lock
+    public void addOrderListener(Consumer<Order> listener) {
+        orderListeners.add(listener);
+    }
+
+    // Write completed orders older than maxAgeMillis to the archive on each compact()
+    public void enableRetention(OrderArchive archive, long maxAgeMillis) {
+        if (maxAgeMillis < 0) throw new IllegalArgumentException("Retention age cannot be negative");
+        this.retentionMillis = maxAgeMillis;
+        this.archive = archive;
+        history.setArchive(archive);
+    }
+
+    // Archive the orders that completed more than the retention age before now; returns how many were written.
+    // Their rows stay in the columns for the aggregates; lookups go to the archive from then on.
+    // Writing the archive happens outside the order lock, so orders keep coming in meanwhile.
+    public int compact(long now) throws IOException {
+        OrderArchive target = archive;
+        if (target == null) return 0;
+        synchronized (compactLock) {
+            int[] rows = columns.completedBefore(now - retentionMillis);
+            if (rows.length == 0) return 0;
+            List<Order> old = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                old.add(columns.read(row));
+            }
+            target.append(old);
+            columns.archive(rows);
+            archivedCount += rows.length;
+            return rows.length;
+        }
+    }
+
+    public OrderArchive getArchive() {
+        return archive;
+    }
+
+    // Orders still held as objects, i.e. pending ones
+    public int getHotOrderCount() {
+        return pending.size();
+    }
+
+    // Get the pending orders (a copy; use getHistory() or getOrdersPage() for finished ones too)
     public List<Order> getOrders() {
-        return orders;
+        return getOrdersSnapshot();
+    }
+
+    public OrderHistoryStore getHistory() {
+        return history;
+    }
+
+    public ColumnarOrderStore getColumns() {
+        return columns;
+    }
+
+    // Copy of the pending orders in the order they were added, safe to iterate while orders keep coming
+    public List<Order> getOrdersSnapshot() {
+        return new ArrayList<>(pending.values());
+    }
+
+    // One page of orders, newest first: skip offset orders, return at most limit. Pending orders are the live
+    // objects, finished ones are read back from the columns; archived orders of earlier runs come last.
+    public List<Order> getOrdersPage(int offset, int limit) {
+        int rows = columns.size();
+        List<Order> page = new ArrayList<>(Math.max(0, Math.min(limit, rows - offset)));
+        for (int row = rows - 1 - offset; row >= 0 && page.size() < limit; row--) {
+            Order order = pending.get(row);
+            page.add(order != null ? order : columns.read(row));
+        }
+        OrderArchive cold = archive;
+        if (cold != null && page.size() < limit) {
+            // The newest archivedCount archived orders are from this run and already listed from the columns
+            page.addAll(cold.newest(Math.max(0, offset - rows) + archivedCount, limit - page.size()));
+        }
+        return page;
     }
 
     // Load orders from a file
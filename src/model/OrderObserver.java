@@ -2,4 +2,12 @@ package model;
 
 public interface OrderObserver {
     void onOrderUpdated(Order order);
+
+    // Called once, on the thread that completed the order
+    default void onOrderCompleted(Order order) {
+    }
+
+    // Called once if the order is cancelled before completion (e.g. shed from a full queue)
+    default void onOrderCancelled(Order order) {
+    }
 }
@@ -0,0 +1,7 @@
+package model;
+
+// Where a server gets its next order from: the shared OrderQueue by default, or a per-server local queue
+public interface OrderSource {
+    // Next order for this server, or null if none arrived within timeoutMillis
+    Order take(long timeoutMillis) throws InterruptedException;
+}
@@ -1,20 +1,45 @@
 package model;
 
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 // Product class
 public class Product {
+    // Every product id gets a dense int ordinal the first time it is seen, and keeps it for the life of the
+    // process, so counts kept in arrays indexed by ordinal stay valid when the menu is rebuilt
+    private static final Map<String, Integer> ORDINALS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_ORDINAL = new AtomicInteger();
+
     private String id;
     private String name;
     private String description;
     private String category;
     private double price;
-    private int stock;
+    private final AtomicInteger stock; // Shared by every version of the product, see revise()
     private int orderCount; // Tracks the number of times the product has been ordered
+    private int prepTime; // Preparation time per item in milliseconds (0 = use the server default)
+    private final int ordinal;
+    private final Category categoryType;
+    private final long priceCents;
+    private final boolean cake;
+    private volatile StockListener stockListener; // Told about every stock change, e.g. to journal it
 
     public Product(String id, String name, String description, String category, double price, int stock) {
+        this(id, name, description, category, price, stock, 0);
+    }
+
+    public Product(String id, String name, String description, String category, double price, int stock, int prepTime) {
+        this(id, name, description, category, price, new AtomicInteger(stock), prepTime);
+    }
+
+    private Product(String id, String name, String description, String category, double price, AtomicInteger stock, int prepTime) {
         if (id == null || id.isEmpty()) throw new IllegalArgumentException("Product ID cannot be empty");
         if (name == null || name.isEmpty()) throw new IllegalArgumentException("Product name cannot be empty");
         if (price <= 0) throw new IllegalArgumentException("Price must be greater than 0");
-        if (stock < 0) throw new IllegalArgumentException("Stock cannot be negative");
+        if (stock.get() < 0) throw new IllegalArgumentException("Stock cannot be negative");
+        if (prepTime < 0) throw new IllegalArgumentException("Preparation time cannot be negative");
 
         this.id = id;
         this.name = name;
@@ -23,24 +48,90 @@ public class Product {
         this.price = price;
         this.stock = stock;
         this.orderCount = 0;
+        this.prepTime = prepTime;
+        this.ordinal = ORDINALS.computeIfAbsent(id, k -> NEXT_ORDINAL.getAndIncrement());
+        this.categoryType = Category.of(category);
+        this.priceCents = Math.round(price * 100);
+        this.cake = "Cake".equals(name); // Cakes are recognised by name
+    }
+
+    // Upper bound of all ordinals handed out so far, for sizing per-ordinal arrays
+    public static int ordinalCount() {
+        return NEXT_ORDINAL.get();
+    }
+
+    // A new version of this product with the details (name, price, ...) of another one. Both share one stock
+    // counter, so holds and orders taken against the old version still count after a menu reload.
+    public Product revise(Product details) {
+        if (!id.equals(details.id)) throw new IllegalArgumentException("Cannot revise " + id + " with " + details.id);
+        Product revised = new Product(id, details.name, details.description, details.category, details.price, stock, details.prepTime);
+        revised.stockListener = stockListener;
+        return revised;
     }
 
-    // Method to reduce stock
+    // Same name, description, category, price and prep time (stock aside)
+    public boolean sameDetails(Product other) {
+        return id.equals(other.id) && name.equals(other.name) && Objects.equals(description, other.description)
+                && Objects.equals(category, other.category) && price == other.price && prepTime == other.prepTime;
+    }
+
+    // Method to reduce stock; check and update are one compare-and-set, so concurrent orders cannot oversell
     public void reduceStock(int quantity) throws OutOfStockException {
-        if (quantity > stock) {
-            throw new OutOfStockException("Insufficient stock");
+        while (true) {
+            int current = stock.get();
+            if (quantity > current) {
+                throw new OutOfStockException("Insufficient stock");
+            }
+            if (stock.compareAndSet(current, current - quantity)) break;
         }
-        stock -= quantity;
+        StockListener listener = stockListener;
+        if (listener != null) listener.onStockChanged(this, -quantity);
+    }
+
+    // Put back stock reserved by an order that was not accepted
+    public void restoreStock(int quantity) {
+        stock.addAndGet(quantity);
+        StockListener listener = stockListener;
+        if (listener != null) listener.onStockChanged(this, quantity);
+    }
+
+    public void setStockListener(StockListener stockListener) {
+        this.stockListener = stockListener;
+    }
+
+    // Set the stock to a saved level when recovering state; listeners are not told
+    void restoreStockLevel(int level) {
+        stock.set(level);
     }
 
     public double getPrice() {
         return price;
     }
 
+    public int getPrepTime() {
+        return prepTime;
+    }
+
     public String getCategory() {
         return category;
     }
 
+    public Category getCategoryType() {
+        return categoryType;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    public boolean isCake() {
+        return cake;
+    }
+
     public String getId() {
         return id;
     }
@@ -50,7 +141,7 @@ public class Product {
     }
 
     public int getStock() {
-        return stock;
+        return stock.get();
     }
 
     public String getName() {
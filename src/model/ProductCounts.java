@@ -0,0 +1,73 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Item counts per product, kept in an int[] indexed by product ordinal instead of a HashMap<Product, Integer>.
+// The arrays grow when a product with a higher ordinal turns up. Not thread-safe; the owner locks.
+public class ProductCounts {
+    private int[] counts;
+    private Product[] products; // The product last counted at each ordinal, for reporting
+    private int distinct;       // Ordinals with a count above 0
+    private long total;
+
+    public ProductCounts() {
+        this(Product.ordinalCount());
+    }
+
+    public ProductCounts(int expectedOrdinals) {
+        this.counts = new int[Math.max(expectedOrdinals, 8)];
+        this.products = new Product[counts.length];
+    }
+
+    public void add(Product product, int delta) {
+        int ordinal = product.getOrdinal();
+        if (ordinal >= counts.length) {
+            int size = Math.max(ordinal + 1, counts.length * 2);
+            counts = Arrays.copyOf(counts, size);
+            products = Arrays.copyOf(products, size);
+        }
+        int before = counts[ordinal];
+        int after = Math.max(0, before + delta);
+        counts[ordinal] = after;
+        products[ordinal] = product;
+        total += after - before;
+        if (before == 0 && after > 0) distinct++;
+        if (before > 0 && after == 0) distinct--;
+    }
+
+    public int get(Product product) {
+        int ordinal = product.getOrdinal();
+        return ordinal < counts.length ? counts[ordinal] : 0;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    // Number of products with a count above 0
+    public int distinct() {
+        return distinct;
+    }
+
+    // Products with a count above 0, highest count first (ties in ordinal order)
+    public List<Product> byCountDescending() {
+        List<Product> result = new ArrayList<>(distinct);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) result.add(products[i]);
+        }
+        result.sort((a, b) -> Integer.compare(get(b), get(a)));
+        return result;
+    }
+
+    public Map<Product, Integer> toMap() {
+        Map<Product, Integer> map = new HashMap<>(distinct * 2);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) map.put(products[i], counts[i]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,120 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// In-memory search over a fixed product list: word-prefix matching on name and ID, plus a category filter.
+// Every word of a product is one entry in a sorted array, so a prefix is two binary searches: O(log n + matches).
+// Category membership is a bitset per category; results keep the original product order.
+// Immutable after construction, so any thread may search.
+public class ProductSearchIndex {
+    public static final String ALL_CATEGORIES = "All";
+
+    private final Product[] products;
+    private final String[] words;     // Sorted lower-case words
+    private final int[] wordProducts; // Product index of each word
+    private final Map<String, BitSet> categories = new LinkedHashMap<>();
+
+    public ProductSearchIndex(List<Product> products) {
+        this.products = products.toArray(new Product[0]);
+
+        List<String> entries = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int i = 0; i < this.products.length; i++) {
+            Product product = this.products[i];
+            for (String word : tokenize(product.getName() + " " + product.getId())) {
+                entries.add(word);
+                owners.add(i);
+            }
+            categories.computeIfAbsent(product.getCategory(), c -> new BitSet()).set(i);
+        }
+
+        // Sort word positions by word, then lay both arrays out in that order
+        String[] unsorted = entries.toArray(new String[0]);
+        Integer[] order = new Integer[unsorted.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> unsorted[a].compareTo(unsorted[b]));
+        this.words = new String[order.length];
+        this.wordProducts = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            words[i] = unsorted[order[i]];
+            wordProducts[i] = owners.get(order[i]);
+        }
+    }
+
+    // Categories in menu order
+    public List<String> getCategories() {
+        return new ArrayList<>(categories.keySet());
+    }
+
+    // Products in the category (or ALL_CATEGORIES / null) having a word starting with each query word
+    public List<Product> search(String query, String category) {
+        BitSet matches;
+        if (category == null || ALL_CATEGORIES.equals(category)) {
+            matches = new BitSet(products.length);
+            matches.set(0, products.length);
+        } else {
+            BitSet members = categories.get(category);
+            if (members == null) return Collections.emptyList();
+            matches = (BitSet) members.clone();
+        }
+
+        for (String prefix : tokenize(query == null ? "" : query)) {
+            matches.and(prefixMatches(prefix));
+            if (matches.isEmpty()) break;
+        }
+
+        List<Product> result = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            result.add(products[i]);
+        }
+        return result;
+    }
+
+    private BitSet prefixMatches(String prefix) {
+        BitSet result = new BitSet(products.length);
+        // Words with the prefix form one run in sorted order: [first word >= prefix, first word >= prefix + max char)
+        int from = lowerBound(prefix);
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+        for (int i = from; i < to; i++) {
+            result.set(wordProducts[i]);
+        }
+        return result;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = words.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (words[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Lower-case runs of letters and digits
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,55 @@
+package model;
+
+// Small change event published by OrderQueue and ServerThread for observers
+public class QueueEvent {
+    public enum Type {
+        ADDED,      // Order entered the queue
+        TAKEN,      // A server took the order from the queue
+        COMPLETED,  // The server finished the order
+        REMOVED     // Order left the queue without being served (shed under overload)
+    }
+
+    private final Type type;
+    private final Order order;
+    private final String serverName; // Null for ADDED and REMOVED
+    private final long timestamp;
+
+    private QueueEvent(Type type, Order order, String serverName) {
+        this.type = type;
+        this.order = order;
+        this.serverName = serverName;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public static QueueEvent added(Order order) {
+        return new QueueEvent(Type.ADDED, order, null);
+    }
+
+    public static QueueEvent taken(Order order, String serverName) {
+        return new QueueEvent(Type.TAKEN, order, serverName);
+    }
+
+    public static QueueEvent completed(Order order, String serverName) {
+        return new QueueEvent(Type.COMPLETED, order, serverName);
+    }
+
+    public static QueueEvent removed(Order order) {
+        return new QueueEvent(Type.REMOVED, order, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public String getServerName() {
+        return serverName;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -4,7 +4,11 @@ import java.util.List;
 
 // Observer interface
 public interface QueueObserver {
+    // Full state: sent when the simulation starts, when it stops and after dropped events
     void updateQueue(List<Order> orders);
 
     void updateServers(List<ServerThread> servers);
+
+    // Incremental changes in publication order; the list may be kept by the observer
+    void onQueueEvents(List<QueueEvent> events);
 }
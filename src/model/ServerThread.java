@@ -1,21 +1,38 @@
 package model;
 
 import util.CoffeeShopLogger;
+import util.MetricsRegistry;
 import util.OrderQueue;
+import util.ShopEvents;
 
 import java.util.stream.Collectors;
 
 // Waiter thread
 public class ServerThread extends Thread {
-    private OrderQueue orderQueue;
-    private Order currentOrder;
-    private boolean running;
+    public static final double[] LATENCY_BUCKETS = {0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 2, 5, 10, 20, 30, 60, 120, 300};
+    protected static final MetricsRegistry.Counter ORDERS_COMPLETED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_orders_completed_total", "Orders completed by servers (use rate() for orders/sec)");
+    public static final MetricsRegistry.Histogram QUEUE_WAIT = MetricsRegistry.getInstance().histogram(
+            "coffeeshop_queue_wait_seconds", "Time orders spent in the queue before a server took them", LATENCY_BUCKETS);
+    protected static final MetricsRegistry.Histogram SERVICE_TIME = MetricsRegistry.getInstance().histogram(
+            "coffeeshop_service_seconds", "Time servers spent preparing an order", LATENCY_BUCKETS);
+    protected static final MetricsRegistry.Histogram RESPONSE_TIME = MetricsRegistry.getInstance().histogram(
+            "coffeeshop_response_seconds", "Generated orders: intended arrival to completion (no coordinated omission)", LATENCY_BUCKETS);
+
+    protected OrderQueue orderQueue;
+    protected volatile Order currentOrder;
+    protected volatile boolean running;
+    protected volatile boolean retiring; // Finish the current order, then leave the pool
     private int serveTime; // Service time (milliseconds)
+    protected ServiceTimeModel serviceTimeModel;
+    private volatile OrderSource orderSource; // null = take straight from the shared queue
+    private volatile long completedCount;
 
     public ServerThread(String name, OrderQueue orderQueue, int serveTime) {
         super(name);
         this.orderQueue = orderQueue;
         this.serveTime = serveTime;
+        this.serviceTimeModel = new ServiceTimeModel(serveTime);
         this.running = true;
     }
 
@@ -56,7 +73,7 @@ public class ServerThread extends Thread {
     @Override
     public void run() {
         CoffeeShopLogger.getInstance().logEvent(getName() + " has started working");
-        while (running || orderQueue.getQueueSize() > 0) {
+        while ((running || orderQueue.getQueueSize() > 0) && !retiring) {
             try {
                 synchronized (this) {
                     while (!running && orderQueue.getQueueSize() > 0) {
@@ -67,18 +84,41 @@ public class ServerThread extends Thread {
                     }
                 }
 
-                Order order = orderQueue.getNextOrder();
-                if (order == null) continue; // Safety check
+                OrderSource source = orderSource;
+                // Timed take so a retiring server notices within 100ms
+                Order order = source != null ? source.take(100) : orderQueue.getNextOrder(100);
+                if (order == null) continue; // Nothing arrived yet
 
                 currentOrder = order;
+                orderQueue.publish(QueueEvent.taken(order, getName()));
+                long startedAt = System.currentTimeMillis();
+                QUEUE_WAIT.observe((startedAt - order.getEnqueueTime()) / 1000.0);
+
+                ShopEvents.ServiceStarted started = new ShopEvents.ServiceStarted();
+                if (started.isEnabled()) {
+                    started.server = getName();
+                    started.orderId = order.getOrderId();
+                    started.itemCount = order.getItems().size();
+                    started.commit();
+                }
+                ShopEvents.ServiceCompleted completed = new ShopEvents.ServiceCompleted();
+                completed.begin();
                 try {
-                    CoffeeShopLogger.getInstance().logEvent(getName() + " starts processing order: " + getCurrentOrderDetails());
+                    if (CoffeeShopLogger.getInstance().isEnabled()) {
+                        CoffeeShopLogger.getInstance().logEvent(getName() + " starts processing order: " + getCurrentOrderDetails());
+                    }
 
-                    // Processing time is proportional to the number of items
-                    int processingTime = serveTime * order.getItems().size();
-                    Thread.sleep(processingTime);
+                    // Processing time is the sum of the items' preparation times
+                    Thread.sleep(serviceTimeModel.orderTime(order));
 
-                    order.completeOrder();
+                    finishOrder(order, startedAt);
+                    completed.end();
+                    if (completed.shouldCommit()) {
+                        completed.server = getName();
+                        completed.orderId = order.getOrderId();
+                        completed.itemCount = order.getItems().size();
+                        completed.commit();
+                    }
                     CoffeeShopLogger.getInstance().logEvent(getName() + " completed order: " + order.getOrderId());
                 } finally {
                     currentOrder = null;
@@ -93,12 +133,45 @@ public class ServerThread extends Thread {
         CoffeeShopLogger.getInstance().logEvent(getName() + " has finished working");
     }
 
+    // Complete an order and record it; startedAt is when preparation began
+    protected void finishOrder(Order order, long startedAt) {
+        completedCount++; // Only this thread writes it; counted before completion wakes any awaiter
+        order.completeOrder();
+        orderQueue.publish(QueueEvent.completed(order, getName()));
+        ORDERS_COMPLETED.inc();
+        SERVICE_TIME.observe((System.currentTimeMillis() - startedAt) / 1000.0);
+        if (order.getScheduledTime() > 0) {
+            RESPONSE_TIME.observe((System.nanoTime() - order.getScheduledTime()) / 1e9);
+        }
+    }
+
+    // Leave the pool after the current order (no interrupt, so the order in progress is finished)
+    public void retire() {
+        this.retiring = true;
+    }
+
+    public boolean isRetiring() {
+        return retiring;
+    }
+
     public void stopWorking() {
         this.running = false;
         this.interrupt();
     }
 
+    public void setOrderSource(OrderSource orderSource) {
+        this.orderSource = orderSource;
+    }
+
+    public void setServiceTimeModel(ServiceTimeModel serviceTimeModel) {
+        this.serviceTimeModel = serviceTimeModel;
+    }
+
     public Order getCurrentOrder() {
         return currentOrder;
     }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
 }
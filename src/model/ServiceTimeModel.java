@@ -0,0 +1,38 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Preparation time per item: the product's own prep time from the menu, else a per-category default,
+// else the server-wide serve time
+public class ServiceTimeModel {
+    private final int defaultTime;
+    private final Map<String, Integer> categoryTimes = new HashMap<>();
+
+    public ServiceTimeModel(int defaultTime) {
+        if (defaultTime < 0) throw new IllegalArgumentException("Service time cannot be negative");
+        this.defaultTime = defaultTime;
+    }
+
+    public ServiceTimeModel setCategoryTime(String category, int millis) {
+        if (millis < 0) throw new IllegalArgumentException("Service time cannot be negative");
+        categoryTimes.put(category, millis);
+        return this;
+    }
+
+    public long itemTime(Product product) {
+        if (product.getPrepTime() > 0) {
+            return product.getPrepTime();
+        }
+        return categoryTimes.getOrDefault(product.getCategory(), defaultTime);
+    }
+
+    // Total time for one server preparing every item of the order in turn
+    public long orderTime(Order order) {
+        long total = 0;
+        for (Product product : order.getItems()) {
+            total += itemTime(product);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,8 @@
+package model;
+
+// The shop cannot take an order right now (full queue or submission backlog); the caller may retry
+public class ShopBusyException extends Exception {
+    public ShopBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,601 @@
+package model;
+
+import util.CoffeeShopLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Keeps stock levels and pending orders across restarts: every stock change and every order accepted,
+// completed or cancelled is appended to a write-ahead log, and a compact binary snapshot is written
+// periodically. Recovery loads the newest snapshot and replays the log written since. Finished orders only
+// matter until the next snapshot, which leaves them out, so the state stays the size of the work in
+// flight however long the shop runs (order history is the archive's job).
+//
+// Writers only encode a record and append it to an in-memory batch; a background thread writes the batch
+// and fsyncs once every flushMillis (group commit), so a crash loses at most that much. The store keeps
+// its own copy of the state, built from the records it logged, so a snapshot always matches a log position
+// exactly, whatever the live objects are doing at that moment. Orders in that copy are rows of a few
+// arrays pointing at their encoded bytes, which after a restart are slices of the file just read: loading
+// does not build an object per order.
+//
+// Files in the directory: snapshot.bin, and wal-<n>.log with the records logged after snapshot n.
+public class ShopStateStore implements OrderObserver, StockListener, AutoCloseable {
+    private static final int SNAPSHOT_MAGIC = 0x43534E50; // "CSNP"
+    private static final int SNAPSHOT_VERSION = 3;
+    private static final byte STOCK_DELTA = 'S';
+    private static final byte STOCK_LEVEL = 'L';
+    private static final byte ACCEPTED = 'O';
+    private static final byte COMPLETED = 'C';
+    private static final byte CANCELLED = 'X';
+    private static final byte STATE_PENDING = 0;
+    private static final byte STATE_COMPLETED = 1;
+    private static final byte STATE_CANCELLED = 2;
+
+    private final Path directory;
+    private final long flushMillis;
+    private final long snapshotMillis;
+
+    // State as of the last logged record (guarded by this)
+    private final Map<String, Integer> stockLevels = new LinkedHashMap<>();
+    private OrderTable orders = new OrderTable(0);
+    private long walNumber;
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream(); // Logged, not written yet
+
+    private final Map<Order, Long> sequences = new ConcurrentHashMap<>(); // Pending orders we watch
+    private final Object flushLock = new Object();
+    private final Object snapshotLock = new Object();
+    private FileChannel wal; // Guarded by flushLock
+    private ScheduledExecutorService scheduler;
+    private final long recoveryNanos;
+
+    // Accepted orders by sequence number (order ids are not unique), in increasing sequence order: row r is
+    // sequence[r], and its encoded order (see encodeOrder) is data[r][offset[r] .. offset[r] + length[r])
+    private static class OrderTable {
+        long next; // Sequence number of the next accepted order
+        int size;
+        long[] sequence = new long[1024];
+        byte[][] data = new byte[1024][];
+        int[] offset = new int[1024];
+        int[] length = new int[1024];
+        byte[] state = new byte[1024];
+        long[] completedTime = new long[1024];
+
+        OrderTable(long next) {
+            this.next = next;
+        }
+
+        void add(long seq, byte[] bytes, int from, int count) {
+            if (size == data.length) {
+                int capacity = Math.max(1024, size * 2);
+                sequence = Arrays.copyOf(sequence, capacity);
+                data = Arrays.copyOf(data, capacity);
+                offset = Arrays.copyOf(offset, capacity);
+                length = Arrays.copyOf(length, capacity);
+                state = Arrays.copyOf(state, capacity);
+                completedTime = Arrays.copyOf(completedTime, capacity);
+            }
+            sequence[size] = seq;
+            data[size] = bytes;
+            offset[size] = from;
+            length[size] = count;
+            state[size] = STATE_PENDING;
+            completedTime[size] = 0;
+            size++;
+            next = seq + 1;
+        }
+
+        void setState(long seq, byte newState, long time) {
+            int row = Arrays.binarySearch(sequence, 0, size, seq);
+            if (row < 0) return; // Finished before the snapshot this table started from
+            state[row] = newState;
+            completedTime[row] = time;
+        }
+
+        // Only the pending rows, for the next snapshot
+        OrderTable pending() {
+            OrderTable pending = new OrderTable(next);
+            for (int row = 0; row < size; row++) {
+                if (state[row] == STATE_PENDING) pending.add(sequence[row], data[row], offset[row], length[row]);
+            }
+            pending.next = next;
+            return pending;
+        }
+
+        // The rows so far; encoded orders never change, so they are shared
+        OrderTable copy() {
+            OrderTable copy = new OrderTable(next);
+            copy.size = size;
+            copy.sequence = Arrays.copyOf(sequence, size);
+            copy.data = Arrays.copyOf(data, size);
+            copy.offset = Arrays.copyOf(offset, size);
+            copy.length = Arrays.copyOf(length, size);
+            copy.state = Arrays.copyOf(state, size);
+            copy.completedTime = Arrays.copyOf(completedTime, size);
+            return copy;
+        }
+    }
+
+    // Read back whatever state the directory holds; nothing is written until attach()
+    public ShopStateStore(Path directory, long flushMillis, long snapshotMillis) throws IOException {
+        if (flushMillis <= 0 || snapshotMillis <= 0) throw new IllegalArgumentException("Intervals must be positive");
+        this.directory = directory;
+        this.flushMillis = flushMillis;
+        this.snapshotMillis = snapshotMillis;
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        load();
+        recoveryNanos = System.nanoTime() - start;
+    }
+
+    // True if a previous run left stock levels or orders behind
+    public synchronized boolean hasState() {
+        return !stockLevels.isEmpty() || orders.size > 0;
+    }
+
+    public synchronized int getOrderCount() {
+        return orders.size;
+    }
+
+    // Time spent reading the snapshot and replaying the log, in milliseconds
+    public double getRecoveryMillis() {
+        return recoveryNanos / 1e6;
+    }
+
+    // Put the recovered stock levels and pending orders into a fresh menu and order manager (before attach).
+    // Returns the pending orders, so the caller can queue them again.
+    public List<Order> restore(Menu menu, OrderManager orderManager) {
+        Map<String, Integer> levels;
+        OrderTable table;
+        synchronized (this) {
+            levels = new HashMap<>(stockLevels);
+            table = orders.copy();
+        }
+        levels.forEach((id, level) -> {
+            Product product = menu.getProductById(id);
+            if (product != null) product.restoreStockLevel(level);
+        });
+        List<Order> pending = new ArrayList<>();
+        Map<String, Product> missing = new HashMap<>();
+        for (int row = 0; row < table.size; row++) {
+            if (table.state[row] != STATE_PENDING) continue; // Finished since the last snapshot
+            pending.add(decodeOrder(ByteBuffer.wrap(table.data[row], table.offset[row], table.length[row]), menu, missing));
+        }
+        orderManager.addOrders(pending);
+        return pending;
+    }
+
+    // Start logging changes to this menu and order manager. The current state becomes the new baseline
+    // snapshot, so call it before orders start flowing.
+    public void attach(Menu menu, OrderManager orderManager) throws IOException {
+        List<Product> products = menu.getAllProducts();
+        List<Order> current = orderManager.getOrdersSnapshot();
+        synchronized (this) {
+            stockLevels.clear();
+            for (Product product : products) {
+                stockLevels.put(product.getId(), product.getStock());
+            }
+            orders = new OrderTable(orders.next);
+        }
+        for (Order order : current) {
+            if (!order.isCompleted() && !order.isCancelled()) onOrderAccepted(order);
+        }
+        snapshot();
+
+        for (Product product : products) {
+            product.setStockListener(this);
+        }
+        // Products new to the menu are journalled from their current level on
+        menu.addListener(snapshot -> {
+            for (Product product : snapshot.getProducts()) {
+                product.setStockListener(this);
+                boolean known;
+                synchronized (this) {
+                    known = stockLevels.containsKey(product.getId());
+                }
+                if (!known) log(STOCK_LEVEL, encodeStock(product.getId(), product.getStock()));
+            }
+        });
+        orderManager.addOrderListener(this::onOrderAccepted);
+
+        synchronized (this) {
+            if (scheduler != null) return;
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "state-store");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        scheduler.scheduleWithFixedDelay(() -> background(false), flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> background(true), snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void background(boolean snapshot) {
+        try {
+            if (snapshot) {
+                snapshot();
+            } else {
+                flush();
+            }
+        } catch (IOException e) {
+            CoffeeShopLogger.getInstance().logEvent("Saving shop state failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onStockChanged(Product product, int delta) {
+        log(STOCK_DELTA, encodeStock(product.getId(), delta));
+    }
+
+    private void onOrderAccepted(Order order) {
+        byte[] record = encodeOrder(order); // Starts with 8 bytes for the sequence number
+        synchronized (this) {
+            long sequence = orders.next;
+            ByteBuffer.wrap(record).putLong(0, sequence);
+            appendRecord(ACCEPTED, record);
+            orders.add(sequence, record, 8, record.length - 8);
+            sequences.put(order, sequence);
+        }
+        if (!order.addCompletionObserver(this)) {
+            // Finished before we could watch it
+            if (order.isCancelled()) {
+                onOrderCancelled(order);
+            } else {
+                onOrderCompleted(order);
+            }
+        }
+    }
+
+    @Override
+    public void onOrderUpdated(Order order) {
+    }
+
+    @Override
+    public void onOrderCompleted(Order order) {
+        Long sequence = sequences.remove(order);
+        if (sequence != null) log(COMPLETED, stateRecord(sequence, order.getCompletedTime()));
+    }
+
+    @Override
+    public void onOrderCancelled(Order order) {
+        Long sequence = sequences.remove(order);
+        if (sequence != null) log(CANCELLED, stateRecord(sequence, 0));
+    }
+
+    // Write the logged records and fsync them now, instead of waiting for the next group commit
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            byte[] records;
+            synchronized (this) {
+                if (batch.size() == 0) return;
+                records = batch.toByteArray();
+                batch.reset();
+            }
+            if (wal == null) wal = openWal(walNumber);
+            write(wal, records);
+            wal.force(false);
+        }
+    }
+
+    // Write the state as of now to a new snapshot and start a new log; older logs are then deleted.
+    // Finished orders are dropped from the state here, so neither it nor the snapshot grows with the day.
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            Map<String, Integer> levels;
+            OrderTable table;
+            long number;
+            synchronized (flushLock) {
+                byte[] tail;
+                synchronized (this) {
+                    levels = new LinkedHashMap<>(stockLevels);
+                    orders = orders.pending();
+                    table = orders.copy();
+                    tail = batch.toByteArray(); // Already in the copy, so it belongs to the old log
+                    batch.reset();
+                    number = ++walNumber;
+                }
+                if (wal != null) {
+                    write(wal, tail);
+                    wal.force(false);
+                    wal.close();
+                }
+                wal = openWal(number);
+            }
+
+            int size = 40;
+            for (String id : levels.keySet()) {
+                size += 6 + id.length() * 3;
+            }
+            for (int row = 0; row < table.size; row++) {
+                size += 12 + table.length[row];
+            }
+            ByteBuffer out = ByteBuffer.allocate(size);
+            out.putInt(SNAPSHOT_MAGIC);
+            out.putInt(SNAPSHOT_VERSION);
+            out.putLong(number);
+            out.putInt(levels.size());
+            for (Map.Entry<String, Integer> level : levels.entrySet()) {
+                putString(out, level.getKey());
+                out.putInt(level.getValue());
+            }
+            out.putLong(table.next);
+            out.putInt(table.size);
+            for (int row = 0; row < table.size; row++) {
+                out.putLong(table.sequence[row]);
+                out.putInt(table.length[row]);
+                out.put(table.data[row], table.offset[row], table.length[row]);
+            }
+            out.putLong(crc(out.array(), out.position()));
+            out.flip();
+
+            // Replace the old snapshot in one step, so a crash leaves either the old one or the new one
+            Path temporary = directory.resolve("snapshot.tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, directory.resolve("snapshot.bin"), StandardCopyOption.ATOMIC_MOVE);
+            for (Path log : walFiles()) {
+                if (walNumberOf(log) < number) Files.delete(log);
+            }
+        }
+    }
+
+    // Stop the background writer, then leave a fresh snapshot so the next start has no log to replay
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService stopping;
+        synchronized (this) {
+            stopping = scheduler;
+            scheduler = null;
+        }
+        if (stopping != null) {
+            stopping.shutdown();
+            try {
+                stopping.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        snapshot();
+        synchronized (flushLock) {
+            if (wal != null) {
+                wal.close();
+                wal = null;
+            }
+        }
+    }
+
+    // Append a record to the batch and apply it to the state, as one step
+    private void log(byte type, byte[] payload) {
+        synchronized (this) {
+            appendRecord(type, payload);
+            apply(type, payload, 0, payload.length);
+        }
+    }
+
+    // Frame: length of type and payload, type, payload, CRC32 of type and payload
+    private void appendRecord(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload, 0, payload.length);
+        batch.write(ByteBuffer.allocate(5).putInt(payload.length + 1).put(type).array(), 0, 5);
+        batch.write(payload, 0, payload.length);
+        batch.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array(), 0, 4);
+    }
+
+    // Change the state as the record in bytes[from .. from + count) says (caller holds this)
+    private void apply(byte type, byte[] bytes, int from, int count) {
+        ByteBuffer in = ByteBuffer.wrap(bytes, from, count);
+        switch (type) {
+            case STOCK_DELTA:
+                stockLevels.merge(getString(in), in.getInt(), Integer::sum);
+                break;
+            case STOCK_LEVEL:
+                stockLevels.put(getString(in), in.getInt());
+                break;
+            case ACCEPTED: {
+                long sequence = in.getLong();
+                if (sequence != orders.next && orders.size > 0) {
+                    throw new IllegalStateException("Order " + sequence + " logged out of sequence");
+                }
+                orders.add(sequence, bytes, from + 8, count - 8);
+                break;
+            }
+            case COMPLETED:
+                orders.setState(in.getLong(), STATE_COMPLETED, in.getLong());
+                break;
+            case CANCELLED:
+                orders.setState(in.getLong(), STATE_CANCELLED, 0);
+                break;
+            default:
+                throw new IllegalStateException("Unknown record type " + type);
+        }
+    }
+
+    // Newest snapshot, then every log written after it, stopping at the first torn or corrupt record
+    private synchronized void load() throws IOException {
+        Path snapshotFile = directory.resolve("snapshot.bin");
+        long firstLog = 0;
+        if (Files.exists(snapshotFile)) {
+            byte[] bytes = Files.readAllBytes(snapshotFile);
+            if (bytes.length < 32 || crc(bytes, bytes.length - 8) != ByteBuffer.wrap(bytes).getLong(bytes.length - 8)) {
+                throw new IOException("Snapshot " + snapshotFile + " is corrupt");
+            }
+            ByteBuffer in = ByteBuffer.wrap(bytes, 0, bytes.length - 8);
+            if (in.getInt() != SNAPSHOT_MAGIC || in.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Snapshot " + snapshotFile + " has an unknown format");
+            }
+            firstLog = in.getLong();
+            int levels = in.getInt();
+            for (int i = 0; i < levels; i++) {
+                stockLevels.put(getString(in), in.getInt());
+            }
+            long next = in.getLong();
+            orders = new OrderTable(next);
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                long sequence = in.getLong();
+                int length = in.getInt();
+                orders.add(sequence, bytes, in.position(), length); // The order stays in the snapshot's bytes
+                in.position(in.position() + length);
+            }
+            orders.next = next;
+        }
+        walNumber = firstLog;
+        CRC32 crc = new CRC32();
+        for (Path log : walFiles()) {
+            long number = walNumberOf(log);
+            if (number < firstLog) continue;
+            walNumber = Math.max(walNumber, number);
+            byte[] bytes = Files.readAllBytes(log);
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            while (in.remaining() >= 9) {
+                int length = in.getInt();
+                if (length < 1 || length + 4 > in.remaining()) break; // Torn write
+                int start = in.position();
+                crc.reset();
+                crc.update(bytes, start, length);
+                if ((int) crc.getValue() != in.getInt(start + length)) break;
+                apply(bytes[start], bytes, start + 1, length - 1);
+                in.position(start + length + 4);
+            }
+        }
+    }
+
+    private List<Path> walFiles() throws IOException {
+        List<Path> logs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "wal-*.log")) {
+            files.forEach(logs::add);
+        }
+        logs.sort((a, b) -> Long.compare(walNumberOf(a), walNumberOf(b)));
+        return logs;
+    }
+
+    private static long walNumberOf(Path log) {
+        String name = log.getFileName().toString();
+        return Long.parseLong(name.substring(4, name.length() - 4));
+    }
+
+    private FileChannel openWal(long number) throws IOException {
+        return FileChannel.open(directory.resolve("wal-" + number + ".log"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static void write(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static long crc(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return crc.getValue();
+    }
+
+    // Product id and a delta or level
+    private static byte[] encodeStock(String productId, int value) {
+        byte[] id = productId.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(2 + id.length + 4).putShort((short) id.length).put(id).putInt(value).array();
+    }
+
+    private static byte[] stateRecord(long sequence, long completedTime) {
+        return ByteBuffer.allocate(16).putLong(sequence).putLong(completedTime).array();
+    }
+
+    // Room for the sequence number, then id, timestamp, customer, type, total and discount in cents,
+    // enqueue time, and (product id, quantity) lines
+    private static byte[] encodeOrder(Order order) {
+        Map<String, Integer> lines = new LinkedHashMap<>();
+        for (Product item : order.getItems()) {
+            lines.merge(item.getId(), 1, Integer::sum);
+        }
+        byte[][] strings = {utf8(order.getOrderId()), utf8(order.getTimeStamp()), utf8(order.getCustomerName()),
+                utf8(order.getOrderType())};
+        int size = 8 + 8 + 4 + 4 + 8 + 1 + 2;
+        for (byte[] string : strings) {
+            size += string.length;
+        }
+        for (String id : lines.keySet()) {
+            size += 6 + id.length() * 3;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.position(8);
+        for (byte[] string : strings) {
+            out.putShort((short) string.length).put(string);
+        }
+        out.putInt((int) Math.round(order.getTotalPrice() * 100));
+        out.putInt((int) Math.round(order.getDiscountAmount() * 100));
+        out.putLong(order.getEnqueueTime());
+        out.put((byte) (order.isStockReserved() ? 1 : 0));
+        out.putShort((short) lines.size());
+        for (Map.Entry<String, Integer> line : lines.entrySet()) {
+            putString(out, line.getKey());
+            out.putInt(line.getValue());
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    // Products no longer on the menu come back as stand-ins with no stock
+    private static Order decodeOrder(ByteBuffer in, Menu menu, Map<String, Product> missing) {
+        Order order = new Order(getString(in), getString(in), getString(in), getString(in));
+        int totalCents = in.getInt();
+        int discountCents = in.getInt();
+        order.setEnqueueTime(in.getLong());
+        order.setStockReserved(in.get() == 1);
+        int lines = in.getShort();
+        for (int i = 0; i < lines; i++) {
+            String productId = getString(in);
+            int quantity = in.getInt();
+            Product product = menu.getProductById(productId);
+            if (product == null) {
+                product = missing.computeIfAbsent(productId, id -> new Product(id, id, "", "Other", 0.01, 0));
+            }
+            order.addItem(product, quantity);
+        }
+        if (totalCents > 0) order.setTotalPrice(totalCents / 100.0);
+        order.setDiscountAmount(discountCents / 100.0);
+        return order;
+    }
+
+    private static byte[] utf8(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) throw new IllegalArgumentException("String too long to save");
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer out, String s) {
+        byte[] bytes = utf8(s);
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getShort();
+        String s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+}
@@ -0,0 +1,7 @@
+package model;
+
+// Told about every change to a product's stock, on the thread that made it
+public interface StockListener {
+    // delta is negative for a reservation, positive when stock is put back
+    void onStockChanged(Product product, int delta);
+}
@@ -0,0 +1,160 @@
+package model;
+
+import util.CoffeeShopLogger;
+import util.MetricsRegistry;
+import util.OrderQueue;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+// Headless open-loop workload generator.
+// Orders are released at the times chosen by the arrival process, not when the shop is ready for them:
+// if a blocking offerOrder makes the generator fall behind, the backlog is released immediately and
+// every order keeps its intended arrival time, so latency measured from it avoids coordinated omission.
+public class WorkloadGenerator extends Thread {
+    private static final long SPIN_THRESHOLD_NANOS = 50_000; // Below this gap, spin instead of parking
+    private static final MetricsRegistry.Counter ORDERS_GENERATED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_generator_orders_total", "Orders released by the workload generator");
+
+    private final OrderQueue orderQueue;
+    private final ArrivalProcess arrivals;
+    private final Menu menu; // Sampled through the current snapshot, so a menu reload is picked up
+    private final double preOrderFraction;
+    private final int maxItems;
+    private final long orderLimit;
+    private final SplittableRandom random;
+    private OrderManager orderManager;
+    private volatile boolean running = true;
+
+    // Statistics
+    private volatile long generatedCount;
+    private volatile long maxLagNanos;
+    private volatile long rejectedCount;
+
+    // Timestamp text is cached per second; formatting one per order would dominate at high rates
+    private final SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private long cachedSecond = -1;
+    private String cachedTimestamp;
+
+    public WorkloadGenerator(String name,
+                             OrderQueue orderQueue,
+                             Menu menu,
+                             ArrivalProcess arrivals,
+                             double preOrderFraction,
+                             int maxItems,
+                             long orderLimit,
+                             long seed) {
+        super(name);
+        if (preOrderFraction < 0 || preOrderFraction > 1) throw new IllegalArgumentException("Pre-order fraction must be between 0 and 1");
+        if (maxItems <= 0) throw new IllegalArgumentException("Basket size must be greater than 0");
+
+        if (menu.getAllProducts().isEmpty()) throw new IllegalArgumentException("Menu has no products to sample");
+
+        this.orderQueue = orderQueue;
+        this.arrivals = arrivals;
+        this.menu = menu;
+        this.preOrderFraction = preOrderFraction;
+        this.maxItems = maxItems;
+        this.orderLimit = orderLimit;
+        this.random = new SplittableRandom(seed);
+        setDaemon(true);
+    }
+
+    // Also record generated orders in the order manager (needed for the sales report)
+    public void setOrderManager(OrderManager orderManager) {
+        this.orderManager = orderManager;
+    }
+
+    @Override
+    public void run() {
+        CoffeeShopLogger.getInstance().logEvent(getName() + " started generating orders");
+        long start = System.nanoTime();
+        long intended = 0;
+        long sequence = 0;
+
+        while (running && (orderLimit <= 0 || sequence < orderLimit)) {
+            intended = arrivals.nextArrival(intended);
+            if (intended < 0) break; // Trace exhausted
+
+            // Wait for the intended arrival time; never wait if we are already behind schedule
+            long due = start + intended;
+            long now;
+            while ((now = System.nanoTime()) < due) {
+                long remaining = due - now;
+                if (remaining > SPIN_THRESHOLD_NANOS) {
+                    LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+                } else {
+                    Thread.onSpinWait();
+                }
+                if (!running) break;
+            }
+            if (!running) break;
+
+            long lag = now - due;
+            if (lag > maxLagNanos) maxLagNanos = lag;
+
+            Order order = createOrder(sequence++, due);
+            try {
+                if (orderManager != null) {
+                    orderManager.addOrder(order);
+                }
+                if (orderQueue.offerOrder(order) == OrderQueue.AdmissionResult.REJECTED) {
+                    rejectedCount++;
+                    if (orderManager != null) {
+                        orderManager.cancelOrder(order);
+                    }
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+            generatedCount = sequence;
+            ORDERS_GENERATED.inc();
+        }
+        CoffeeShopLogger.getInstance().logEvent(getName() + " stopped after " + generatedCount
+                + " orders (max lag behind schedule: " + maxLagNanos / 1_000_000 + "ms)");
+    }
+
+    // Sample a basket of 1..maxItems products from the menu
+    private Order createOrder(long sequence, long scheduledNanos) {
+        String type = random.nextDouble() < preOrderFraction ? "PRE_ORDER" : "WALK_IN";
+        Order order = new Order(getName() + "-" + sequence, currentTimestamp(), "Customer-" + random.nextInt(10_000), type);
+        List<Product> products = menu.getAllProducts(); // One snapshot per order
+        int items = 1 + random.nextInt(maxItems);
+        for (int i = 0; i < items; i++) {
+            order.addItem(products.get(random.nextInt(products.size())));
+        }
+        order.setTotalPrice(order.calculateOriginalPrice());
+        order.setScheduledTime(scheduledNanos);
+        return order;
+    }
+
+    private String currentTimestamp() {
+        long second = System.currentTimeMillis() / 1000;
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedTimestamp = timestampFormat.format(new Date(second * 1000));
+        }
+        return cachedTimestamp;
+    }
+
+    public void stopGenerating() {
+        this.running = false;
+        this.interrupt();
+    }
+
+    public long getGeneratedCount() {
+        return generatedCount;
+    }
+
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    // Orders the queue turned away under its admission policy
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+}
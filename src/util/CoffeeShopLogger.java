@@ -3,6 +3,8 @@ package util;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
@@ -10,6 +12,7 @@ import java.util.Date;
 public class CoffeeShopLogger {
     private static CoffeeShopLogger instance;
     private StringBuilder log;
+    private volatile boolean enabled = true;
 
     private CoffeeShopLogger() {
         log = new StringBuilder();
@@ -23,13 +26,33 @@ public class CoffeeShopLogger {
         return instance;
     }
 
+    // Disabled during headless load runs, where per-order logging would dominate the run
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
     public synchronized void logEvent(String message) {
+        if (!enabled) return;
         String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
         String logEntry = "[" + timestamp + "] " + message + "\n";
         log.append(logEntry);
         System.out.print(logEntry);
     }
 
+    // Errors are logged even when event logging is disabled, with the stack trace for the log file
+    public synchronized void logError(String message, Throwable error) {
+        StringWriter trace = new StringWriter();
+        error.printStackTrace(new PrintWriter(trace));
+        String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+        String logEntry = "[" + timestamp + "] ERROR " + message + "\n" + trace;
+        log.append(logEntry);
+        System.err.print(logEntry);
+    }
+
     public synchronized void saveToFile(String filePath) throws IOException {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
             writer.write(log.toString());
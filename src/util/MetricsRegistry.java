@@ -0,0 +1,225 @@
+package util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+// Lightweight metrics registry (counters, gauges, histograms) rendered in Prometheus text format.
+// Recording only touches LongAdder/DoubleAdder cells and gauges are read through suppliers,
+// so neither instrumented code nor a scrape ever takes the OrderQueue lock.
+public class MetricsRegistry {
+    private static MetricsRegistry instance;
+
+    // Metric families sorted by name so the scrape output is stable
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    // Get or create a counter; labels are given as name/value pairs
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter")
+                .children.computeIfAbsent(labelKey(labels), k -> new Counter());
+    }
+
+    // Get or create a histogram with the given upper bucket bounds
+    public Histogram histogram(String name, String help, double[] buckets, String... labels) {
+        return (Histogram) family(name, help, "histogram")
+                .children.computeIfAbsent(labelKey(labels), k -> new Histogram(buckets));
+    }
+
+    // Register a gauge; registering the same name and labels again replaces the supplier
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "gauge").children.put(labelKey(labels), new Gauge(value));
+    }
+
+    // Remove a single labelled series (e.g. a product that left the menu)
+    public void remove(String name, String... labels) {
+        Family family = families.get(name);
+        if (family != null) {
+            family.children.remove(labelKey(labels));
+        }
+    }
+
+    // Render every metric in the Prometheus text exposition format (version 0.0.4)
+    public String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Family family : families.values()) {
+            if (family.children.isEmpty()) continue;
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            family.children.forEach((labels, metric) -> metric.write(sb, family.name, labels));
+        }
+        return sb.toString();
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    // Build the inner label text, e.g. lane="walk_in",server="Server-1"
+    private static String labelKey(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name/value pairs");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(labels[i]).append("=\"");
+            String value = labels[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') sb.append('\\').append(c);
+                else if (c == '\n') sb.append("\\n");
+                else sb.append(c);
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+
+    private static void writeSample(StringBuilder sb, String name, String labels, String value) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static String formatDouble(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        if (Double.isInfinite(value)) return value > 0 ? "+Inf" : "-Inf";
+        return Double.toString(value);
+    }
+
+    private static class Family {
+        final String name;
+        final String help;
+        final String type;
+        final Map<String, Metric> children = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private interface Metric {
+        void write(StringBuilder sb, String name, String labels);
+    }
+
+    // Monotonic counter
+    public static class Counter implements Metric {
+        private final LongAdder value = new LongAdder();
+
+        public void inc() {
+            value.increment();
+        }
+
+        public void inc(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        public void write(StringBuilder sb, String name, String labels) {
+            writeSample(sb, name, labels, Long.toString(value.sum()));
+        }
+    }
+
+    // Gauge sampled from a supplier at scrape time
+    private static class Gauge implements Metric {
+        private final DoubleSupplier supplier;
+
+        Gauge(DoubleSupplier supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public void write(StringBuilder sb, String name, String labels) {
+            writeSample(sb, name, labels, formatDouble(supplier.getAsDouble()));
+        }
+    }
+
+    // Fixed-bucket histogram; buckets are stored non-cumulative and summed when scraped
+    public static class Histogram implements Metric {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Histogram(double[] bounds) {
+            this.bounds = bounds.clone();
+            Arrays.sort(this.bounds);
+            this.buckets = new LongAdder[this.bounds.length + 1]; // Last bucket is +Inf
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void observe(double value) {
+            int index = Arrays.binarySearch(bounds, value);
+            if (index < 0) index = -index - 1;
+            buckets[index].increment();
+            count.increment();
+            sum.add(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        // Per-bucket counts (not cumulative), the last one is +Inf; diff two snapshots for a time window
+        public long[] getBucketCounts() {
+            long[] counts = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+            }
+            return counts;
+        }
+
+        // Upper bound of the bucket holding quantile q (0..1) of the given bucket counts, NaN when empty
+        public double quantile(long[] counts, double q) {
+            long total = 0;
+            for (long c : counts) total += c;
+            if (total == 0) return Double.NaN;
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) {
+                    return i < bounds.length ? bounds[i] : Double.POSITIVE_INFINITY;
+                }
+            }
+            return Double.POSITIVE_INFINITY;
+        }
+
+        @Override
+        public void write(StringBuilder sb, String name, String labels) {
+            String prefix = labels.isEmpty() ? "" : labels + ",";
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String le = i < bounds.length ? formatDouble(bounds[i]) : "+Inf";
+                writeSample(sb, name + "_bucket", prefix + "le=\"" + le + "\"", Long.toString(cumulative));
+            }
+            writeSample(sb, name + "_sum", labels, formatDouble(sum.sum()));
+            writeSample(sb, name + "_count", labels, Long.toString(cumulative));
+        }
+    }
+}
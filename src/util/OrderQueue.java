@@ -1,71 +1,379 @@
 package util;
 
 import model.Order;
+import model.QueueEvent;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.function.Consumer;
 
 // Order queue class
 public class OrderQueue {
-    public PriorityQueue<Order> preOrderQueue;  // Pre-order priority queue
-    public PriorityQueue<Order> walkInQueue;    // Walk-in order priority queue
+    private static final MetricsRegistry.Counter PRE_ORDERS_ENQUEUED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_orders_enqueued_total", "Orders added to the queue (use rate() for orders/sec)", "lane", "pre_order");
+    private static final MetricsRegistry.Counter WALK_INS_ENQUEUED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_orders_enqueued_total", "Orders added to the queue (use rate() for orders/sec)", "lane", "walk_in");
+
+    // What offerOrder does when the queue is full
+    public enum Admission {
+        BLOCK,    // Wait for space (same as addOrder)
+        TIMEOUT,  // Wait up to the admission timeout, then reject
+        REJECT,   // Reject at once ("shop busy")
+        SHED,     // A pre-order evicts the newest walk-in; a walk-in is rejected
+        SPILL     // Park the order in the overflow buffer until space frees
+    }
+
+    public enum AdmissionResult {
+        ACCEPTED,  // Queued without waiting
+        DELAYED,   // Queued after waiting for space
+        SPILLED,   // Parked in the overflow buffer, will be queued in arrival order
+        REJECTED   // Not queued; the caller must undo the order
+    }
+
+    public SchedulingPolicy policy; // Decides which order is served next
     public int maxSize;
     public Object lock = new Object();
 
+    private Admission admission = Admission.BLOCK;
+    private long admissionTimeoutMillis;
+    private OverflowBuffer overflow;
+    private Consumer<Order> shedHandler; // Told about every order evicted by SHED
+    private final Map<AdmissionResult, MetricsRegistry.Counter> admissionCounters = new EnumMap<>(AdmissionResult.class);
+    private MetricsRegistry.Counter shedCounter;
+
+    // Lane depths mirrored into volatiles (written under lock) so readers never need the lock
+    private volatile int preOrderDepth;
+    private volatile int walkInDepth;
+
+    // Observer channel, attached while a simulation is running
+    private volatile QueueEventChannel eventChannel;
+
     public OrderQueue(int maxSize) {
+        this(maxSize, new SchedulingPolicy.StrictPriority());
+    }
+
+    public OrderQueue(int maxSize, SchedulingPolicy policy) {
         this.maxSize = maxSize;
-        // Sort by enqueue time (earliest at the front)
-        Comparator<Order> timeComparator = Comparator.comparingLong(Order::getEnqueueTime);
-        this.preOrderQueue = new PriorityQueue<>(timeComparator);
-        this.walkInQueue = new PriorityQueue<>(timeComparator);
+        this.policy = Objects.requireNonNull(policy, "Scheduling policy cannot be null");
+        setAdmission(Admission.BLOCK, 0);
     }
 
-    public synchronized int getQueueSize() {
-        return preOrderQueue.size() + walkInQueue.size();
+    // Choose the admission policy for offerOrder; SPILL needs an overflow buffer first
+    public void setAdmission(Admission admission, long timeoutMillis) {
+        if (admission == Admission.TIMEOUT && timeoutMillis <= 0) throw new IllegalArgumentException("Admission timeout must be greater than 0");
+        synchronized (lock) {
+            if (admission == Admission.SPILL && overflow == null) throw new IllegalStateException("SPILL admission needs an overflow buffer");
+            this.admission = admission;
+            this.admissionTimeoutMillis = timeoutMillis;
+            MetricsRegistry registry = MetricsRegistry.getInstance();
+            String name = admission.name().toLowerCase();
+            for (AdmissionResult result : AdmissionResult.values()) {
+                admissionCounters.put(result, registry.counter("coffeeshop_admission_total",
+                        "Orders offered to the queue, by admission policy and result",
+                        "policy", name, "result", result.name().toLowerCase()));
+            }
+            shedCounter = registry.counter("coffeeshop_orders_shed_total",
+                    "Queued walk-ins evicted to admit a pre-order", "policy", name);
+        }
     }
 
-    // Add an order and record the timestamp
-    public void addOrder(Order order) throws InterruptedException {
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public void setOverflowBuffer(OverflowBuffer overflow) {
         synchronized (lock) {
-            while (getQueueSize() >= maxSize) {
-                lock.wait();
+            this.overflow = overflow;
+        }
+    }
+
+    public void setShedHandler(Consumer<Order> shedHandler) {
+        this.shedHandler = shedHandler;
+    }
+
+    // Orders offered under the current admission policy with the given result
+    public long getAdmissionCount(AdmissionResult result) {
+        return admissionCounters.get(result).get();
+    }
+
+    public long getShedCount() {
+        return shedCounter.get();
+    }
+
+    public int getOverflowSize() {
+        synchronized (lock) {
+            return overflow == null ? 0 : overflow.size();
+        }
+    }
+
+    // Close the overflow buffer, keeping any orders still waiting in its file
+    public void closeOverflow() throws IOException {
+        synchronized (lock) {
+            if (overflow != null) {
+                overflow.close();
             }
+        }
+    }
 
-            order.setEnqueueTime(System.currentTimeMillis()); // Record the enqueue time
+    public String getPolicyName() {
+        return policy.getName();
+    }
 
-            if ("PRE_ORDER".equals(order.getOrderType())) {
-                preOrderQueue.add(order);
+    public int getQueueSize() {
+        return preOrderDepth + walkInDepth;
+    }
+
+    public void setEventChannel(QueueEventChannel eventChannel) {
+        this.eventChannel = eventChannel;
+    }
+
+    // Publish a change event to observers (non-blocking, safe while holding lock)
+    public void publish(QueueEvent event) {
+        QueueEventChannel channel = eventChannel;
+        if (channel != null) {
+            channel.publish(event);
+        }
+    }
+
+    public int getPreOrderDepth() {
+        return preOrderDepth;
+    }
+
+    public int getWalkInDepth() {
+        return walkInDepth;
+    }
+
+    // Add an order and record the timestamp, waiting as long as the queue is full
+    public void addOrder(Order order) throws InterruptedException {
+        synchronized (lock) {
+            awaitSpace(order, 0);
+            enqueue(order);
+        }
+    }
+
+    // Add an order under the admission policy. Only BLOCK and TIMEOUT ever wait, so producers such as
+    // the UI thread get an answer at once with REJECT, SHED and SPILL.
+    public AdmissionResult offerOrder(Order order) throws InterruptedException {
+        Order shed = null;
+        AdmissionResult result;
+        synchronized (lock) {
+            boolean spilling = overflow != null && !overflow.isEmpty(); // Keep arrival order behind spilled orders
+            if (!spilling && getQueueSize() < maxSize) {
+                enqueue(order);
+                result = AdmissionResult.ACCEPTED;
             } else {
-                walkInQueue.add(order);
+                switch (admission) {
+                    case BLOCK:
+                    case TIMEOUT:
+                        long timeout = admission == Admission.BLOCK ? 0 : admissionTimeoutMillis;
+                        if (awaitSpace(order, timeout)) {
+                            enqueue(order);
+                            result = AdmissionResult.DELAYED;
+                        } else {
+                            result = AdmissionResult.REJECTED;
+                        }
+                        break;
+                    case SHED:
+                        shed = SchedulingPolicy.isPreOrder(order) ? policy.shedWalkIn() : null;
+                        if (shed != null) {
+                            updateDepths();
+                            publish(QueueEvent.removed(shed));
+                            shedCounter.inc();
+                            enqueue(order);
+                            result = AdmissionResult.ACCEPTED;
+                        } else {
+                            result = AdmissionResult.REJECTED;
+                        }
+                        break;
+                    case SPILL:
+                        result = spill(order);
+                        break;
+                    default:
+                        result = AdmissionResult.REJECTED;
+                }
             }
+            admissionCounters.get(result).inc();
+        }
+        // Outside the lock: the handler may take other locks (e.g. the order manager's)
+        Consumer<Order> handler = shedHandler;
+        if (shed != null && handler != null) {
+            handler.accept(shed);
+        }
+        return result;
+    }
 
-            lock.notifyAll();
+    // Must be called while holding lock
+    private AdmissionResult spill(Order order) {
+        try {
+            overflow.add(order);
+        } catch (IOException e) {
+            CoffeeShopLogger.getInstance().logEvent("Could not spill order " + order.getOrderId() + ": " + e.getMessage());
+            return AdmissionResult.REJECTED;
         }
+        order.setEnqueueTime(System.currentTimeMillis()); // Queue wait counts from arrival, not from the refill
+        publish(QueueEvent.added(order));
+        return AdmissionResult.SPILLED;
     }
 
-    // Get the next order by FIFO
+    // Wait until the queue has room; timeoutMillis 0 waits forever. Must be called while holding lock.
+    // Spilled orders arrived earlier, so they take any free space first.
+    private boolean awaitSpace(Order order, long timeoutMillis) throws InterruptedException {
+        refill();
+        if (hasRoom()) return true;
+        ShopEvents.QueueFullWait waitEvent = new ShopEvents.QueueFullWait();
+        waitEvent.begin();
+        boolean admitted = false;
+        try {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (!hasRoom()) {
+                if (timeoutMillis <= 0) {
+                    lock.wait();
+                    continue;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                lock.wait(remaining);
+            }
+            admitted = true;
+            return true;
+        } finally {
+            waitEvent.end();
+            if (waitEvent.shouldCommit()) {
+                waitEvent.orderId = order.getOrderId();
+                waitEvent.maxSize = maxSize;
+                waitEvent.admitted = admitted;
+                waitEvent.commit();
+            }
+        }
+    }
+
+    // Must be called while holding lock
+    private boolean hasRoom() {
+        return getQueueSize() < maxSize && (overflow == null || overflow.isEmpty());
+    }
+
+    // Must be called while holding lock with room in the queue
+    private void enqueue(Order order) {
+        order.setEnqueueTime(System.currentTimeMillis()); // Record the enqueue time
+        insert(order);
+        publish(QueueEvent.added(order));
+        lock.notifyAll();
+    }
+
+    // Must be called while holding lock
+    private void insert(Order order) {
+        policy.add(order);
+        if ("PRE_ORDER".equals(order.getOrderType())) {
+            PRE_ORDERS_ENQUEUED.inc();
+        } else {
+            WALK_INS_ENQUEUED.inc();
+        }
+        updateDepths();
+
+        ShopEvents.OrderEnqueued event = new ShopEvents.OrderEnqueued();
+        if (event.isEnabled()) {
+            event.orderId = order.getOrderId();
+            event.orderType = order.getOrderType();
+            event.itemCount = order.getItems().size();
+            event.queueSize = getQueueSize();
+            event.commit();
+        }
+    }
+
+    // Move spilled orders into the freed space, oldest first. Must be called while holding lock.
+    private void refill() {
+        while (overflow != null && !overflow.isEmpty() && getQueueSize() < maxSize) {
+            insert(overflow.poll()); // Observers saw it ADDED when it spilled
+        }
+    }
+
+    // Get the next order chosen by the scheduling policy
     public Order getNextOrder() throws InterruptedException {
         synchronized (lock) {
             while (getQueueSize() == 0) {
                 lock.wait();
             }
+            return takeNext();
+        }
+    }
 
-            // Prioritize the earliest pre-order
-            if (!preOrderQueue.isEmpty()) {
-                return preOrderQueue.poll();
+    // Get the next order, waiting at most timeoutMillis; returns null if the queue stayed empty
+    public Order getNextOrder(long timeoutMillis) throws InterruptedException {
+        synchronized (lock) {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (getQueueSize() == 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                lock.wait(remaining);
+            }
+            return takeNext();
+        }
+    }
+
+    // Take the next order plus up to maxOrders-1 orders queued directly behind it (the batching look-ahead window).
+    // Waits at most timeoutMillis for the first order; returns an empty list if the queue stayed empty.
+    public List<Order> takeBatch(int maxOrders, long timeoutMillis) throws InterruptedException {
+        if (maxOrders <= 0) throw new IllegalArgumentException("Batch window must be greater than 0");
+        synchronized (lock) {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (getQueueSize() == 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return Collections.emptyList();
+                }
+                lock.wait(remaining);
+            }
+            List<Order> batch = new ArrayList<>(Math.min(maxOrders, getQueueSize()));
+            while (batch.size() < maxOrders && getQueueSize() > 0) {
+                batch.add(pollNext());
             }
-            // Then process the earliest walk-in order
-            return walkInQueue.poll();
+            refill();
+            lock.notifyAll(); // Wake producers waiting for free capacity
+            return batch;
         }
     }
 
+    // Must be called while holding lock with a non-empty queue
+    private Order takeNext() {
+        Order next = pollNext();
+        refill();
+        lock.notifyAll(); // Wake producers waiting for free capacity
+        return next;
+    }
+
+    // Must be called while holding lock with a non-empty queue
+    private Order pollNext() {
+        Order next = policy.poll();
+        updateDepths();
+
+        ShopEvents.OrderDequeued event = new ShopEvents.OrderDequeued();
+        if (event.isEnabled()) {
+            event.orderId = next.getOrderId();
+            event.orderType = next.getOrderType();
+            event.queueWait = System.currentTimeMillis() - next.getEnqueueTime();
+            event.queueSize = getQueueSize();
+            event.commit();
+        }
+        return next;
+    }
+
     // Get a snapshot of the queue (sorted by enqueue time)
     public List<Order> getQueueSnapshot() {
         synchronized (lock) {
-            List<Order> allOrders = new ArrayList<>();
-            allOrders.addAll(preOrderQueue);
-            allOrders.addAll(walkInQueue);
+            List<Order> allOrders = policy.orders();
+            if (overflow != null) {
+                allOrders.addAll(overflow.orders());
+            }
             allOrders.sort(Comparator.comparingLong(Order::getEnqueueTime));
             return Collections.unmodifiableList(allOrders);
         }
     }
+
+    // Must be called while holding lock
+    private void updateDepths() {
+        preOrderDepth = policy.preOrderCount();
+        walkInDepth = policy.walkInCount();
+    }
 }
@@ -0,0 +1,89 @@
+package util;
+
+import model.Order;
+import model.Product;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Overflow for a full OrderQueue: spilled orders wait here in arrival order and refill the queue as space frees.
+// Every spilled order is journaled to a file in the pre_orders.txt format, so orders still waiting after a crash
+// can be replayed with OrderManager.loadFromFile; close() rewrites the file with only the undelivered orders.
+// Not thread-safe: OrderQueue calls it while holding its lock.
+public class OverflowBuffer {
+    private final Path file;
+    private final ArrayDeque<Order> pending = new ArrayDeque<>();
+    private BufferedWriter journal;
+
+    public OverflowBuffer(Path file) {
+        this.file = file;
+    }
+
+    public void add(Order order) throws IOException {
+        if (journal == null) {
+            journal = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+        writeOrder(journal, order);
+        journal.flush(); // Hand the lines to the OS; a process crash no longer loses them
+        pending.addLast(order);
+    }
+
+    public Order poll() {
+        return pending.pollFirst();
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public List<Order> orders() {
+        return List.copyOf(pending);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // Keep only the orders that never reached the queue; delete the file if there are none
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        if (pending.isEmpty()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Order order : pending) {
+                writeOrder(writer, order);
+            }
+        }
+    }
+
+    // One line per product: orderId,timestamp,customer,productId,quantity,orderType
+    private static void writeOrder(BufferedWriter writer, Order order) throws IOException {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (Product product : order.getItems()) {
+            quantities.merge(product.getId(), 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            writer.write(order.getOrderId() + "," + order.getTimeStamp() + "," + order.getCustomerName() + ","
+                    + entry.getKey() + "," + entry.getValue() + "," + order.getOrderType());
+            writer.newLine();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package util;
+
+import model.QueueEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Bounded channel between the queue/servers and observers.
+// Publishing is a non-blocking offer, so it is safe under OrderQueue.lock; a dispatcher thread drains
+// events in batches. If a slow consumer lets the channel fill up, events are dropped and the consumer
+// is asked to resynchronise from a full snapshot once instead of blocking the publishers.
+// Every event gets a sequence number, so events the snapshot already reflects are not applied again.
+public class QueueEventChannel {
+    private static final MetricsRegistry.Counter EVENTS_DROPPED = MetricsRegistry.getInstance().counter(
+            "coffeeshop_queue_events_dropped_total", "Observer events dropped because the channel was full");
+
+    private final BlockingQueue<Published> events;
+    private final AtomicLong sequence = new AtomicLong();
+    private final int maxBatch;
+    private final AtomicBoolean resyncNeeded = new AtomicBoolean(true); // First delivery is a full snapshot
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    private static class Published {
+        final long sequence;
+        final QueueEvent event;
+
+        Published(long sequence, QueueEvent event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
+    }
+
+    public QueueEventChannel(int capacity, int maxBatch) {
+        this.events = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+    }
+
+    // Never blocks; on overflow the event is dropped and a resync is requested
+    public void publish(QueueEvent event) {
+        if (!events.offer(new Published(sequence.incrementAndGet(), event))) {
+            resyncNeeded.set(true);
+            EVENTS_DROPPED.inc();
+        }
+    }
+
+    // Sequence number of the last event published. A snapshot taken together with it, under the lock the
+    // events are published under, reflects exactly the events up to this number.
+    public long mark() {
+        return sequence.get();
+    }
+
+    // Start the dispatcher: resync runs for the initial state and after overflows, consumer gets batches.
+    // resync delivers a full snapshot and returns the mark() it was taken with.
+    public synchronized void start(LongSupplier resync, Consumer<List<QueueEvent>> consumer) {
+        if (running) return;
+        running = true;
+        dispatcher = new Thread(() -> dispatch(resync, consumer), "queue-event-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            dispatcher = null;
+        }
+    }
+
+    private void dispatch(LongSupplier resync, Consumer<List<QueueEvent>> consumer) {
+        long applied = 0; // Events up to this sequence are already in the last snapshot
+        List<Published> drained = new ArrayList<>();
+        while (running) {
+            try {
+                if (resyncNeeded.getAndSet(false)) {
+                    applied = resync.getAsLong();
+                }
+
+                Published first = events.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                drained.add(first);
+                events.drainTo(drained, maxBatch - 1);
+                // A fresh list per batch, so consumers may hand it to another thread
+                List<QueueEvent> batch = new ArrayList<>(drained.size());
+                for (Published published : drained) {
+                    if (published.sequence > applied) batch.add(published.event);
+                }
+                drained.clear();
+                if (!batch.isEmpty()) consumer.accept(batch);
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                CoffeeShopLogger.getInstance().logEvent("Observer failed to handle queue events: " + e.getMessage());
+            }
+        }
+    }
+}
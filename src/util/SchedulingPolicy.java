@@ -0,0 +1,284 @@
+package util;
+
+import model.Order;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Decides which queued order is served next. OrderQueue calls every method while holding its lock,
+// so implementations need no synchronization of their own. add and poll are O(log n).
+public interface SchedulingPolicy {
+    void add(Order order);
+
+    // Next order to serve, or null when empty
+    Order poll();
+
+    // Remove the walk-in that would be served last (load shedding), or null when no walk-in is queued.
+    // O(n), but only used while the queue is full.
+    Order shedWalkIn();
+
+    int preOrderCount();
+
+    int walkInCount();
+
+    // Queued orders in no particular order
+    List<Order> orders();
+
+    String getName();
+
+    static boolean isPreOrder(Order order) {
+        return "PRE_ORDER".equals(order.getOrderType());
+    }
+
+    static SchedulingPolicy byName(String name) {
+        switch (name) {
+            case "strict":
+                return new StrictPriority();
+            case "sjf":
+                return new ShortestJobFirst();
+            case "fair":
+                return new WeightedFairShare(3, 1);
+            case "aging":
+                return new Aging(60_000);
+            case "edf":
+                return new EarliestDeadlineFirst(5 * 60_000);
+            default:
+                throw new IllegalArgumentException("Unknown scheduling policy: " + name + " (strict, sjf, fair, aging, edf)");
+        }
+    }
+
+    // Heap entry with a fixed key computed at enqueue; seq breaks ties in arrival order
+    final class Entry implements Comparable<Entry> {
+        final Order order;
+        final long key;
+        final long seq;
+
+        Entry(Order order, long key, long seq) {
+            this.order = order;
+            this.key = key;
+            this.seq = seq;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byKey = Long.compare(key, other.key);
+            return byKey != 0 ? byKey : Long.compare(seq, other.seq);
+        }
+    }
+
+    // One heap ordered by a per-order key
+    abstract class SingleHeap implements SchedulingPolicy {
+        private final PriorityQueue<Entry> heap = new PriorityQueue<>();
+        private long seq;
+        private int preOrders;
+
+        protected abstract long key(Order order);
+
+        @Override
+        public void add(Order order) {
+            heap.add(new Entry(order, key(order), seq++));
+            if (isPreOrder(order)) preOrders++;
+        }
+
+        @Override
+        public Order poll() {
+            Entry next = heap.poll();
+            if (next == null) return null;
+            if (isPreOrder(next.order)) preOrders--;
+            return next.order;
+        }
+
+        @Override
+        public Order shedWalkIn() {
+            Entry last = null;
+            for (Entry entry : heap) {
+                if (!isPreOrder(entry.order) && (last == null || entry.compareTo(last) > 0)) {
+                    last = entry;
+                }
+            }
+            if (last == null) return null;
+            heap.remove(last);
+            return last.order;
+        }
+
+        @Override
+        public int preOrderCount() {
+            return preOrders;
+        }
+
+        @Override
+        public int walkInCount() {
+            return heap.size() - preOrders;
+        }
+
+        @Override
+        public List<Order> orders() {
+            List<Order> result = new ArrayList<>(heap.size());
+            heap.forEach(entry -> result.add(entry.order));
+            return result;
+        }
+    }
+
+    // The original behaviour: every pre-order before any walk-in, each lane first come first served
+    class StrictPriority implements SchedulingPolicy {
+        protected final PriorityQueue<Entry> preOrders = new PriorityQueue<>();
+        protected final PriorityQueue<Entry> walkIns = new PriorityQueue<>();
+        private long seq;
+
+        @Override
+        public void add(Order order) {
+            (isPreOrder(order) ? preOrders : walkIns).add(new Entry(order, order.getEnqueueTime(), seq++));
+        }
+
+        @Override
+        public Order poll() {
+            Entry next = !preOrders.isEmpty() ? preOrders.poll() : walkIns.poll();
+            return next == null ? null : next.order;
+        }
+
+        @Override
+        public Order shedWalkIn() {
+            Entry last = null;
+            for (Entry entry : walkIns) {
+                if (last == null || entry.compareTo(last) > 0) {
+                    last = entry;
+                }
+            }
+            if (last == null) return null;
+            walkIns.remove(last);
+            return last.order;
+        }
+
+        @Override
+        public int preOrderCount() {
+            return preOrders.size();
+        }
+
+        @Override
+        public int walkInCount() {
+            return walkIns.size();
+        }
+
+        @Override
+        public List<Order> orders() {
+            List<Order> result = new ArrayList<>(preOrders.size() + walkIns.size());
+            preOrders.forEach(entry -> result.add(entry.order));
+            walkIns.forEach(entry -> result.add(entry.order));
+            return result;
+        }
+
+        @Override
+        public String getName() {
+            return "strict";
+        }
+    }
+
+    // Fewest items first, regardless of lane; large orders can starve under sustained load
+    class ShortestJobFirst extends SingleHeap {
+        @Override
+        protected long key(Order order) {
+            return order.getItems().size();
+        }
+
+        @Override
+        public String getName() {
+            return "sjf";
+        }
+    }
+
+    // Stride scheduling between the lanes: with weights 3:1, three pre-orders are served per walk-in
+    // while both lanes are busy, and a lane that was idle cannot bank credit for later
+    class WeightedFairShare extends StrictPriority {
+        private final double preOrderStride;
+        private final double walkInStride;
+        private double preOrderPass;
+        private double walkInPass;
+
+        public WeightedFairShare(double preOrderWeight, double walkInWeight) {
+            if (preOrderWeight <= 0 || walkInWeight <= 0) throw new IllegalArgumentException("Lane weights must be greater than 0");
+            this.preOrderStride = 1.0 / preOrderWeight;
+            this.walkInStride = 1.0 / walkInWeight;
+        }
+
+        @Override
+        public void add(Order order) {
+            if (isPreOrder(order) && preOrders.isEmpty()) {
+                preOrderPass = Math.max(preOrderPass, walkInPass);
+            } else if (!isPreOrder(order) && walkIns.isEmpty()) {
+                walkInPass = Math.max(walkInPass, preOrderPass);
+            }
+            super.add(order);
+        }
+
+        @Override
+        public Order poll() {
+            boolean servePreOrder = !preOrders.isEmpty() && (walkIns.isEmpty() || preOrderPass <= walkInPass);
+            if (servePreOrder) {
+                preOrderPass += preOrderStride;
+                return preOrders.poll().order;
+            }
+            if (walkIns.isEmpty()) return null;
+            walkInPass += walkInStride;
+            return walkIns.poll().order;
+        }
+
+        @Override
+        public String getName() {
+            return "fair";
+        }
+    }
+
+    // Pre-orders get a head start of preOrderBonusMillis; a walk-in that has waited longer than that
+    // overtakes newer pre-orders. The key is fixed at enqueue, because every order ages at the same rate.
+    class Aging extends SingleHeap {
+        private final long preOrderBonusMillis;
+
+        public Aging(long preOrderBonusMillis) {
+            this.preOrderBonusMillis = preOrderBonusMillis;
+        }
+
+        @Override
+        protected long key(Order order) {
+            return order.getEnqueueTime() - (isPreOrder(order) ? preOrderBonusMillis : 0);
+        }
+
+        @Override
+        public String getName() {
+            return "aging";
+        }
+    }
+
+    // Pre-orders are due at their pickup time (the order timestamp); walk-ins are due
+    // walkInTargetMillis after they joined the queue
+    class EarliestDeadlineFirst extends SingleHeap {
+        private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        private final long walkInTargetMillis;
+
+        public EarliestDeadlineFirst(long walkInTargetMillis) {
+            this.walkInTargetMillis = walkInTargetMillis;
+        }
+
+        @Override
+        protected long key(Order order) {
+            if (isPreOrder(order)) {
+                try {
+                    return LocalDateTime.parse(order.getTimeStamp(), TIMESTAMP)
+                            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                } catch (DateTimeParseException | NullPointerException e) {
+                    return order.getEnqueueTime(); // No usable pickup time: due now
+                }
+            }
+            return order.getEnqueueTime() + walkInTargetMillis;
+        }
+
+        @Override
+        public String getName() {
+            return "edf";
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Custom Java Flight Recorder events for the order lifecycle.
+// Enable them with src/coffeeshop.jfc; when recording is off each emit is a single isEnabled() check.
+public final class ShopEvents {
+    private ShopEvents() {
+    }
+
+    @Name("coffeeshop.OrderEnqueued")
+    @Label("Order Enqueued")
+    @Category({"Coffee Shop", "Queue"})
+    @StackTrace(false)
+    public static class OrderEnqueued extends Event {
+        @Label("Order ID")
+        public String orderId;
+
+        @Label("Order Type")
+        public String orderType;
+
+        @Label("Items")
+        public int itemCount;
+
+        @Label("Queue Size")
+        public int queueSize;
+    }
+
+    @Name("coffeeshop.OrderDequeued")
+    @Label("Order Dequeued")
+    @Category({"Coffee Shop", "Queue"})
+    @StackTrace(false)
+    public static class OrderDequeued extends Event {
+        @Label("Order ID")
+        public String orderId;
+
+        @Label("Order Type")
+        public String orderType;
+
+        @Label("Queue Wait")
+        @Timespan(Timespan.MILLISECONDS)
+        public long queueWait;
+
+        @Label("Queue Size")
+        public int queueSize;
+    }
+
+    // Time a producer spent blocked in OrderQueue.addOrder/offerOrder because the queue was full
+    @Name("coffeeshop.QueueFullWait")
+    @Label("Queue Full Wait")
+    @Category({"Coffee Shop", "Queue"})
+    @Description("Producer blocked on OrderQueue.lock waiting for free capacity")
+    public static class QueueFullWait extends Event {
+        @Label("Order ID")
+        public String orderId;
+
+        @Label("Max Size")
+        public int maxSize;
+
+        @Label("Admitted")
+        @Description("False when the admission timeout ran out or the wait was interrupted")
+        public boolean admitted;
+    }
+
+    @Name("coffeeshop.ServiceStarted")
+    @Label("Service Started")
+    @Category({"Coffee Shop", "Servers"})
+    @StackTrace(false)
+    public static class ServiceStarted extends Event {
+        @Label("Server")
+        public String server;
+
+        @Label("Order ID")
+        public String orderId;
+
+        @Label("Items")
+        public int itemCount;
+    }
+
+    // Duration event spanning the whole preparation of one order
+    @Name("coffeeshop.ServiceCompleted")
+    @Label("Service Completed")
+    @Category({"Coffee Shop", "Servers"})
+    @StackTrace(false)
+    public static class ServiceCompleted extends Event {
+        @Label("Server")
+        public String server;
+
+        @Label("Order ID")
+        public String orderId;
+
+        @Label("Items")
+        public int itemCount;
+    }
+
+    @Name("coffeeshop.DiscountComputed")
+    @Label("Discount Computed")
+    @Category({"Coffee Shop", "Pricing"})
+    @StackTrace(false)
+    public static class DiscountComputed extends Event {
+        @Label("Order ID")
+        public String orderId;
+
+        @Label("Items")
+        public int itemCount;
+
+        @Label("Discount")
+        public String description;
+
+        @Label("Discount Amount")
+        public double discountAmount;
+    }
+}
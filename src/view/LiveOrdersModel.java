@@ -0,0 +1,63 @@
+package view;
+
+import model.Order;
+
+import javax.swing.AbstractListModel;
+
+// Fixed-capacity ring of recent orders for the Live Orders list, newest first.
+// Adding is O(1) and only fires the rows that changed; once full, the oldest order drops off the end.
+// Each order's one-line summary is formatted once, when it is added. Must be used on the EDT.
+public class LiveOrdersModel extends AbstractListModel<String> {
+    private final Order[] orders;
+    private final String[] summaries;
+    private int next; // Slot the next order goes into
+    private int size;
+
+    public LiveOrdersModel(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be greater than 0");
+        this.orders = new Order[capacity];
+        this.summaries = new String[capacity];
+    }
+
+    public void add(Order order) {
+        if (size == orders.length) {
+            size--;
+            fireIntervalRemoved(this, size, size);
+        }
+        orders[next] = order;
+        summaries[next] = summarize(order);
+        next = (next + 1) % orders.length;
+        size++;
+        fireIntervalAdded(this, 0, 0);
+    }
+
+    public Order getOrderAt(int index) {
+        return orders[slot(index)];
+    }
+
+    public int getCapacity() {
+        return orders.length;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return summaries[slot(index)];
+    }
+
+    // Index 0 is the newest order
+    private int slot(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        return Math.floorMod(next - 1 - index, orders.length);
+    }
+
+    // One line, e.g. "ORD-1A2B3C4D  User  WALK_IN  Latte ×2, Cake ×1  $9.60"
+    static String summarize(Order order) {
+        return String.format("%s  %s  %s  %s  $%.2f%s", order.getOrderId(), order.getCustomerName(), order.getOrderType(),
+                QueueTableModel.summarizeItems(order), order.getTotalPrice(), order.isCancelled() ? "  (cancelled)" : "");
+    }
+}
@@ -2,19 +2,38 @@ package view;
 
 import model.*;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.TableModel;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.util.*;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MainView extends JFrame implements QueueObserver {
+    private static final int LIVE_ORDERS = 200; // Recent orders kept for the Live Orders tab
+    private static final int ORDER_PAGE = 50;   // Orders per history page
+
     // Core components
     private final JTabbedPane tabbedPane = new JTabbedPane();
-    private final JPanel productPanel = new JPanel();
-    private final JTextArea orderSummaryArea = new JTextArea();
-    private final JTextArea queueTextArea = new JTextArea();
-    private final JTextArea serversTextArea = new JTextArea();
+    private final JPanel productPanel = new JPanel(new BorderLayout());
+    private final JTextField productSearchField = new JTextField(20);
+    private final JComboBox<String> categoryFilter = new JComboBox<>();
+    private ProductGrid productGrid;
+    private JScrollPane productScroll;
+    private final LiveOrdersModel liveOrdersModel = new LiveOrdersModel(LIVE_ORDERS);
+    private final JList<String> orderList = new JList<>(liveOrdersModel);
+    private final JTextArea orderDetailArea = new JTextArea();
+    private final JLabel orderPageLabel = new JLabel("Live");
+    private final JButton newerOrdersButton = new JButton("◀ Newer");
+    private final JButton olderOrdersButton = new JButton("Older ▶");
+    private final QueueTableModel queueTableModel = new QueueTableModel();
+    private final ServerTableModel serverTableModel = new ServerTableModel();
+    private final JLabel queueStatusLabel = new JLabel("There are 0 orders waiting to be processed");
     private final JButton placeOrderButton = new JButton("Place Order");
     private final JButton startSimulationButton = new JButton("Start Simulation");
     private final JButton stopSimulationButton = new JButton("Stop Simulation");
@@ -24,9 +43,12 @@ public class MainView extends JFrame implements QueueObserver {
     private final JLabel discountInfoLabel = new JLabel("No Discount");
 
     // Status tracking
-    private final Map<String, JLabel> stockLabels = new HashMap<>();
-    private final Map<Product, JLabel> quantityLabels = new HashMap<>();
-    private final StringBuilder allOrderSummaries = new StringBuilder();
+    private BiFunction<Integer, Integer, List<Order>> orderHistory; // (offset, limit) -> orders, newest first
+    private int orderPage; // 0 = live feed, n = nth page of the order history
+
+    // Pending status-panel updates, applied in order; at most one flush is queued on the EDT at any time
+    private final ConcurrentLinkedQueue<Runnable> pendingUpdates = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
 
 
     public MainView() {
@@ -45,9 +67,7 @@ public class MainView extends JFrame implements QueueObserver {
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
                 Graphics2D g2d = (Graphics2D) g;
-                Color color1 = new Color(255, 248, 240);  // Light beige
-                Color color2 = new Color(220, 240, 255);  // Light blue
-                GradientPaint gp = new GradientPaint(0, 0, color1, getWidth(), getHeight(), color2);
+                GradientPaint gp = new GradientPaint(0, 0, Theme.BACKGROUND_TOP, getWidth(), getHeight(), Theme.BACKGROUND_BOTTOM);
                 g2d.setPaint(gp);
                 g2d.fillRect(0, 0, getWidth(), getHeight());
             }
@@ -76,22 +96,22 @@ public class MainView extends JFrame implements QueueObserver {
         panel.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
 
         JLabel totalLabel = new JLabel("Total Price:");
-        totalLabel.setFont(new Font("Microsoft YaHei", Font.BOLD, 16));
+        totalLabel.setFont(Theme.BOLD_16);
         panel.add(totalLabel);
 
-        totalPriceLabel.setFont(new Font("Microsoft YaHei", Font.BOLD, 16));
-        totalPriceLabel.setForeground(new Color(0, 100, 0));  // Dark green
+        totalPriceLabel.setFont(Theme.BOLD_16);
+        totalPriceLabel.setForeground(Theme.PRICE);  // Dark green
         panel.add(totalPriceLabel);
 
         JLabel discountLabel = new JLabel("Discounted Price:");
-        discountLabel.setFont(new Font("Microsoft YaHei", Font.BOLD, 16));
+        discountLabel.setFont(Theme.BOLD_16);
         panel.add(discountLabel);
 
-        discountedPriceLabel.setFont(new Font("Microsoft YaHei", Font.BOLD, 16));
+        discountedPriceLabel.setFont(Theme.BOLD_16);
         discountedPriceLabel.setForeground(new Color(200, 0, 0));  // Dark red
         panel.add(discountedPriceLabel);
 
-        discountInfoLabel.setFont(new Font("Microsoft YaHei", Font.PLAIN, 14));
+        discountInfoLabel.setFont(Theme.PLAIN_14);
         discountInfoLabel.setForeground(new Color(150, 0, 150));
         panel.add(discountInfoLabel);
 
@@ -100,28 +120,123 @@ public class MainView extends JFrame implements QueueObserver {
 
 
     private void initProductTab() {
-        productPanel.setLayout(new GridLayout(0, 2, 15, 15));
         productPanel.setOpaque(false);
         productPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
 
-        JScrollPane productScroll = new JScrollPane(productPanel);
-        productScroll.setOpaque(false);
-        productScroll.getViewport().setOpaque(false);
-        tabbedPane.addTab("Product Menu", productScroll);
+        // Search bar: filters on every keystroke through the product search index
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.setOpaque(false);
+        JLabel searchLabel = new JLabel("Search:");
+        searchLabel.setFont(Theme.PLAIN_14);
+        searchPanel.add(searchLabel);
+        productSearchField.setFont(Theme.PLAIN_14);
+        productSearchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterProducts();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterProducts();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterProducts();
+            }
+        });
+        searchPanel.add(productSearchField);
+        categoryFilter.setFont(Theme.PLAIN_14);
+        categoryFilter.addActionListener(e -> filterProducts());
+        searchPanel.add(categoryFilter);
+        productPanel.add(searchPanel, BorderLayout.NORTH);
+
+        tabbedPane.addTab("Product Menu", productPanel);
+    }
+
+    private void filterProducts() {
+        if (productGrid != null) {
+            productGrid.filter(productSearchField.getText(), (String) categoryFilter.getSelectedItem());
+        }
     }
 
 
     private void initOrderTab() {
-        orderSummaryArea.setEditable(false);
-        orderSummaryArea.setOpaque(false);
-        orderSummaryArea.setFont(new Font("Microsoft YaHei", Font.PLAIN, 14));
-        orderSummaryArea.setLineWrap(true);
-        orderSummaryArea.setWrapStyleWord(true);
-
-        JScrollPane orderScroll = new JScrollPane(orderSummaryArea);
-        orderScroll.setOpaque(false);
-        orderScroll.getViewport().setOpaque(false);
-        tabbedPane.addTab("Live Orders", orderScroll);
+        // Only the visible rows are rendered; fixed row height keeps layout independent of the list size
+        orderList.setFont(Theme.PLAIN_14);
+        orderList.setFixedCellHeight(24);
+        orderList.setPrototypeCellValue("ORD-00000000  Customer  WALK_IN  Latte ×2, Cake ×1  $00.00");
+        orderList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        orderList.addListSelectionListener(e -> showSelectedOrder());
+
+        orderDetailArea.setEditable(false);
+        orderDetailArea.setOpaque(false);
+        orderDetailArea.setFont(Theme.PLAIN_14);
+        orderDetailArea.setLineWrap(true);
+        orderDetailArea.setWrapStyleWord(true);
+
+        newerOrdersButton.addActionListener(e -> showOrderPage(orderPage - 1));
+        olderOrdersButton.addActionListener(e -> showOrderPage(orderPage + 1));
+        newerOrdersButton.setEnabled(false);
+        olderOrdersButton.setEnabled(false);
+        JPanel pagePanel = new JPanel(new FlowLayout());
+        pagePanel.setOpaque(false);
+        pagePanel.add(newerOrdersButton);
+        pagePanel.add(orderPageLabel);
+        pagePanel.add(olderOrdersButton);
+
+        JScrollPane listScroll = new JScrollPane(orderList);
+        JScrollPane detailScroll = new JScrollPane(orderDetailArea);
+        detailScroll.setOpaque(false);
+        detailScroll.getViewport().setOpaque(false);
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, listScroll, detailScroll);
+        split.setResizeWeight(0.6);
+        split.setOpaque(false);
+
+        JPanel orderPanel = new JPanel(new BorderLayout());
+        orderPanel.setOpaque(false);
+        orderPanel.add(pagePanel, BorderLayout.NORTH);
+        orderPanel.add(split, BorderLayout.CENTER);
+        tabbedPane.addTab("Live Orders", orderPanel);
+    }
+
+    private void showSelectedOrder() {
+        int index = orderList.getSelectedIndex();
+        if (index < 0) {
+            orderDetailArea.setText("");
+            return;
+        }
+        orderDetailArea.setText(((LiveOrdersModel) orderList.getModel()).getOrderAt(index).getOrderDetails());
+        orderDetailArea.setCaretPosition(0);
+    }
+
+    // Page 0 is the live ring; older pages are loaded from the order history on demand
+    private void showOrderPage(int page) {
+        if (page <= 0 || orderHistory == null) {
+            orderPage = 0;
+            orderList.setModel(liveOrdersModel);
+            orderPageLabel.setText("Live");
+        } else {
+            List<Order> orders = orderHistory.apply((page - 1) * ORDER_PAGE, ORDER_PAGE);
+            if (orders.isEmpty()) return; // Already at the oldest page
+            orderPage = page;
+            LiveOrdersModel pageModel = new LiveOrdersModel(ORDER_PAGE);
+            for (int i = orders.size() - 1; i >= 0; i--) {
+                pageModel.add(orders.get(i)); // Oldest first, so the newest ends up on top
+            }
+            orderList.setModel(pageModel);
+            orderPageLabel.setText("History page " + page);
+        }
+        newerOrdersButton.setEnabled(orderPage > 0);
+        olderOrdersButton.setEnabled(orderHistory != null);
+        showSelectedOrder();
+    }
+
+    // Source for older orders: (offset, limit) -> orders, newest first
+    public void setOrderHistory(BiFunction<Integer, Integer, List<Order>> orderHistory) {
+        this.orderHistory = orderHistory;
+        SwingUtilities.invokeLater(() -> olderOrdersButton.setEnabled(orderHistory != null));
     }
 
 
@@ -133,7 +248,7 @@ public class MainView extends JFrame implements QueueObserver {
         JTextArea discountTextArea = new JTextArea();
         discountTextArea.setEditable(false);
         discountTextArea.setOpaque(false);
-        discountTextArea.setFont(new Font("Microsoft YaHei", Font.PLAIN, 14));
+        discountTextArea.setFont(Theme.PLAIN_14);
         discountTextArea.setLineWrap(true);
         discountTextArea.setWrapStyleWord(true);
 
@@ -168,8 +283,8 @@ public class MainView extends JFrame implements QueueObserver {
         controlPanel.setOpaque(false);
 
         // Initialize buttons
-        startSimulationButton.setFont(new Font("Microsoft YaHei", Font.PLAIN, 14));
-        stopSimulationButton.setFont(new Font("Microsoft YaHei", Font.PLAIN, 14));
+        startSimulationButton.setFont(Theme.PLAIN_14);
+        stopSimulationButton.setFont(Theme.PLAIN_14);
         stopSimulationButton.setEnabled(false);
 
         // Speed adjustment slider
@@ -182,15 +297,18 @@ public class MainView extends JFrame implements QueueObserver {
         controlPanel.add(new JLabel("Wait Time for Servers (Please adjust before starting simulation):"));
         controlPanel.add(speedSlider);
 
-        // Status display area
-        queueTextArea.setEditable(false);
-        queueTextArea.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
-        serversTextArea.setEditable(false);
-        serversTextArea.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
+        // Status display area (tables only render the rows in view)
+        JTable queueTable = createStatusTable(queueTableModel);
+        JTable serversTable = createStatusTable(serverTableModel);
+        queueStatusLabel.setFont(Theme.BOLD_12);
+
+        JPanel queuePanel = new JPanel(new BorderLayout());
+        queuePanel.add(queueStatusLabel, BorderLayout.NORTH);
+        queuePanel.add(new JScrollPane(queueTable), BorderLayout.CENTER);
 
         JPanel displayPanel = new JPanel(new GridLayout(1, 2));
-        displayPanel.add(new JScrollPane(queueTextArea));
-        displayPanel.add(new JScrollPane(serversTextArea));
+        displayPanel.add(queuePanel);
+        displayPanel.add(new JScrollPane(serversTable));
 
         simulationPanel.add(controlPanel, BorderLayout.NORTH);
         simulationPanel.add(displayPanel, BorderLayout.CENTER);
@@ -199,116 +317,34 @@ public class MainView extends JFrame implements QueueObserver {
     }
 
 
+    private JTable createStatusTable(TableModel model) {
+        JTable table = new JTable(model);
+        table.setFont(Theme.PLAIN_12);
+        table.setFillsViewportHeight(true);
+        table.setEnabled(false);
+        return table;
+    }
+
     private void configureOrderButton() {
-        placeOrderButton.setFont(new Font("Microsoft YaHei", Font.BOLD, 16));
+        placeOrderButton.setFont(Theme.BOLD_16);
         placeOrderButton.setBackground(new Color(70, 130, 180));
         placeOrderButton.setForeground(Color.WHITE);
         placeOrderButton.setFocusPainted(false);
         placeOrderButton.setBorder(BorderFactory.createEmptyBorder(10, 0, 10, 0));
     }
 
-    public void addProductCard(Product product, ActionListener addAction, ActionListener removeAction) {
-        // Create product card panel
-        JPanel cardPanel = new JPanel(new BorderLayout()) {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2d = (Graphics2D) g;
-                g2d.setColor(new Color(255, 255, 255, 220));
-                g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 15, 15);
-                g2d.setColor(new Color(200, 200, 200, 100));
-                g2d.drawRoundRect(0, 0, getWidth()-1, getHeight()-1, 15, 15);
-            }
-        };
-        cardPanel.setOpaque(false);
-        cardPanel.setPreferredSize(new Dimension(380, 180));
-
-        // Product info panel
-        JPanel infoPanel = new JPanel();
-        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
-        infoPanel.setOpaque(false);
-        infoPanel.setBorder(BorderFactory.createEmptyBorder(10, 15, 10, 15));
-
-        JLabel nameLabel = new JLabel("<html><b><font size=+1>" + product.getName() + "</font></b></html>");
-        nameLabel.setFont(new Font("Microsoft YaHei", Font.BOLD, 14));
-        infoPanel.add(nameLabel);
-        infoPanel.add(Box.createVerticalStrut(5));
-
-        // Product description
-        JTextArea descriptionArea = new JTextArea(product.getDescription());
-        descriptionArea.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
-        descriptionArea.setLineWrap(true);
-        descriptionArea.setWrapStyleWord(true);
-        descriptionArea.setEditable(false);
-        descriptionArea.setOpaque(false);
-        descriptionArea.setMaximumSize(new Dimension(350, 40));
-        infoPanel.add(descriptionArea);
-        infoPanel.add(Box.createVerticalStrut(5));
-
-        // Product category and price
-        JPanel detailPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
-        detailPanel.setOpaque(false);
-
-        JLabel categoryLabel = new JLabel("Category: " + product.getCategory());
-        categoryLabel.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
-        detailPanel.add(categoryLabel);
-
-        JLabel priceLabel = new JLabel("Price: $" + product.getPrice());
-        priceLabel.setFont(new Font("Microsoft YaHei", Font.BOLD, 13));
-        priceLabel.setForeground(new Color(0, 100, 0));
-        detailPanel.add(priceLabel);
-
-        infoPanel.add(detailPanel);
-
-        // Stock info
-        JLabel stockLabel = new JLabel("Stock: " + product.getStock());
-        stockLabel.setFont(new Font("Microsoft YaHei", Font.PLAIN, 12));
-        stockLabel.setForeground(new Color(100, 100, 100));
-        infoPanel.add(stockLabel);
-        stockLabels.put(product.getId(), stockLabel);
-
-        // Quantity selection panel
-        JPanel quantityPanel = new JPanel();
-        quantityPanel.setOpaque(false);
-        quantityPanel.setLayout(new BoxLayout(quantityPanel, BoxLayout.X_AXIS));
-        quantityPanel.setBorder(BorderFactory.createEmptyBorder(5, 0, 0, 0));
-
-        // Minus button
-        JButton minusButton = new JButton("-");
-        minusButton.setFont(new Font("Microsoft YaHei", Font.BOLD, 14));
-        minusButton.setPreferredSize(new Dimension(30, 30));
-        minusButton.setBackground(new Color(255, 150, 150));
-        minusButton.setForeground(Color.WHITE);
-        minusButton.setFocusPainted(false);
-        minusButton.addActionListener(e -> {
-            int currentQty = Integer.parseInt(quantityLabels.get(product).getText());
-            if (currentQty > 0) {
-                quantityLabels.get(product).setText(String.valueOf(currentQty - 1));
-                removeAction.actionPerformed(e); // Notify controller about quantity decrease
-            } else {
-                showMessage("Invalid Operation", "Purchase quantity cannot be less than 0", JOptionPane.WARNING_MESSAGE);
-            }
-        });
-
-
-        // Quantity display label
-        JLabel quantityLabel = new JLabel("0");
-        quantityLabel.setFont(new Font("Microsoft YaHei", Font.BOLD, 14));
-        quantityLabel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 10));
-        quantityLabels.put(product, quantityLabel);
-
-        // Plus button
-        JButton plusButton = new JButton("+");
-        plusButton.setFont(new Font("Microsoft YaHei", Font.BOLD, 14));
-        plusButton.setPreferredSize(new Dimension(30, 30));
-        plusButton.setBackground(new Color(150, 200, 150));
-        plusButton.setForeground(Color.WHITE);
-        plusButton.setFocusPainted(false);
-        plusButton.addActionListener(e -> {
-            int currentQty = Integer.parseInt(quantityLabels.get(product).getText());
+    // Show the menu; the actions are called after the view has checked the quantity change.
+    // Called again after a menu reload: selected quantities, search and category carry over by product id.
+    public void setProducts(List<Product> products, Consumer<Product> addAction, Consumer<Product> removeAction) {
+        ProductGrid previous = productGrid;
+        Object selectedCategory = categoryFilter.getSelectedItem();
+        productGrid = new ProductGrid(products);
+        if (previous != null) productGrid.copyQuantities(previous);
+        productGrid.setActions(product -> {
+            int currentQty = productGrid.getQuantity(product);
             if (currentQty < product.getStock()) {
-                quantityLabels.get(product).setText(String.valueOf(currentQty + 1));
-                addAction.actionPerformed(e); // Notify controller about quantity increase
+                productGrid.setQuantity(product, currentQty + 1);
+                addAction.accept(product); // Notify controller about quantity increase
             } else {
                 showMessage("Insufficient Stock",
                         "Not enough stock!\n" + product.getName() +
@@ -316,60 +352,61 @@ public class MainView extends JFrame implements QueueObserver {
                                 "\nMaximum addable quantity: " + product.getStock(),
                         JOptionPane.WARNING_MESSAGE);
             }
+        }, product -> {
+            int currentQty = productGrid.getQuantity(product);
+            if (currentQty > 0) {
+                productGrid.setQuantity(product, currentQty - 1);
+                removeAction.accept(product); // Notify controller about quantity decrease
+            } else {
+                showMessage("Invalid Operation", "Purchase quantity cannot be less than 0", JOptionPane.WARNING_MESSAGE);
+            }
         });
+        categoryFilter.setModel(new DefaultComboBoxModel<>(productGrid.getCategories().toArray(new String[0])));
+        if (selectedCategory != null) categoryFilter.setSelectedItem(selectedCategory); // Ignored if it is gone
+        filterProducts();
 
-
-        quantityPanel.add(minusButton);
-        quantityPanel.add(quantityLabel);
-        quantityPanel.add(plusButton);
-        infoPanel.add(quantityPanel);
-
-        cardPanel.add(infoPanel, BorderLayout.CENTER);
-        productPanel.add(cardPanel);
+        if (productScroll != null) productPanel.remove(productScroll);
+        productScroll = new JScrollPane(productGrid);
+        productScroll.setOpaque(false);
+        productScroll.getViewport().setOpaque(false);
+        productPanel.add(productScroll, BorderLayout.CENTER);
+        productPanel.revalidate();
+        productPanel.repaint();
     }
 
+    // Must run on the EDT
     public void updatePriceDisplay(double totalPrice, double discountedPrice, String discountInfo) {
-        SwingUtilities.invokeLater(() -> {
-            totalPriceLabel.setText(String.format("$%.2f", totalPrice));
-            discountedPriceLabel.setText(String.format("$%.2f", discountedPrice));
-            discountInfoLabel.setText(discountInfo);
-        });
+        totalPriceLabel.setText(String.format("$%.2f", totalPrice));
+        discountedPriceLabel.setText(String.format("$%.2f", discountedPrice));
+        discountInfoLabel.setText(discountInfo);
     }
 
     public void updateProductStock(Product product) {
         SwingUtilities.invokeLater(() -> {
-            JLabel label = stockLabels.get(product.getId());
-            if (label != null) {
-                label.setText("Stock: " + product.getStock());
-                if (product.getStock() < 3) {
-                    label.setForeground(Color.RED);
-                } else {
-                    label.setForeground(new Color(100, 100, 100));
-                }
-
-                // Update quantity label
-                JLabel qtyLabel = quantityLabels.get(product);
-                if (qtyLabel != null) {
-                    int currentQty = Integer.parseInt(qtyLabel.getText());
-                    if (currentQty > product.getStock()) {
-                        qtyLabel.setText(String.valueOf(product.getStock()));
-                    }
-                }
+            if (productGrid == null) return;
+            if (productGrid.getQuantity(product) > product.getStock()) {
+                productGrid.setQuantity(product, product.getStock());
+            } else {
+                productGrid.repaintProduct(product); // Stock is painted from the product itself
             }
         });
     }
 
-    public void appendOrderNote(String note) {
+    // Add an order to the top of the Live Orders feed
+    public void addLiveOrder(Order order) {
+        SwingUtilities.invokeLater(() -> liveOrdersModel.add(order));
+    }
+
+    public void resetProductSelections() {
         SwingUtilities.invokeLater(() -> {
-            allOrderSummaries.insert(0, note + "\n");
-            orderSummaryArea.setText(allOrderSummaries.toString());
-            orderSummaryArea.setCaretPosition(0);
+            if (productGrid != null) productGrid.resetQuantities();
         });
     }
 
-    public void resetProductSelections() {
+    // Show what is left in the basket after an order took some of it
+    public void showSelectedQuantities(Map<Product, Integer> quantities) {
         SwingUtilities.invokeLater(() -> {
-            quantityLabels.values().forEach(label -> label.setText("0"));
+            if (productGrid != null) productGrid.setQuantities(quantities);
         });
     }
 
@@ -409,76 +446,41 @@ public class MainView extends JFrame implements QueueObserver {
 
     @Override
     public void updateQueue(List<Order> orders) {
-        SwingUtilities.invokeLater(() -> {
-            // Group orders by order ID, merging the display of the same orders
-            Map<String, List<Order>> groupedOrders = orders.stream()
-                    .collect(Collectors.groupingBy(Order::getOrderId));
-
-            StringBuilder queueText = new StringBuilder();
-            queueText.append("=== Current Queue Status ===\n");
-            queueText.append("There are ");
-            queueText.append(orders.size());
-            queueText.append(" orders waiting to be processed\n");
-
-            // Reserved orders
-            queueText.append("=== Reserved Orders ===\n");
-            groupedOrders.values().stream()
-                    .filter(list -> "PRE_ORDER".equals(list.get(0).getOrderType()))
-                    .forEach(orderList -> appendMergedOrder(queueText, orderList));
-
-            // Walk-in orders
-            queueText.append("\n=== Walk-in Orders ===\n");
-            groupedOrders.values().stream()
-                    .filter(list -> "WALK_IN".equals(list.get(0).getOrderType()))
-                    .forEach(orderList -> appendMergedOrder(queueText, orderList));
-
-            queueTextArea.setText(queueText.toString());
-        });
+        scheduleUpdate(() -> queueTableModel.applySnapshot(orders));
     }
 
-    private void appendMergedOrder(StringBuilder sb, List<Order> orders) {
-        if (orders.isEmpty()) return;
-
-        Order firstOrder = orders.get(0);
-        sb.append("Order ID: ").append(firstOrder.getOrderId()).append("\n");
-        sb.append("Customer: ").append(firstOrder.getCustomerName()).append("\n");
-        sb.append("Type: ").append(firstOrder.getOrderType()).append("\n");
-
-        // Merge all products
-        Map<Product, Long> allProducts = orders.stream()
-                .flatMap(order -> order.getItems().stream())
-                .collect(Collectors.groupingBy(p -> p, Collectors.counting()));
-
-        allProducts.forEach((product, count) -> {
-            sb.append(String.format("  %-15s ×%-2d @ $%-5.2f\n",
-                    product.getName(), count, product.getPrice()));
-        });
-
-        double totalPrice = orders.stream()
-                .mapToDouble(Order::getTotalPrice)
-                .sum();
-
-        sb.append(String.format("Total Price: $%.2f\n\n", totalPrice));
+    @Override
+    public void updateServers(List<ServerThread> servers) {
+        scheduleUpdate(() -> serverTableModel.applyServers(servers));
     }
 
     @Override
-    public void updateServers(List<ServerThread> servers) {
-        SwingUtilities.invokeLater(() -> {
-            StringBuilder sb = new StringBuilder();
-            sb.append("Server Status:\n\n");
-
-            for (ServerThread server : servers) {
-                sb.append(server.getName()).append(": ");
-                Order currentOrder = server.getCurrentOrder();
-                if (currentOrder != null) {
-                    sb.append(server.getCurrentOrderDetails());
-                } else {
-                    sb.append("Idle\n");
+    public void onQueueEvents(List<QueueEvent> events) {
+        scheduleUpdate(() -> {
+            queueTableModel.applyEvents(events);
+            for (QueueEvent event : events) {
+                if (event.getType() != QueueEvent.Type.ADDED) {
+                    serverTableModel.applyEvent(event);
                 }
             }
-
-            serversTextArea.setText(sb.toString());
         });
     }
 
+    // Coalesce: queue the update and only post a flush if none is pending
+    private void scheduleUpdate(Runnable update) {
+        pendingUpdates.add(update);
+        if (flushScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::flushUpdates);
+        }
+    }
+
+    private void flushUpdates() {
+        flushScheduled.set(false);
+        Runnable update;
+        while ((update = pendingUpdates.poll()) != null) {
+            update.run();
+        }
+        queueStatusLabel.setText("There are " + queueTableModel.getRowCount() + " orders waiting to be processed");
+    }
+
 }
@@ -0,0 +1,257 @@
+package view;
+
+import model.Product;
+import model.ProductSearchIndex;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Product menu as a wrapping JList: one renderer component paints every card, and only the cards in view
+// are painted, so the cost of the grid does not grow with the catalogue. The - and + buttons are painted
+// too and found by hit-testing the click inside the card. Filtering goes through a ProductSearchIndex.
+// Must be used on the EDT.
+public class ProductGrid extends JList<Product> {
+    static final int CARD_WIDTH = 380;
+    static final int CARD_HEIGHT = 180;
+    private static final int PAD = 15;
+    private static final int BUTTON = 30;
+    private static final Rectangle MINUS = new Rectangle(PAD, CARD_HEIGHT - PAD - BUTTON, BUTTON, BUTTON);
+    private static final Rectangle PLUS = new Rectangle(PAD + BUTTON + 40, CARD_HEIGHT - PAD - BUTTON, BUTTON, BUTTON);
+
+    private final List<Product> products;
+    private final ProductSearchIndex index;
+    private final FilteredModel model = new FilteredModel();
+    private final Map<Product, Integer> quantities = new HashMap<>();
+    private Consumer<Product> addAction = product -> { };
+    private Consumer<Product> removeAction = product -> { };
+
+    // The products currently shown, with a reverse index for repainting a single card
+    private class FilteredModel extends AbstractListModel<Product> {
+        private List<Product> shown = Collections.emptyList();
+        private final Map<Product, Integer> positions = new IdentityHashMap<>();
+
+        void show(List<Product> products) {
+            int old = shown.size();
+            shown = products;
+            positions.clear();
+            for (int i = 0; i < products.size(); i++) {
+                positions.put(products.get(i), i);
+            }
+            if (old > 0) fireIntervalRemoved(this, 0, old - 1);
+            if (!products.isEmpty()) fireIntervalAdded(this, 0, products.size() - 1);
+        }
+
+        int indexOf(Product product) {
+            Integer position = positions.get(product);
+            return position == null ? -1 : position;
+        }
+
+        @Override
+        public int getSize() {
+            return shown.size();
+        }
+
+        @Override
+        public Product getElementAt(int i) {
+            return shown.get(i);
+        }
+    }
+
+    public ProductGrid(List<Product> products) {
+        this.products = products;
+        this.index = new ProductSearchIndex(products);
+        setModel(model);
+        setLayoutOrientation(JList.HORIZONTAL_WRAP);
+        setVisibleRowCount(-1); // Wrap to the viewport width
+        setFixedCellWidth(CARD_WIDTH + PAD);
+        setFixedCellHeight(CARD_HEIGHT + PAD);
+        setOpaque(false);
+        setCellRenderer(new CardRenderer());
+        setSelectionModel(new DefaultListSelectionModel() {
+            @Override
+            public void setSelectionInterval(int index0, int index1) {
+                // Cards are not selectable; clicks only press their buttons
+            }
+        });
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                pressButtonAt(e.getPoint());
+            }
+        });
+        filter("", ProductSearchIndex.ALL_CATEGORIES);
+    }
+
+    public void setActions(Consumer<Product> addAction, Consumer<Product> removeAction) {
+        this.addAction = addAction;
+        this.removeAction = removeAction;
+    }
+
+    public List<String> getCategories() {
+        List<String> categories = new ArrayList<>();
+        categories.add(ProductSearchIndex.ALL_CATEGORIES);
+        categories.addAll(index.getCategories());
+        return categories;
+    }
+
+    public void filter(String query, String category) {
+        model.show(index.search(query, category));
+    }
+
+    public int getQuantity(Product product) {
+        return quantities.getOrDefault(product, 0);
+    }
+
+    public void setQuantity(Product product, int quantity) {
+        if (quantity == 0) {
+            quantities.remove(product);
+        } else {
+            quantities.put(product, quantity);
+        }
+        repaintProduct(product);
+    }
+
+    // Take over the quantities of another grid, matching products by id (after a menu reload)
+    public void copyQuantities(ProductGrid other) {
+        setQuantities(other.quantities);
+    }
+
+    // Show these quantities, matching products by id (they may be products of an older menu)
+    public void setQuantities(Map<Product, Integer> selected) {
+        Map<String, Integer> byId = new HashMap<>();
+        selected.forEach((product, quantity) -> byId.put(product.getId(), quantity));
+        quantities.clear();
+        for (Product product : products) {
+            Integer quantity = byId.get(product.getId());
+            if (quantity != null) quantities.put(product, quantity);
+        }
+        repaint();
+    }
+
+    public void resetQuantities() {
+        quantities.clear();
+        repaint();
+    }
+
+    // Repaint one card, if it is shown
+    public void repaintProduct(Product product) {
+        int i = model.indexOf(product);
+        if (i < 0) return;
+        Rectangle bounds = getCellBounds(i, i);
+        if (bounds != null) repaint(bounds);
+    }
+
+    private void pressButtonAt(Point point) {
+        int i = locationToIndex(point);
+        if (i < 0) return;
+        Rectangle bounds = getCellBounds(i, i);
+        if (bounds == null || !bounds.contains(point)) return;
+        Point inCard = new Point(point.x - bounds.x, point.y - bounds.y);
+        Product product = model.getElementAt(i);
+        if (MINUS.contains(inCard)) {
+            removeAction.accept(product);
+        } else if (PLUS.contains(inCard)) {
+            addAction.accept(product);
+        }
+    }
+
+    // Paints a whole card; one instance is reused for every visible product
+    private class CardRenderer extends JComponent implements ListCellRenderer<Product> {
+        private Product product;
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Product> list, Product value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            this.product = value;
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2d = (Graphics2D) g;
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2d.setColor(Theme.CARD_FILL);
+            g2d.fillRoundRect(0, 0, CARD_WIDTH, CARD_HEIGHT, 15, 15);
+            g2d.setColor(Theme.CARD_BORDER);
+            g2d.drawRoundRect(0, 0, CARD_WIDTH - 1, CARD_HEIGHT - 1, 15, 15);
+
+            int y = PAD + 16;
+            g2d.setColor(Color.BLACK);
+            g2d.setFont(Theme.BOLD_16);
+            g2d.drawString(product.getName(), PAD, y);
+
+            // Description, wrapped to at most two lines
+            g2d.setFont(Theme.PLAIN_12);
+            FontMetrics metrics = g2d.getFontMetrics();
+            y += 20;
+            for (String line : wrap(product.getDescription(), metrics, CARD_WIDTH - 2 * PAD, 2)) {
+                g2d.drawString(line, PAD, y);
+                y += metrics.getHeight();
+            }
+
+            y += 4;
+            String category = "Category: " + product.getCategory();
+            g2d.drawString(category, PAD, y);
+            g2d.setFont(Theme.BOLD_13);
+            g2d.setColor(Theme.PRICE);
+            g2d.drawString("Price: $" + product.getPrice(), PAD + metrics.stringWidth(category) + 10, y);
+
+            y += 18;
+            int stock = product.getStock();
+            g2d.setFont(Theme.PLAIN_12);
+            g2d.setColor(stock < 3 ? Color.RED : Theme.MUTED);
+            g2d.drawString("Stock: " + stock, PAD, y);
+
+            paintButton(g2d, MINUS, Theme.MINUS_BUTTON, "-");
+            paintButton(g2d, PLUS, Theme.PLUS_BUTTON, "+");
+            g2d.setColor(Color.BLACK);
+            g2d.setFont(Theme.BOLD_14);
+            String quantity = String.valueOf(getQuantity(product));
+            int quantityWidth = g2d.getFontMetrics().stringWidth(quantity);
+            g2d.drawString(quantity, MINUS.x + BUTTON + (PLUS.x - MINUS.x - BUTTON - quantityWidth) / 2, MINUS.y + 20);
+        }
+
+        private void paintButton(Graphics2D g2d, Rectangle r, Color fill, String label) {
+            g2d.setColor(fill);
+            g2d.fillRoundRect(r.x, r.y, r.width, r.height, 6, 6);
+            g2d.setColor(Color.WHITE);
+            g2d.setFont(Theme.BOLD_14);
+            int width = g2d.getFontMetrics().stringWidth(label);
+            g2d.drawString(label, r.x + (r.width - width) / 2, r.y + 20);
+        }
+    }
+
+    // Greedy word wrap; the last line is cut with "..." if the text does not fit
+    private static List<String> wrap(String text, FontMetrics metrics, int width, int maxLines) {
+        List<String> lines = new ArrayList<>(maxLines);
+        if (text == null || text.isEmpty()) return lines;
+        StringBuilder line = new StringBuilder();
+        for (String word : text.split(" ")) {
+            String candidate = line.length() == 0 ? word : line + " " + word;
+            if (metrics.stringWidth(candidate) <= width || line.length() == 0) {
+                line.setLength(0);
+                line.append(candidate);
+                continue;
+            }
+            if (lines.size() == maxLines - 1) {
+                lines.add(line + " ...");
+                return lines;
+            }
+            lines.add(line.toString());
+            line.setLength(0);
+            line.append(word);
+        }
+        lines.add(line.toString());
+        return lines;
+    }
+}
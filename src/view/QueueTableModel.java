@@ -0,0 +1,178 @@
+package view;
+
+import model.Order;
+import model.Product;
+import model.QueueEvent;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Table model for the waiting queue: reserved (pre-order) rows first, then walk-in rows.
+// It is maintained from change events, so each update costs time proportional to the events,
+// not the queue length, and row text is built lazily for rows that are actually painted.
+public class QueueTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"Order ID", "Customer", "Type", "Items", "Total"};
+
+    private final LaneRows preOrders = new LaneRows();
+    private final LaneRows walkIns = new LaneRows();
+    private final Set<Order> present = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private static class Row {
+        final Order order;
+        String items; // Built on first paint
+
+        Row(Order order) {
+            this.order = order;
+        }
+    }
+
+    // Rows of one lane; taking from the front only advances head, so FIFO removal is O(1)
+    private static class LaneRows {
+        private final ArrayList<Row> rows = new ArrayList<>();
+        private int head;
+
+        int size() {
+            return rows.size() - head;
+        }
+
+        Row get(int index) {
+            return rows.get(head + index);
+        }
+
+        void add(Row row) {
+            rows.add(row);
+        }
+
+        int indexOf(Order order) {
+            for (int i = head; i < rows.size(); i++) {
+                if (rows.get(i).order == order) return i - head;
+            }
+            return -1;
+        }
+
+        void remove(int index) {
+            if (index == 0) {
+                rows.set(head++, null);
+                if (head > 1024 && head > rows.size() / 2) {
+                    rows.subList(0, head).clear(); // Compact occasionally
+                    head = 0;
+                }
+            } else {
+                rows.remove(head + index);
+            }
+        }
+
+        void clear() {
+            rows.clear();
+            head = 0;
+        }
+    }
+
+    // Apply incremental events in publication order; must run on the EDT
+    public void applyEvents(List<QueueEvent> events) {
+        int insertedFrom = -1; // Pending run of walk-ins appended at the end
+        for (QueueEvent event : events) {
+            Order order = event.getOrder();
+            if (event.getType() == QueueEvent.Type.ADDED) {
+                if (!present.add(order)) continue; // Already known from a resync snapshot
+                if (isPreOrder(order)) {
+                    insertedFrom = flushInserted(insertedFrom);
+                    int index = preOrders.size();
+                    preOrders.add(new Row(order));
+                    fireTableRowsInserted(index, index);
+                } else {
+                    if (insertedFrom < 0) insertedFrom = getRowCount();
+                    walkIns.add(new Row(order));
+                }
+            } else if (event.getType() == QueueEvent.Type.TAKEN || event.getType() == QueueEvent.Type.REMOVED) {
+                if (!present.remove(order)) continue;
+                insertedFrom = flushInserted(insertedFrom);
+                LaneRows lane = isPreOrder(order) ? preOrders : walkIns;
+                int offset = lane == preOrders ? 0 : preOrders.size();
+                int index = lane.indexOf(order);
+                lane.remove(index);
+                fireTableRowsDeleted(offset + index, offset + index);
+            }
+        }
+        flushInserted(insertedFrom);
+    }
+
+    private int flushInserted(int insertedFrom) {
+        if (insertedFrom >= 0 && insertedFrom < getRowCount()) {
+            fireTableRowsInserted(insertedFrom, getRowCount() - 1);
+        }
+        return -1;
+    }
+
+    // Replace all rows with a full snapshot (initial state and resync only); must run on the EDT
+    public void applySnapshot(List<Order> snapshot) {
+        preOrders.clear();
+        walkIns.clear();
+        present.clear();
+        for (Order order : snapshot) {
+            present.add(order);
+            (isPreOrder(order) ? preOrders : walkIns).add(new Row(order));
+        }
+        fireTableDataChanged();
+    }
+
+    private static boolean isPreOrder(Order order) {
+        return "PRE_ORDER".equals(order.getOrderType());
+    }
+
+    @Override
+    public int getRowCount() {
+        return preOrders.size() + walkIns.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Row row = rowIndex < preOrders.size() ? preOrders.get(rowIndex) : walkIns.get(rowIndex - preOrders.size());
+        Order order = row.order;
+        switch (columnIndex) {
+            case 0:
+                return order.getOrderId();
+            case 1:
+                return order.getCustomerName();
+            case 2:
+                return order.getOrderType();
+            case 3:
+                if (row.items == null) {
+                    row.items = summarizeItems(order);
+                }
+                return row.items;
+            default:
+                return String.format("$%.2f", order.getTotalPrice());
+        }
+    }
+
+    // One-line item summary, e.g. "Latte ×2, Cake ×1"
+    static String summarizeItems(Order order) {
+        Map<Product, Integer> counts = new LinkedHashMap<>();
+        for (Product product : order.getItems()) {
+            counts.merge(product, 1, Integer::sum);
+        }
+        StringBuilder sb = new StringBuilder();
+        counts.forEach((product, count) -> {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(product.getName()).append(" ×").append(count);
+        });
+        return sb.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package view;
+
+import model.Order;
+import model.QueueEvent;
+import model.ServerThread;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Table model for server status; only rows whose current order changed are repainted
+public class ServerTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"Server", "Status", "Order ID", "Customer", "Items", "Total"};
+
+    private final List<ServerThread> servers = new ArrayList<>();
+    private final List<Order> shownOrders = new ArrayList<>();
+    private final List<String> itemSummaries = new ArrayList<>();
+    private final Map<String, Integer> rowByServer = new HashMap<>();
+
+    // Apply a TAKEN/COMPLETED event to the server's row; must run on the EDT
+    public void applyEvent(QueueEvent event) {
+        Integer row = rowByServer.get(event.getServerName());
+        if (row == null) return;
+        if (event.getType() == QueueEvent.Type.TAKEN) {
+            showOrder(row, event.getOrder());
+        } else if (event.getType() == QueueEvent.Type.COMPLETED && shownOrders.get(row) == event.getOrder()) {
+            showOrder(row, null);
+        }
+    }
+
+    private void showOrder(int row, Order order) {
+        if (shownOrders.get(row) == order) return;
+        shownOrders.set(row, order);
+        itemSummaries.set(row, order == null ? "" : QueueTableModel.summarizeItems(order));
+        fireTableRowsUpdated(row, row);
+    }
+
+    // Apply the full server list (initial state and resync); must run on the EDT
+    public void applyServers(List<ServerThread> latest) {
+        if (!sameServers(latest)) {
+            servers.clear();
+            servers.addAll(latest);
+            shownOrders.clear();
+            itemSummaries.clear();
+            rowByServer.clear();
+            for (ServerThread server : servers) {
+                rowByServer.put(server.getName(), rowByServer.size());
+                Order order = server.getCurrentOrder();
+                shownOrders.add(order);
+                itemSummaries.add(order == null ? "" : QueueTableModel.summarizeItems(order));
+            }
+            fireTableDataChanged();
+            return;
+        }
+
+        for (int i = 0; i < servers.size(); i++) {
+            showOrder(i, servers.get(i).getCurrentOrder());
+        }
+    }
+
+    private boolean sameServers(List<ServerThread> latest) {
+        if (latest.size() != servers.size()) return false;
+        for (int i = 0; i < latest.size(); i++) {
+            if (latest.get(i) != servers.get(i)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int getRowCount() {
+        return servers.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Order order = shownOrders.get(rowIndex);
+        switch (columnIndex) {
+            case 0:
+                return servers.get(rowIndex).getName();
+            case 1:
+                return order == null ? "Idle" : "Processing";
+            case 2:
+                return order == null ? "" : order.getOrderId();
+            case 3:
+                return order == null ? "" : order.getCustomerName();
+            case 4:
+                return itemSummaries.get(rowIndex);
+            default:
+                return order == null ? "" : String.format("$%.2f", order.getTotalPrice());
+        }
+    }
+}
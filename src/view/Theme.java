@@ -0,0 +1,28 @@
+package view;
+
+import java.awt.Color;
+import java.awt.Font;
+
+// Theme and colours shared by every view component, created once instead of per card or label
+public final class Theme {
+    private static final String FAMILY = "Microsoft YaHei";
+
+    public static final Font PLAIN_12 = new Font(FAMILY, Font.PLAIN, 12);
+    public static final Font PLAIN_14 = new Font(FAMILY, Font.PLAIN, 14);
+    public static final Font BOLD_12 = new Font(FAMILY, Font.BOLD, 12);
+    public static final Font BOLD_13 = new Font(FAMILY, Font.BOLD, 13);
+    public static final Font BOLD_14 = new Font(FAMILY, Font.BOLD, 14);
+    public static final Font BOLD_16 = new Font(FAMILY, Font.BOLD, 16);
+
+    public static final Color BACKGROUND_TOP = new Color(255, 248, 240);    // Light beige
+    public static final Color BACKGROUND_BOTTOM = new Color(220, 240, 255); // Light blue
+    public static final Color CARD_FILL = new Color(255, 255, 255, 220);
+    public static final Color CARD_BORDER = new Color(200, 200, 200, 100);
+    public static final Color PRICE = new Color(0, 100, 0);      // Dark green
+    public static final Color MUTED = new Color(100, 100, 100);
+    public static final Color MINUS_BUTTON = new Color(255, 150, 150);
+    public static final Color PLUS_BUTTON = new Color(150, 200, 150);
+
+    private Theme() {
+    }
+}
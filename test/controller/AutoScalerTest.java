@@ -0,0 +1,53 @@
+package controller;
+
+import model.Order;
+import model.OrderManager;
+import org.junit.jupiter.api.Test;
+import util.OrderQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AutoScalerTest {
+    private static void addOrders(OrderQueue queue, int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            queue.addOrder(new Order("O" + i, "2025-04-03 12:00:00", "Customer", "WALK_IN"));
+        }
+    }
+
+    @Test
+    public void testScalesUpOnOneBadIntervalAndDownAfterCalmOnes() throws InterruptedException {
+        OrderQueue queue = new OrderQueue(100);
+        // Each server takes one order and is busy with it for the rest of the test
+        CoffeeShopSimulator simulator = new CoffeeShopSimulator(queue, 1, 60_000, new OrderManager());
+        // Long interval: the test steps tick() itself. Only the queue depth matters with a 1000 s wait target.
+        AutoScaler scaler = new AutoScaler(simulator, 1, 3, 60_000, 0, 1_000, 2, 20.0);
+        simulator.startSimulation();
+        scaler.start();
+        try {
+            addOrders(queue, 10);
+            scaler.tick(); // 9 or 10 waiting for one server
+            assertEquals(2, simulator.serverCount);
+
+            while (queue.getNextOrder(10) != null) {
+                // Empty the queue
+            }
+            scaler.tick();
+            scaler.tick();
+            assertEquals(2, simulator.serverCount); // Two calm intervals are not enough
+            scaler.tick();
+            assertEquals(1, simulator.serverCount);
+            assertTrue(scaler.generateScalingReport().contains("scaled up 1 times, down 1 times"));
+        } finally {
+            scaler.stop();
+            simulator.stopSimulation();
+        }
+    }
+
+    @Test
+    public void testInvalidBoundsRejected() {
+        CoffeeShopSimulator simulator = new CoffeeShopSimulator(new OrderQueue(10), 1, 0, new OrderManager());
+        assertThrows(IllegalArgumentException.class, () -> new AutoScaler(simulator, 0, 2, 1_000, 0, 1, 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AutoScaler(simulator, 3, 2, 1_000, 0, 1, 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AutoScaler(simulator, 1, 2, 0, 0, 1, 2, 0));
+    }
+}
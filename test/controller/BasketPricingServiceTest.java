@@ -0,0 +1,75 @@
+package controller;
+
+import model.Basket;
+import model.DiscountCalculator;
+import model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BasketPricingServiceTest {
+    private static final Product LATTE = new Product("PRICE-BVG1", "Latte", "Latte", "Beverage", 5.0, 100);
+    private static final Product SANDWICH = new Product("PRICE-FOOD1", "Sandwich", "Sandwich", "Food", 7.0, 100);
+    private static final Product CAKE = new Product("PRICE-FOOD2", "Cake", "Cake", "Food", 4.0, 100);
+
+    private final Basket basket = new Basket();
+    private final BlockingQueue<BasketPricingService.Quote> quotes = new LinkedBlockingQueue<>();
+    private final BasketPricingService service = new BasketPricingService(basket, new DiscountCalculator(), 10, quotes::add);
+
+    @AfterEach
+    public void shutdown() {
+        service.shutdown();
+    }
+
+    private BasketPricingService.Quote change(Product product, int delta) throws InterruptedException {
+        basket.add(product, delta);
+        service.basketChanged();
+        BasketPricingService.Quote quote = quotes.poll(5, TimeUnit.SECONDS);
+        assertNotNull(quote);
+        assertEquals(basket.getVersion(), quote.version);
+        return quote;
+    }
+
+    @Test
+    public void testRepricedOnEveryChange() throws InterruptedException {
+        BasketPricingService.Quote quote = change(LATTE, 1);
+        assertEquals(5.0, quote.originalPrice, 1e-9);
+        assertEquals(5.0, quote.discountedPrice, 1e-9);
+
+        quote = change(SANDWICH, 2); // Two food items and a beverage
+        assertEquals(19.0, quote.originalPrice, 1e-9);
+        assertEquals(15.2, quote.discountedPrice, 1e-9);
+        assertEquals("Meal Deal Discount (20% off)", quote.description);
+
+        quote = change(CAKE, 3); // The free cake now beats the meal deal
+        assertEquals(31.0, quote.originalPrice, 1e-9);
+        assertEquals(27.0, quote.discountedPrice, 1e-9);
+
+        quote = change(CAKE, -1); // Back to the meal deal
+        assertEquals(27.0, quote.originalPrice, 1e-9);
+        assertEquals(23.2, quote.discountedPrice, 1e-9);
+    }
+
+    @Test
+    public void testBurstIsPricedOnceOnTheLatestBasket() throws InterruptedException {
+        BasketPricingService slow = new BasketPricingService(basket, new DiscountCalculator(), 200, quotes::add);
+        try {
+            for (int i = 0; i < 5; i++) {
+                basket.add(LATTE, 1);
+                slow.basketChanged();
+            }
+            BasketPricingService.Quote quote = quotes.poll(5, TimeUnit.SECONDS);
+            assertNotNull(quote);
+            assertEquals(basket.getVersion(), quote.version);
+            assertEquals(25.0, quote.originalPrice, 1e-9);
+            assertNull(quotes.poll(300, TimeUnit.MILLISECONDS));
+        } finally {
+            slow.shutdown();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package controller;
+
+import model.Order;
+import model.OrderManager;
+import model.OutOfStockException;
+import model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import util.OrderQueue;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CartSessionTest {
+    private final Product latte = new Product("CART-BVG1", "Latte", "Latte", "Beverage", 5.0, 10);
+    private final CartRegistry registry = new CartRegistry(1_000, 60_000); // Not started: the test expires holds itself
+    private final OrderSubmissionPipeline pipeline = new OrderSubmissionPipeline(new OrderManager(), new OrderQueue(10), 16, 4);
+
+    @AfterEach
+    public void stopPipeline() {
+        pipeline.stop();
+    }
+
+    @Test
+    public void testLapsedHoldIsTakenAgainAtCheckout() throws Exception {
+        pipeline.start();
+        CartSession cart = registry.open("Till-1");
+        cart.add(latte, 2);
+        assertEquals(8, latte.getStock());
+
+        assertEquals(2, cart.expireHolds(System.currentTimeMillis() + 1_000));
+        assertEquals(10, latte.getStock()); // Back on sale
+        assertEquals(0, cart.getHeldCount(latte));
+        assertEquals(2, cart.getBasket().getQuantity(latte)); // Still in the cart
+
+        registry.open("Till-2").add(latte, 7);
+        Order order = cart.checkout(pipeline, "Amy").get(5, TimeUnit.SECONDS);
+        assertEquals(2, order.getItems().size());
+        assertEquals(1, latte.getStock());
+        assertTrue(cart.getBasket().isEmpty());
+    }
+
+    @Test
+    public void testCheckoutFailsWhenLapsedStockWasSold() throws Exception {
+        pipeline.start();
+        CartSession cart = registry.open("Till-1");
+        cart.add(latte, 2);
+        cart.expireHolds(System.currentTimeMillis() + 1_000);
+        registry.open("Till-2").add(latte, 9);
+
+        assertThrows(OutOfStockException.class, () -> cart.checkout(pipeline, "Amy"));
+        assertEquals(1, latte.getStock()); // Nothing taken
+        assertEquals(2, cart.getBasket().getQuantity(latte)); // The cart is kept
+        cart.remove(latte, 1);
+        assertEquals(1, cart.checkout(pipeline, "Amy").get(5, TimeUnit.SECONDS).getItems().size());
+        assertEquals(0, latte.getStock());
+    }
+
+    @Test
+    public void testHeldStockCannotBeSoldTwice() throws OutOfStockException {
+        CartSession first = registry.open("Till-1");
+        CartSession second = registry.open("Till-2");
+        first.add(latte, 10);
+        assertThrows(OutOfStockException.class, () -> second.add(latte, 1));
+
+        first.remove(latte, 3);
+        second.add(latte, 3);
+        assertEquals(0, latte.getStock());
+        assertEquals(0, first.expireHolds(System.currentTimeMillis())); // Recently active: holds stay
+    }
+
+    @Test
+    public void testSweepClosesIdleCartsAndReturnsTheirStock() throws Exception {
+        CartRegistry shortLived = new CartRegistry(1, 1);
+        CartSession cart = shortLived.open("Till-1");
+        cart.add(latte, 4);
+        Thread.sleep(5);
+        shortLived.sweep();
+
+        assertEquals(0, shortLived.size());
+        assertEquals(10, latte.getStock());
+        assertThrows(IllegalStateException.class, () -> cart.add(latte, 1));
+    }
+}
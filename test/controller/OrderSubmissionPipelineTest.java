@@ -0,0 +1,76 @@
+package controller;
+
+import model.Order;
+import model.OrderHistoryStore;
+import model.OrderManager;
+import model.OutOfStockException;
+import model.Product;
+import model.ShopBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import util.OrderQueue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderSubmissionPipelineTest {
+    private final Product latte = new Product("SUBMIT-BVG1", "Latte", "Latte", "Beverage", 5.0, 10);
+    private final Product cake = new Product("SUBMIT-FOOD1", "Cake", "Cake", "Food", 4.0, 1);
+    private final OrderManager manager = new OrderManager();
+    private final OrderQueue queue = new OrderQueue(1);
+    private final OrderSubmissionPipeline pipeline = new OrderSubmissionPipeline(manager, queue, 16, 4);
+
+    @AfterEach
+    public void stopPipeline() {
+        pipeline.stop();
+    }
+
+    private static Throwable failure(CompletableFuture<Order> future) throws Exception {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    @Test
+    public void testAcceptedOrderIsRecordedAndQueued() throws Exception {
+        pipeline.start();
+        Order order = pipeline.submit(Map.of(latte, 2), "Amy", "WALK_IN").get(5, TimeUnit.SECONDS);
+
+        assertEquals(8, latte.getStock());
+        assertTrue(order.isStockReserved());
+        assertSame(order, manager.getHistory().getById(order.getOrderId()));
+        assertSame(order, queue.getNextOrder(0));
+    }
+
+    @Test
+    public void testLateStageFailureReturnsStockAndCancelsTheOrder() throws Exception {
+        queue.setAdmission(OrderQueue.Admission.REJECT, 0);
+        queue.addOrder(new Order("FULL", "2025-04-03 12:00:00", "Ben", "WALK_IN")); // The enqueue stage will be turned away
+        pipeline.start();
+
+        Throwable cause = failure(pipeline.submit(Map.of(latte, 3), "Amy", "WALK_IN"));
+        assertTrue(cause instanceof ShopBusyException);
+        assertEquals(10, latte.getStock());
+        assertEquals(1, manager.getHistory().findByState(OrderHistoryStore.State.CANCELLED).size());
+        assertEquals(0, manager.getHistory().countPending(null));
+        assertEquals(0.0, manager.getTotalRevenue(), 1e-9);
+    }
+
+    @Test
+    public void testShortProductReservesNothing() throws Exception {
+        pipeline.start();
+        Map<Product, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(latte, 2);
+        quantities.put(cake, 2); // Only one left
+        Throwable cause = failure(pipeline.submit(quantities, "Amy", "WALK_IN"));
+
+        assertTrue(cause instanceof OutOfStockException);
+        assertEquals(10, latte.getStock());
+        assertEquals(1, cake.getStock());
+        assertEquals(0, manager.getHistory().size());
+    }
+}
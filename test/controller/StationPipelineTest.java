@@ -0,0 +1,87 @@
+package controller;
+
+import model.CompletionTracker;
+import model.Order;
+import model.Product;
+import model.ServiceTimeModel;
+import org.junit.jupiter.api.Test;
+import util.OrderQueue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StationPipelineTest {
+    private static final Product LATTE = new Product("STN-BVG1", "Latte", "Latte", "Beverage", 5.0, 100);
+    private static final Product SANDWICH = new Product("STN-FOOD1", "Sandwich", "Sandwich", "Food", 7.0, 100);
+
+    private static Order order(String id, Product... items) {
+        Order order = new Order(id, "2025-04-03 12:00:00", "Customer", "WALK_IN");
+        for (Product item : items) {
+            order.addItem(item);
+        }
+        return order;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testSplitOrderCompletesAfterEveryPart() throws InterruptedException {
+        OrderQueue queue = new OrderQueue(10);
+        ServiceTimeModel times = new ServiceTimeModel(0).setCategoryTime("Beverage", 10).setCategoryTime("Food", 400);
+        StationPipeline pipeline = new StationPipeline(queue, Map.of("Beverage", 1, "Food", 1), times, 4);
+        Order order = order("O1", LATTE, SANDWICH);
+        queue.addOrder(order);
+        pipeline.start();
+        try {
+            StationPipeline.Station beverages = pipeline.getStations().stream()
+                    .filter(s -> s.getCategory().equals("Beverage")).findFirst().orElseThrow();
+            awaitTrue(() -> beverages.getTasksCompleted() == 1);
+            assertFalse(order.isCompleted()); // The sandwich is still being made
+
+            awaitTrue(order::isCompleted);
+            assertEquals(1, pipeline.getCompletedCount());
+            assertEquals(2, pipeline.getStations().stream().mapToLong(StationPipeline.Station::getTasksCompleted).sum());
+        } finally {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    public void testFailedPartFailsTheOrder() throws InterruptedException {
+        OrderQueue queue = new OrderQueue(10);
+        ServiceTimeModel times = new ServiceTimeModel(5) {
+            @Override
+            public long itemTime(Product product) {
+                if (product == SANDWICH) throw new IllegalStateException("Toaster is broken");
+                return super.itemTime(product);
+            }
+        };
+        StationPipeline pipeline = new StationPipeline(queue, Map.of("Beverage", 1, "Food", 1), times, 4);
+        CompletionTracker tracker = new CompletionTracker();
+        Order failed = order("O1", LATTE, SANDWICH);
+        Order served = order("O2", LATTE);
+        tracker.track(failed);
+        tracker.track(served);
+        queue.addOrder(failed);
+        queue.addOrder(served);
+        pipeline.start();
+        try {
+            assertTrue(tracker.awaitAllCompleted(5, TimeUnit.SECONDS));
+            assertTrue(failed.isCancelled());
+            assertFalse(failed.isCompleted());
+            assertTrue(served.isCompleted()); // The station keeps working after a failure
+            assertEquals(1, pipeline.getCompletedCount());
+        } finally {
+            pipeline.stop();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package controller;
+
+import model.Order;
+import model.OrderSource;
+import model.ServerThread;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import util.OrderQueue;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkStealingDispatcherTest {
+    private final OrderQueue queue = new OrderQueue(10);
+    private final Server first = new Server("Server-1");
+    private final Server second = new Server("Server-2");
+    private WorkStealingDispatcher dispatcher;
+
+    // Never started: the test takes from its local queue in place of the server's run loop
+    private class Server extends ServerThread {
+        OrderSource source;
+
+        Server(String name) {
+            super(name, queue, 0);
+        }
+
+        @Override
+        public void setOrderSource(OrderSource orderSource) {
+            super.setOrderSource(orderSource);
+            this.source = orderSource;
+        }
+
+        String take() throws InterruptedException {
+            Order order = source.take(100);
+            return order != null ? order.getOrderId() : null;
+        }
+    }
+
+    private void dispatch(String... ids) throws InterruptedException {
+        for (String id : ids) {
+            queue.addOrder(new Order(id, "2025-04-03 12:00:00", "Customer", id.startsWith("P") ? "PRE_ORDER" : "WALK_IN"));
+        }
+        dispatcher = new WorkStealingDispatcher(queue, List.of(first, second), 2);
+        dispatcher.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (dispatcher.getLocalOrderCount() < ids.length) {
+            assertTrue(System.currentTimeMillis() < deadline, "Orders were not dispatched");
+            Thread.sleep(5);
+        }
+    }
+
+    @AfterEach
+    public void stopDispatcher() {
+        if (dispatcher != null) dispatcher.stop();
+    }
+
+    @Test
+    public void testIdleServerStealsWalkInsFromTheBack() throws InterruptedException {
+        dispatch("W1", "W2", "W3", "W4"); // Least loaded first: Server-1 gets W1, W3 and Server-2 gets W2, W4
+
+        assertEquals("W1", first.take());
+        assertEquals("W3", first.take());
+        assertEquals("W4", first.take()); // Own queue empty, so it steals the newest walk-in
+        assertEquals("W2", second.take());
+        assertNull(second.take());
+        assertEquals(1, dispatcher.getStolenCount());
+    }
+
+    @Test
+    public void testPreOrdersAreStolenFirst() throws InterruptedException {
+        dispatch("W1", "W2", "W3", "P1"); // The queue serves P1 first: Server-1 gets P1, W2 and Server-2 gets W1, W3
+
+        assertEquals("W1", second.take());
+        assertEquals("W3", second.take());
+        assertEquals("P1", second.take()); // Stolen ahead of Server-1's walk-in
+        assertEquals("W2", first.take());
+        assertEquals(1, dispatcher.getStolenCount());
+    }
+}
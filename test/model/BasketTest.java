@@ -0,0 +1,36 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BasketTest {
+    @Test
+    public void testSubtractKeepsItemsAddedSinceTheOrder() {
+        Product latte = new Product("BASKET-BVG1", "Latte", "Latte", "Beverage", 5.0, 10);
+        Product cake = new Product("BASKET-FOOD1", "Cake", "Cake", "Food", 4.0, 10);
+        Basket basket = new Basket();
+        basket.add(latte, 2);
+        Map<Product, Integer> ordered = basket.getQuantities();
+        basket.add(latte, 1); // Added while the order was being submitted
+        basket.add(cake, 1);
+        long version = basket.getVersion();
+
+        basket.subtract(ordered);
+        assertEquals(1, basket.getQuantity(latte));
+        assertEquals(1, basket.getQuantity(cake));
+        assertEquals(9.0, basket.totals().originalPrice, 1e-9);
+        assertTrue(basket.getVersion() > version); // A quote for the old basket is dropped
+
+        // After a menu reload the basket holds the new products; the ordered ones still match by id
+        Menu menu = new Menu();
+        menu.addProduct(new Product("BASKET-BVG1", "Latte", "Latte", "Beverage", 5.5, 10));
+        menu.addProduct(new Product("BASKET-FOOD1", "Cake", "Cake", "Food", 4.0, 10));
+        basket.remap(menu.snapshot());
+        basket.subtract(Map.of(latte, 1, cake, 5));
+        assertTrue(basket.isEmpty());
+        assertTrue(basket.getQuantities().isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchPlannerTest {
+    private static final Product LATTE = new Product("BATCH-BVG1", "Latte", "Latte", "Beverage", 5.0, 100);
+    private static final Product CAKE = new Product("BATCH-FOOD1", "Cake", "Cake", "Food", 4.0, 100);
+
+    private static Order order(String id, Product... items) {
+        Order order = new Order(id, "2025-04-03 12:00:00", "Customer", "WALK_IN");
+        for (Product item : items) {
+            order.addItem(item);
+        }
+        return order;
+    }
+
+    private static List<String> completed(BatchPlanner.Batch batch) {
+        return batch.getCompletedOrders().stream().map(Order::getOrderId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testBatchesSplitAtMaxBatchSize() {
+        BatchPlanner planner = new BatchPlanner(new ServiceTimeModel(100), 0.5, 2);
+        List<Order> orders = List.of(order("O1", LATTE), order("O2", LATTE), order("O3", LATTE),
+                order("O4", LATTE), order("O5", LATTE));
+        List<BatchPlanner.Batch> batches = planner.plan(orders);
+
+        assertEquals(List.of(2, 2, 1), batches.stream().map(BatchPlanner.Batch::getSize).collect(Collectors.toList()));
+        assertEquals(141, batches.get(0).getCost()); // 100 * 2^0.5
+        assertEquals(100, batches.get(2).getCost());
+        assertEquals(List.of("O1", "O2"), completed(batches.get(0)));
+        assertEquals(List.of("O3", "O4"), completed(batches.get(1)));
+        assertEquals(List.of("O5"), completed(batches.get(2)));
+        assertEquals(500, planner.unbatchedCost(orders));
+    }
+
+    @Test
+    public void testOrderCompletesWithItsLastBatch() {
+        BatchPlanner planner = new BatchPlanner(new ServiceTimeModel(100), 1.0, 4);
+        Order mixed = order("O1", LATTE, CAKE);
+        Order latteOnly = order("O2", LATTE);
+        Order empty = order("O3");
+        List<BatchPlanner.Batch> batches = planner.plan(List.of(mixed, latteOnly, empty));
+
+        assertEquals(2, batches.size());
+        assertSame(LATTE, batches.get(0).getProduct()); // The head order's first product goes first
+        assertEquals(200, batches.get(0).getCost()); // beta = 1 saves nothing
+        assertEquals(List.of("O2", "O3"), completed(batches.get(0)));
+        assertSame(CAKE, batches.get(1).getProduct());
+        assertEquals(List.of("O1"), completed(batches.get(1)));
+    }
+
+    @Test
+    public void testInvalidSettingsRejected() {
+        ServiceTimeModel times = new ServiceTimeModel(100);
+        assertThrows(IllegalArgumentException.class, () -> new BatchPlanner(times, 0, 2));
+        assertThrows(IllegalArgumentException.class, () -> new BatchPlanner(times, 1.5, 2));
+        assertThrows(IllegalArgumentException.class, () -> new BatchPlanner(times, 0.7, 0));
+    }
+}
@@ -0,0 +1,188 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarOrderStoreTest {
+    private static final Product LATTE = new Product("COL-BVG1", "Latte", "Latte", "Beverage", 5.0, 1000);
+    private static final Product CAKE = new Product("COL-FOOD1", "Cake", "Cake", "Food", 4.5, 1000);
+    private static final Product MUFFIN = new Product("COL-FOOD2", "Muffin", "Muffin", "Food", 3.25, 1000);
+
+    private static Order order(String id, String time, String customer, String type, Product... items) {
+        Order order = new Order(id, time == null ? null : "2025-04-03 " + time, customer, type);
+        for (Product item : items) {
+            order.addItem(item);
+        }
+        return order;
+    }
+
+    private static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static List<String> ids(List<Order> orders) {
+        return orders.stream().map(Order::getOrderId).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testAggregatesMatchTheOrders() {
+        Order discounted = order("O3", "12:30:00", "Amy", "WALK_IN", CAKE, CAKE, LATTE);
+        discounted.setTotalPrice(10.0); // 14.00 before the discount
+        Order cancelledFirst = order("O5", "12:10:00", "Ben", "WALK_IN", CAKE, MUFFIN);
+        cancelledFirst.cancelOrder();
+        Order cancelledLater = order("O6", "09:45:00", "Cat", "PRE_ORDER", LATTE, LATTE);
+        List<Order> orders = List.of(
+                order("O1", "09:15:00", "Amy", "PRE_ORDER", LATTE, MUFFIN),
+                order("O2", "09:59:59", "Ben", "WALK_IN", LATTE),
+                discounted,
+                order("O4", null, "Cat", "WALK_IN", MUFFIN, MUFFIN),
+                cancelledFirst,
+                cancelledLater);
+        ColumnarOrderStore columns = new ColumnarOrderStore();
+        for (Order order : orders) {
+            columns.append(order);
+        }
+        cancelledLater.cancelOrder();
+        columns.finish(5, cancelledLater);
+
+        // The same aggregates over the Order objects, leaving cancelled ones out
+        long dated = 0;
+        long morning = 0;
+        long discount = 0;
+        long amy = 0;
+        Map<String, Long> byType = new HashMap<>(Map.of("PRE_ORDER", 0L, "WALK_IN", 0L));
+        long[] items = new long[Product.ordinalCount()];
+        long[] byHour = new long[24];
+        for (Order order : orders) {
+            if (order.isCancelled()) continue;
+            long total = cents(order.getTotalPrice());
+            if (order.getTimeStamp() != null) {
+                dated += total;
+                if (order.getTimeStamp().compareTo("2025-04-03 10:00:00") < 0) morning += total;
+            }
+            discount += cents(order.getDiscountAmount());
+            if (order.getCustomerName().equals("Amy")) amy += total;
+            byType.merge(order.getOrderType(), total, Long::sum);
+            for (Product item : order.getItems()) {
+                items[item.getOrdinal()]++;
+            }
+            if (order.getTimeStamp() != null) byHour[Integer.parseInt(order.getTimeStamp().substring(11, 13))]++;
+        }
+
+        assertEquals(dated, columns.revenueCents("2025-04-03 00:00:00", "2025-04-04 00:00:00"));
+        assertEquals(morning, columns.revenueCents("2025-04-03 00:00:00", "2025-04-03 10:00:00"));
+        assertEquals(byType, columns.revenueByType());
+        assertEquals(discount, columns.discountCents());
+        assertEquals(400, discount);
+        assertEquals(amy, columns.revenueOfCustomerCents("Amy"));
+        assertEquals(0, columns.revenueOfCustomerCents("Nobody"));
+        long[] sold = columns.itemsByProduct();
+        for (Product product : List.of(LATTE, CAKE, MUFFIN)) {
+            assertEquals(items[product.getOrdinal()], sold[product.getOrdinal()], product.getId());
+        }
+        assertArrayEquals(byHour, columns.ordersByHour());
+        assertEquals(2, columns.getFinishedCount()); // Both cancelled rows
+    }
+
+    @Test
+    public void testFinishedRowsReadBack() {
+        ColumnarOrderStore columns = new ColumnarOrderStore();
+        Order served = order("O1", "12:05:00", "Amy", "WALK_IN", LATTE, CAKE, LATTE);
+        served.setTotalPrice(13.0);
+        served.setEnqueueTime(System.currentTimeMillis() - 250);
+        Order pending = order("O3", "12:06:00", "Amy", "WALK_IN", CAKE);
+        columns.append(served);
+        columns.append(new Order("O2", "03/04/2025 noon", "Ben", "PRE_ORDER")); // Kept as written
+        columns.append(pending);
+        served.completeOrder();
+        columns.finish(0, served);
+        columns.finish(2, pending); // Still pending, so nothing changes
+
+        Order read = columns.read(0);
+        assertNotSame(served, read);
+        assertEquals("O1", read.getOrderId());
+        assertEquals("2025-04-03 12:05:00", read.getTimeStamp());
+        assertEquals("Amy", read.getCustomerName());
+        assertEquals("WALK_IN", read.getOrderType());
+        assertEquals(List.of(LATTE, LATTE, CAKE), read.getItems()); // Identical items are stored as one line
+        assertEquals(13.0, read.getTotalPrice());
+        assertEquals(1.5, read.getDiscountAmount());
+        assertEquals(served.getEnqueueTime(), read.getEnqueueTime());
+        assertEquals(served.getCompletedTime(), read.getCompletedTime());
+        assertTrue(read.isCompleted());
+        assertEquals("03/04/2025 noon", columns.read(1).getTimeStamp());
+        assertFalse(columns.read(2).isCompleted());
+        assertEquals(1, columns.latenciesMillis("WALK_IN").length);
+        assertTrue(columns.latenciesMillis("WALK_IN")[0] >= 250);
+
+        // Lookups only cover finished rows; pending orders are found where their objects are
+        assertEquals("O1", columns.getById("O1").getOrderId());
+        assertNull(columns.getById("O3"));
+        assertEquals(List.of("O1"), ids(columns.find(OrderHistoryStore.query().product(LATTE))));
+        assertEquals(List.of("O1"), ids(columns.find(OrderHistoryStore.query()
+                .customer("Amy").between("2025-04-03 12:00:00", "2025-04-03 13:00:00"))));
+        assertTrue(columns.find(OrderHistoryStore.query().product(MUFFIN)).isEmpty());
+        assertTrue(columns.find(OrderHistoryStore.query().state(OrderHistoryStore.State.CANCELLED)).isEmpty());
+        assertTrue(columns.find(OrderHistoryStore.query().between("2025-04-03 13:00:00", "2025-04-03 14:00:00")).isEmpty());
+    }
+
+    @Test
+    public void testArchivedRowsStayInTheAggregates() {
+        ColumnarOrderStore columns = new ColumnarOrderStore();
+        Order old = order("O1", "08:00:00", "Amy", "WALK_IN", LATTE);
+        Order pending = order("O2", "08:10:00", "Amy", "WALK_IN", CAKE);
+        Order recent = order("O3", "08:20:00", "Amy", "WALK_IN", LATTE);
+        old.completeOrder();
+        columns.append(old);
+        columns.append(pending);
+        columns.append(recent);
+        recent.completeOrder();
+        columns.finish(2, recent);
+
+        assertArrayEquals(new int[]{0, 2}, columns.completedBefore(Long.MAX_VALUE));
+        assertEquals(0, columns.completedBefore(0).length);
+        columns.archive(new int[]{0});
+        assertEquals(1, columns.getFinishedCount());
+        assertEquals(1450, columns.revenueCents("2025-04-03 08:00:00", "2025-04-03 09:00:00"));
+        assertEquals(3, columns.ordersByHour()[8]);
+        assertNull(columns.getById("O1")); // The archive answers for it now
+        assertEquals(List.of("O3"), ids(columns.find(OrderHistoryStore.query().customer("Amy"))));
+        assertArrayEquals(new int[]{2}, columns.completedBefore(Long.MAX_VALUE)); // O1 is not offered again
+    }
+
+    @Test
+    public void testFinishedOrdersLeaveTheManagerAsObjects() {
+        OrderManager manager = new OrderManager();
+        Order served = order("M1", "10:00:00", "Amy", "WALK_IN", LATTE);
+        Order shed = order("M2", "10:01:00", "Ben", "WALK_IN", CAKE);
+        Order waiting = order("M3", "10:02:00", "Cat", "PRE_ORDER", MUFFIN);
+        manager.addOrders(List.of(served, shed, waiting));
+        served.setEnqueueTime(System.currentTimeMillis());
+        served.completeOrder();
+        manager.cancelOrder(shed);
+
+        assertEquals(1, manager.getHotOrderCount());
+        assertEquals(List.of(waiting), manager.getOrdersSnapshot());
+        OrderHistoryStore history = manager.getHistory();
+        assertEquals(3, history.size());
+        Order found = history.getById("M1");
+        assertNotSame(served, found);
+        assertTrue(found.isCompleted());
+        assertSame(waiting, history.getById("M3"));
+        assertEquals(List.of("M1"), ids(history.findByState(OrderHistoryStore.State.COMPLETED)));
+        assertEquals(List.of("M2"), ids(history.findByState(OrderHistoryStore.State.CANCELLED)));
+        assertEquals(List.of("M3"), ids(history.findByState(OrderHistoryStore.State.PENDING)));
+        assertEquals(List.of("M1", "M2", "M3"), ids(history.find(OrderHistoryStore.query())));
+        List<Order> page = manager.getOrdersPage(0, 10);
+        assertEquals(List.of("M3", "M2", "M1"), page.stream().map(Order::getOrderId).collect(Collectors.toList()));
+        assertSame(waiting, page.get(0));
+        assertTrue(page.get(1).isCancelled());
+        assertEquals(500, manager.getColumns().revenueCents("2025-04-03 10:00:00", "2025-04-03 10:01:00"));
+    }
+}
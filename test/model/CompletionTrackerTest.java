@@ -0,0 +1,76 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompletionTrackerTest {
+    private static Order order(String id) {
+        return new Order(id, "2025-04-03 12:00:00", "Customer", "WALK_IN");
+    }
+
+    @Test
+    public void testListenerFiresWhenTheCountReachesZero() throws InterruptedException {
+        CompletionTracker tracker = new CompletionTracker();
+        AtomicInteger fired = new AtomicInteger();
+        tracker.addAllCompletedListener(fired::incrementAndGet);
+        Order first = order("O1");
+        Order second = order("O2");
+        Order third = order("O3");
+        tracker.track(first);
+        tracker.track(second);
+        tracker.track(third);
+
+        first.completeOrder();
+        second.completeOrder();
+        second.completeOrder(); // Completing twice counts once
+        assertEquals(1, tracker.getOutstandingCount());
+        assertEquals(0, fired.get());
+        assertFalse(tracker.awaitAllCompleted(10, TimeUnit.MILLISECONDS));
+
+        third.cancelOrder(); // Cancelled orders are no longer outstanding either
+        assertEquals(1, fired.get());
+        assertTrue(tracker.isAllCompleted());
+        assertTrue(tracker.awaitAllCompleted(0, TimeUnit.MILLISECONDS));
+
+        Order late = order("O4");
+        tracker.track(late);
+        late.completeOrder();
+        assertEquals(2, fired.get()); // Fires on every crossing to zero
+    }
+
+    @Test
+    public void testCompletedOrdersAreNotTracked() {
+        CompletionTracker tracker = new CompletionTracker();
+        AtomicInteger fired = new AtomicInteger();
+        tracker.addAllCompletedListener(fired::incrementAndGet);
+        Order done = order("O1");
+        done.completeOrder();
+        tracker.track(done);
+
+        assertEquals(0, tracker.getOutstandingCount());
+        assertEquals(0, fired.get());
+    }
+
+    @Test
+    public void testAwaitWakesOnTheLastCompletion() throws InterruptedException {
+        CompletionTracker tracker = new CompletionTracker();
+        Order order = order("O1");
+        tracker.track(order);
+        Thread server = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            order.completeOrder();
+        });
+        server.start();
+
+        assertTrue(tracker.awaitAllCompleted(5, TimeUnit.SECONDS));
+        server.join();
+    }
+}
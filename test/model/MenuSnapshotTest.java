@@ -0,0 +1,110 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MenuSnapshotTest {
+    private static Menu menu() {
+        Menu menu = new Menu();
+        menu.addProduct(new Product("SNAP-BVG1", "Latte", "Latte", "Beverage", 5.0, 10));
+        menu.addProduct(new Product("SNAP-FOOD1", "Sandwich", "Sandwich", "Food", 7.0, 10));
+        menu.addProduct(new Product("SNAP-FOOD2", "Cake", "Cake", "Food", 4.0, 10));
+        menu.addProduct(new Product("SNAP-DES1", "Chips", "Chips", "Dessert", 1.0, 10));
+        return menu;
+    }
+
+    @Test
+    public void testOrdinalLookup_ByIdAndByOrdinal() {
+        MenuSnapshot snapshot = menu().snapshot();
+        for (Product product : snapshot.getProducts()) {
+            assertEquals(product.getOrdinal(), snapshot.ordinalOf(product.getId()));
+            assertSame(product, snapshot.getProduct(product.getOrdinal()));
+            assertTrue(product.getOrdinal() < snapshot.getOrdinalBound());
+        }
+        assertEquals(-1, snapshot.ordinalOf("NO-SUCH-ID"));
+        assertNull(snapshot.getProduct(-1));
+    }
+
+    @Test
+    public void testSameIdKeepsItsOrdinal() {
+        Product first = new Product("SNAP-STABLE", "Tea", "Tea", "Beverage", 2.5, 5);
+        Product reloaded = new Product("SNAP-STABLE", "Tea", "Green tea", "Beverage", 3.0, 5);
+        assertEquals(first.getOrdinal(), reloaded.getOrdinal());
+    }
+
+    @Test
+    public void testCategoryIndex() {
+        MenuSnapshot snapshot = menu().snapshot();
+        assertEquals(1, snapshot.getCategorySize(Category.BEVERAGE));
+        assertEquals(2, snapshot.getCategorySize(Category.FOOD));
+        assertEquals(1, snapshot.getCategorySize(Category.DESSERT));
+        assertEquals(0, snapshot.getCategorySize(Category.OTHER));
+        for (int ordinal : snapshot.getOrdinals(Category.FOOD)) {
+            assertEquals(Category.FOOD, snapshot.getProduct(ordinal).getCategoryType());
+        }
+        assertEquals(Category.OTHER, Category.of("Snack"));
+    }
+
+    @Test
+    public void testSnapshotIsFrozenUntilTheMenuChanges() {
+        Menu menu = menu();
+        MenuSnapshot before = menu.snapshot();
+        assertSame(before, menu.snapshot());
+        assertThrows(UnsupportedOperationException.class, () -> before.getProducts().clear());
+
+        menu.addProduct(new Product("SNAP-BVG2", "Tea", "Tea", "Beverage", 2.5, 10));
+        List<Product> after = menu.getAllProducts();
+        assertEquals(4, before.size());
+        assertEquals(5, after.size());
+        assertEquals("SNAP-BVG1", after.get(0).getId()); // Sorted by id
+    }
+
+    @Test
+    public void testReload_SwapsSnapshotAndCarriesStockById() throws OutOfStockException {
+        Menu menu = menu();
+        MenuSnapshot before = menu.snapshot();
+        Product latte = menu.getProductById("SNAP-BVG1");
+        latte.reduceStock(4);
+
+        menu.reload(List.of(
+                new Product("SNAP-BVG1", "Latte", "Latte", "Beverage", 5.5, 100),
+                new Product("SNAP-FOOD1", "Sandwich", "Sandwich", "Food", 7.0, 100),
+                new Product("SNAP-NEW1", "Tea", "Tea", "Beverage", 2.5, 3)));
+        MenuSnapshot after = menu.snapshot();
+
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(4, before.size()); // Readers holding the old snapshot are unaffected
+        assertEquals(3, after.size());
+        assertNull(after.getProductById("SNAP-FOOD2"));
+
+        Product revised = after.getProductById("SNAP-BVG1");
+        assertEquals(5.0, latte.getPrice(), 0.001); // Orders priced earlier keep the old price
+        assertEquals(5.5, revised.getPrice(), 0.001);
+        assertEquals(6, revised.getStock()); // Stock carries over, the file's 100 is ignored
+        latte.restoreStock(1);
+        assertEquals(7, revised.getStock());
+        assertEquals(latte.getOrdinal(), revised.getOrdinal());
+        assertSame(before.getProductById("SNAP-FOOD1"), after.getProductById("SNAP-FOOD1")); // Unchanged
+        assertEquals(3, after.getProductById("SNAP-NEW1").getStock());
+        assertThrows(IllegalArgumentException.class, () -> menu.reload(List.of()));
+    }
+
+    @Test
+    public void testProductCounts_ArrayBackedTallies() {
+        MenuSnapshot snapshot = menu().snapshot();
+        ProductCounts counts = new ProductCounts(snapshot.getOrdinalBound());
+        Product latte = snapshot.getProductById("SNAP-BVG1");
+        Product cake = snapshot.getProductById("SNAP-FOOD2");
+        counts.add(latte, 3);
+        counts.add(cake, 1);
+        counts.add(cake, -1);
+        assertEquals(3, counts.get(latte));
+        assertEquals(0, counts.get(cake));
+        assertEquals(1, counts.distinct());
+        assertEquals(3, counts.total());
+        assertEquals(List.of(latte), counts.byCountDescending());
+    }
+}
@@ -0,0 +1,126 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderArchiveTest {
+    private static final Product LATTE = new Product("ARCH-BVG1", "Latte", "Latte", "Beverage", 5.0, 1000);
+    private static final Product CAKE = new Product("ARCH-FOOD1", "Cake", "Cake", "Food", 4.5, 1000);
+
+    @TempDir
+    Path directory;
+
+    private static Order completed(String id, String time, String customer, Product... items) {
+        Order order = new Order(id, "2025-04-03 " + time, customer, "WALK_IN");
+        for (Product item : items) {
+            order.addItem(item);
+        }
+        order.setTotalPrice(order.calculateOriginalPrice());
+        order.setEnqueueTime(1_000);
+        order.completeOrder();
+        return order;
+    }
+
+    private static List<String> ids(List<Order> orders) {
+        return orders.stream().map(Order::getOrderId).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testRoundTripAndReopen() throws IOException {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            orders.add(completed("A" + i, String.format("10:%02d:%02d", i / 60, i % 60), "C" + i % 7,
+                    i % 3 == 0 ? new Product[]{LATTE, LATTE, CAKE} : new Product[]{LATTE}));
+        }
+        try (OrderArchive archive = new OrderArchive(directory, 4096)) {
+            archive.append(orders);
+            assertEquals(300, archive.size());
+            assertTrue(archive.getSegmentCount() > 1); // Small segments fill up
+        }
+
+        try (OrderArchive archive = new OrderArchive(directory, 4096)) {
+            assertEquals(300, archive.size());
+            Order back = archive.getById("A3");
+            assertEquals("2025-04-03 10:00:03", back.getTimeStamp());
+            assertEquals("C3", back.getCustomerName());
+            assertEquals(3, back.getItems().size());
+            assertEquals(14.5, back.getTotalPrice(), 1e-9);
+            assertEquals(orders.get(3).getCompletedTime(), back.getCompletedTime());
+            assertTrue(back.isCompleted());
+
+            assertEquals(List.of("A120", "A121"), ids(archive.find(OrderHistoryStore.query()
+                    .between("2025-04-03 10:02:00", "2025-04-03 10:02:02"))));
+            assertEquals(100, archive.find(OrderHistoryStore.query().product(CAKE)).size());
+            List<Order> page = archive.newest(1, 2);
+            assertEquals("A298", page.get(0).getOrderId());
+            assertEquals("A297", page.get(1).getOrderId());
+
+            archive.append(List.of(completed("B0", "11:00:00", "C0", CAKE))); // Appends go on after a reopen
+            assertEquals(301, archive.size());
+            assertEquals("B0", archive.newest(0, 1).get(0).getOrderId());
+        }
+    }
+
+    @Test
+    public void testTornRecordIsDropped() throws IOException {
+        try (OrderArchive archive = new OrderArchive(directory, 4096)) {
+            for (int i = 0; i < 10; i++) {
+                archive.append(List.of(completed("A" + i, "10:00:0" + i, "C", LATTE)));
+            }
+        }
+        // A crash part-way through the last record: its header made it to disk, the rest is zeros
+        Path segment = directory.resolve("segment-000001.seg");
+        byte[] bytes = Files.readAllBytes(segment);
+        int last = new String(bytes, StandardCharsets.ISO_8859_1).indexOf("A9");
+        Arrays.fill(bytes, last + 2, last + 40, (byte) 0);
+        Files.write(segment, bytes);
+
+        try (OrderArchive archive = new OrderArchive(directory, 4096)) {
+            assertEquals(9, archive.size());
+            assertNull(archive.getById("A9"));
+            assertEquals("A8", archive.getById("A8").getOrderId());
+            archive.append(List.of(completed("B0", "11:00:00", "C", CAKE))); // Written over the torn record
+        }
+        try (OrderArchive archive = new OrderArchive(directory, 4096)) {
+            assertEquals(10, archive.size());
+            assertEquals("B0", archive.newest(0, 1).get(0).getOrderId());
+        }
+    }
+
+    @Test
+    public void testCompactionKeepsOrdersQueryable() throws IOException {
+        OrderManager manager = new OrderManager();
+        try (OrderArchive archive = new OrderArchive(directory, OrderArchive.DEFAULT_SEGMENT_BYTES)) {
+            manager.enableRetention(archive, 0);
+            Order old = completed("O1", "09:00:00", "Amy", LATTE);
+            Order pending = new Order("O2", "2025-04-03 09:01:00", "Amy", "WALK_IN");
+            pending.addItem(CAKE);
+            manager.addOrder(old);
+            manager.addOrder(pending);
+
+            assertEquals(1, manager.compact(System.currentTimeMillis() + 1));
+            assertEquals(1, manager.getHotOrderCount()); // Only the pending order stays in memory
+            assertEquals(2, manager.getHistory().size());
+            assertEquals(List.of("O1", "O2"), ids(manager.getHistory().findByCustomer("Amy")));
+            assertEquals(List.of("O1"), ids(manager.getHistory().findByState(OrderHistoryStore.State.COMPLETED)));
+            assertEquals("O1", manager.getHistory().getById("O1").getOrderId());
+            assertEquals(List.of("O2", "O1"), manager.getOrdersPage(0, 10).stream()
+                    .map(Order::getOrderId).collect(Collectors.toList()));
+            assertTrue(manager.generateReport().contains("Total Orders: 2"));
+            // The archived row stays in the aggregates, and is not archived twice
+            assertEquals(500, manager.getColumns().revenueCents("2025-04-03 09:00:00", "2025-04-03 09:01:00"));
+            assertEquals(0, manager.compact(System.currentTimeMillis() + 1));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderHistoryStoreTest {
+    private static final Product LATTE = new Product("HIST-BVG1", "Latte", "Latte", "Beverage", 5.0, 1000);
+    private static final Product CAKE = new Product("HIST-FOOD1", "Cake", "Cake", "Food", 4.0, 1000);
+
+    private static Order order(String id, String time, String customer, String type, Product... items) {
+        Order order = new Order(id, "2025-04-03 " + time, customer, type);
+        for (Product item : items) {
+            order.addItem(item);
+        }
+        return order;
+    }
+
+    private static List<String> ids(List<Order> orders) {
+        return orders.stream().map(Order::getOrderId).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSecondaryIndexes() {
+        OrderHistoryStore store = new OrderHistoryStore();
+        store.add(order("O1", "11:59:59", "Amy", "WALK_IN", LATTE));
+        store.add(order("O2", "12:00:00", "Amy", "PRE_ORDER", LATTE, LATTE, CAKE));
+        store.add(order("O3", "12:30:00", "Ben", "WALK_IN", CAKE));
+        store.add(order("O4", "13:00:00", "Ben", "WALK_IN", LATTE));
+
+        assertEquals(4, store.size());
+        assertEquals(List.of("O1", "O2"), ids(store.findByCustomer("Amy")));
+        assertEquals(List.of("O1", "O2", "O4"), ids(store.findByProduct(LATTE)));
+        assertEquals(List.of("O2", "O3"), ids(store.findByTime("2025-04-03 12:00:00", "2025-04-03 13:00:00")));
+        assertEquals(List.of("O2"), ids(store.find(OrderHistoryStore.query()
+                .product(LATTE).between("2025-04-03 12:00:00", "2025-04-03 13:00:00"))));
+        assertEquals(List.of("O3", "O4"), ids(store.find(OrderHistoryStore.query().customer("Ben").type("WALK_IN"))));
+        assertTrue(store.findByCustomer("Nobody").isEmpty());
+        assertSame(store.getById("O3"), store.findByProduct(CAKE).stream()
+                .filter(o -> o.getOrderId().equals("O3")).findFirst().orElse(null));
+    }
+
+    @Test
+    public void testCompletionStateIndex() {
+        OrderHistoryStore store = new OrderHistoryStore();
+        Order p1 = order("P1", "09:00:00", "Amy", "PRE_ORDER", LATTE);
+        Order p2 = order("P2", "09:05:00", "Ben", "PRE_ORDER", CAKE);
+        Order w1 = order("W1", "09:10:00", "Cat", "WALK_IN", LATTE);
+        Order done = order("P0", "08:00:00", "Dan", "PRE_ORDER", LATTE);
+        done.completeOrder(); // Completed before it was stored
+        store.add(done);
+        store.add(p1);
+        store.add(p2);
+        store.add(w1);
+
+        assertEquals(List.of(p1, p2), store.findPending("PRE_ORDER")); // Oldest first
+        p1.completeOrder();
+        p2.cancelOrder();
+        assertTrue(store.findPending("PRE_ORDER").isEmpty());
+        assertEquals(1, store.countPending(null));
+        assertEquals(List.of("P0", "P1"), ids(store.findByState(OrderHistoryStore.State.COMPLETED)));
+        assertEquals(List.of("P2"), ids(store.findByState(OrderHistoryStore.State.CANCELLED)));
+        assertEquals(List.of("W1"), ids(store.find(OrderHistoryStore.query()
+                .state(OrderHistoryStore.State.PENDING).product(LATTE))));
+    }
+
+    @Test
+    public void testConcurrentInsertsAndCompletions() throws InterruptedException {
+        OrderHistoryStore store = new OrderHistoryStore();
+        int threads = 4;
+        int perThread = 2_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    Order order = order("C" + id + "-" + i, "10:00:00", "T" + id, "WALK_IN", LATTE);
+                    store.add(order);
+                    if (i % 2 == 0) order.completeOrder();
+                    store.findPending("WALK_IN"); // Queries while others insert
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads * perThread, store.size());
+        assertEquals(threads * perThread / 2, store.countPending("WALK_IN"));
+        assertEquals(threads * perThread / 2, store.findByState(OrderHistoryStore.State.COMPLETED).size());
+        assertEquals(perThread, store.findByCustomer("T1").size());
+    }
+}
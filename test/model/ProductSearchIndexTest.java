@@ -0,0 +1,40 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSearchIndexTest {
+    private static final ProductSearchIndex INDEX = new ProductSearchIndex(List.of(
+            new Product("FIND-BVG1", "Latte", "Latte", "Beverage", 5.0, 10),
+            new Product("FIND-BVG2", "Iced Latte", "Iced Latte", "Beverage", 5.5, 10),
+            new Product("FIND-FOOD1", "Cheesecake", "Cheesecake", "Food", 4.5, 10),
+            new Product("FIND-FOOD2", "Cake", "Cake", "Food", 4.0, 10),
+            new Product("FIND-DES1", "Iced Cookie", "Iced Cookie", "Dessert", 2.0, 10)));
+
+    private static List<String> names(String query, String category) {
+        return INDEX.search(query, category).stream().map(Product::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testWordPrefixMatchingInMenuOrder() {
+        assertEquals(List.of("Latte", "Iced Latte"), names("la", null)); // Menu order, whichever word matched
+        assertEquals(List.of("Iced Latte", "Iced Cookie"), names("ICED", null));
+        assertEquals(List.of("Iced Latte"), names("lat ice", null)); // Every query word must match
+        assertEquals(List.of("Cake"), names("cake", null)); // Word prefix, not substring: no Cheesecake
+        assertEquals(List.of("Cheesecake", "Cake"), names("find-food", null)); // IDs are searchable too
+        assertTrue(names("tea", null).isEmpty());
+        assertEquals(5, names("", ProductSearchIndex.ALL_CATEGORIES).size());
+    }
+
+    @Test
+    public void testCategoryFilter() {
+        assertEquals(List.of("Beverage", "Food", "Dessert"), INDEX.getCategories());
+        assertEquals(List.of("Cheesecake", "Cake"), names(null, "Food"));
+        assertEquals(List.of("Iced Cookie"), names("iced", "Dessert"));
+        assertTrue(names("", "Snacks").isEmpty());
+    }
+}
@@ -0,0 +1,114 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShopStateStoreTest {
+    @TempDir
+    Path directory;
+
+    private static Menu menu() {
+        Menu menu = new Menu();
+        menu.addProduct(new Product("STATE-BVG1", "Latte", "Latte", "Beverage", 5.0, 10));
+        menu.addProduct(new Product("STATE-FOOD1", "Sandwich", "Sandwich", "Food", 7.0, 10));
+        return menu;
+    }
+
+    private static Order order(OrderManager manager, Menu menu, String id, String productId, int quantity)
+            throws OutOfStockException {
+        Product product = menu.getProductById(productId);
+        product.reduceStock(quantity);
+        Order order = new Order(id, "2025-04-03 10:00:00", "Amy", "WALK_IN");
+        order.addItem(product, quantity);
+        order.setStockReserved(true);
+        manager.addOrder(order);
+        return order;
+    }
+
+    private static List<String> ids(List<Order> orders) {
+        return orders.stream().map(Order::getOrderId).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testRecoverFromSnapshotAndLogTail() throws Exception {
+        Menu menu = menu();
+        OrderManager manager = new OrderManager();
+        ShopStateStore store = new ShopStateStore(directory, 60_000, 60_000);
+        assertFalse(store.hasState());
+        store.attach(menu, manager);
+
+        order(manager, menu, "O1", "STATE-BVG1", 2).completeOrder();
+        store.snapshot(); // O1 is finished, so the snapshot keeps only its stock change
+        assertEquals(0, store.getOrderCount());
+        Order cancelled = order(manager, menu, "O2", "STATE-FOOD1", 3);
+        manager.cancelOrder(cancelled); // Puts its stock back
+        order(manager, menu, "O3", "STATE-BVG1", 1);
+        store.flush(); // Then crash: no close()
+
+        ShopStateStore reopened = new ShopStateStore(directory, 60_000, 60_000);
+        assertTrue(reopened.hasState());
+        assertEquals(2, reopened.getOrderCount()); // O2 and O3, from the log
+        Menu recoveredMenu = menu();
+        OrderManager recovered = new OrderManager();
+        List<Order> pending = reopened.restore(recoveredMenu, recovered);
+
+        assertEquals(7, recoveredMenu.getProductById("STATE-BVG1").getStock());
+        assertEquals(10, recoveredMenu.getProductById("STATE-FOOD1").getStock());
+        assertEquals(List.of("O3"), ids(pending));
+        assertTrue(pending.get(0).isStockReserved());
+        assertEquals(1, recovered.getHistory().size()); // Only the pending order comes back
+        assertEquals(5.0, recovered.getTotalRevenue(), 1e-9);
+        store.close();
+    }
+
+    @Test
+    public void testTornLogTailIsIgnored() throws Exception {
+        Menu menu = menu();
+        OrderManager manager = new OrderManager();
+        try (ShopStateStore store = new ShopStateStore(directory, 60_000, 60_000)) {
+            store.attach(menu, manager);
+            order(manager, menu, "O1", "STATE-BVG1", 4);
+            store.flush();
+            // A crash in the middle of a write leaves part of a record at the end of the log
+            try (var files = Files.list(directory)) {
+                Path log = files.filter(p -> p.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+                Files.write(log, new byte[]{0, 0, 0, 40, 'O', 1, 2}, StandardOpenOption.APPEND);
+            }
+
+            ShopStateStore reopened = new ShopStateStore(directory, 60_000, 60_000);
+            assertEquals(1, reopened.getOrderCount());
+            Menu recoveredMenu = menu();
+            reopened.restore(recoveredMenu, new OrderManager());
+            assertEquals(6, recoveredMenu.getProductById("STATE-BVG1").getStock());
+        }
+    }
+
+    @Test
+    public void testCloseLeavesNothingToReplay() throws IOException, OutOfStockException {
+        Menu menu = menu();
+        OrderManager manager = new OrderManager();
+        ShopStateStore store = new ShopStateStore(directory, 60_000, 60_000);
+        store.attach(menu, manager);
+        order(manager, menu, "O1", "STATE-FOOD1", 1);
+        store.close();
+
+        try (var files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                if (file.getFileName().toString().startsWith("wal-")) assertEquals(0, Files.size(file));
+            }
+        }
+        ShopStateStore reopened = new ShopStateStore(directory, 60_000, 60_000);
+        Menu recoveredMenu = menu();
+        reopened.restore(recoveredMenu, new OrderManager());
+        assertEquals(9, recoveredMenu.getProductById("STATE-FOOD1").getStock());
+    }
+}
@@ -0,0 +1,109 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.OrderQueue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkloadGeneratorTest {
+    @TempDir
+    Path directory;
+
+    private static long[] gaps(ArrivalProcess arrivals, int count) {
+        long[] gaps = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long next = arrivals.nextArrival(previous);
+            gaps[i] = next - previous;
+            previous = next;
+        }
+        return gaps;
+    }
+
+    @Test
+    public void testPoisson_ExponentialGapsAtTheRequestedRate() {
+        long[] gaps = gaps(new ArrivalProcess.Poisson(100, 42), 50_000);
+        double mean = 0;
+        for (long gap : gaps) {
+            mean += gap;
+        }
+        mean /= gaps.length;
+        double variance = 0;
+        for (long gap : gaps) {
+            variance += (gap - mean) * (gap - mean);
+        }
+        double cv = Math.sqrt(variance / gaps.length) / mean;
+
+        assertEquals(10_000_000, mean, 200_000); // 100 orders/s is a 10 ms mean gap
+        assertEquals(1.0, cv, 0.03); // An exponential gap's deviation equals its mean
+        assertArrayEquals(gaps, gaps(new ArrivalProcess.Poisson(100, 42), 50_000)); // Same seed, same run
+    }
+
+    @Test
+    public void testBursty_RushWindowRunsAtTheRushRate() {
+        // 10 orders/s, except 100 orders/s for the first 200 ms of every second
+        ArrivalProcess arrivals = new ArrivalProcess.Bursty(10, 100, 1_000, 0, 200, 7);
+        long seconds = 200;
+        int inRush = 0;
+        int outside = 0;
+        long previous = 0;
+        while ((previous = arrivals.nextArrival(previous)) < seconds * 1_000_000_000L) {
+            if (previous % 1_000_000_000L < 200_000_000L) inRush++;
+            else outside++;
+        }
+
+        assertEquals(100.0, inRush / (seconds * 0.2), 5.0);
+        assertEquals(10.0, outside / (seconds * 0.8), 1.0);
+    }
+
+    @Test
+    public void testTrace_SortedOffsetsSpedUpThenExhausted() throws IOException {
+        Path trace = directory.resolve("arrivals.csv");
+        Files.write(trace, List.of("# offset_ms,customer", "20,Amy", "", "5,Ben", "not a number", "10.5"));
+        ArrivalProcess arrivals = new ArrivalProcess.Trace(trace.toString(), 2.0);
+
+        List<Long> times = new ArrayList<>();
+        long previous = 0;
+        while ((previous = arrivals.nextArrival(previous)) >= 0) {
+            times.add(previous);
+        }
+        assertEquals(List.of(2_500_000L, 5_250_000L, 10_000_000L), times);
+        assertEquals(-1, arrivals.nextArrival(0));
+        assertThrows(IllegalArgumentException.class, () -> new ArrivalProcess.Trace(trace.toString(), 0));
+    }
+
+    @Test
+    public void testGenerator_OrdersCarryTheirIntendedArrivalTime() throws Exception {
+        Path trace = directory.resolve("arrivals.csv");
+        Files.write(trace, List.of("0", "1", "2", "3"));
+        Menu menu = new Menu();
+        menu.addProduct(new Product("GEN-BVG1", "Latte", "Latte", "Beverage", 5.0, 100));
+        OrderQueue queue = new OrderQueue(10);
+        OrderManager manager = new OrderManager();
+        WorkloadGenerator generator = new WorkloadGenerator("Gen", queue, menu,
+                new ArrivalProcess.Trace(trace.toString(), 1.0), 0.0, 3, 0, 1);
+        generator.setOrderManager(manager);
+        generator.start();
+        generator.join(10_000);
+
+        assertEquals(4, generator.getGeneratedCount());
+        assertEquals(4, manager.getHistory().size());
+        long start = -1;
+        for (int i = 0; i < 4; i++) {
+            Order order = queue.getNextOrder();
+            if (start < 0) start = order.getScheduledTime();
+            assertEquals("Gen-" + i, order.getOrderId());
+            assertEquals(i * 1_000_000L, order.getScheduledTime() - start); // The trace offsets, not when it ran
+            assertTrue(order.getItems().size() >= 1 && order.getItems().size() <= 3);
+            assertEquals(order.calculateOriginalPrice(), order.getTotalPrice(), 1e-9);
+            assertEquals("WALK_IN", order.getOrderType());
+        }
+    }
+}
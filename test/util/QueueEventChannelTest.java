@@ -0,0 +1,44 @@
+package util;
+
+import model.Order;
+import model.QueueEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueueEventChannelTest {
+    private static QueueEvent added(String id) {
+        return QueueEvent.added(new Order(id, "2025-04-03 12:00:00", "Customer", "WALK_IN"));
+    }
+
+    @Test
+    public void testResync_EventsInTheSnapshotAreNotAppliedAgain() throws InterruptedException {
+        QueueEventChannel channel = new QueueEventChannel(100, 10);
+        channel.publish(added("O1")); // Buffered before the first snapshot
+        channel.publish(added("O2"));
+        List<String> applied = new CopyOnWriteArrayList<>();
+        CountDownLatch snapshotTaken = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(1);
+
+        channel.start(() -> {
+            channel.publish(added("O3")); // Published while the snapshot is being built, and part of it
+            long mark = channel.mark();
+            snapshotTaken.countDown();
+            return mark;
+        }, batch -> {
+            batch.forEach(event -> applied.add(event.getOrder().getOrderId()));
+            delivered.countDown();
+        });
+        assertTrue(snapshotTaken.await(5, TimeUnit.SECONDS));
+        channel.publish(added("O4"));
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        channel.stop();
+
+        assertEquals(List.of("O4"), applied);
+    }
+}
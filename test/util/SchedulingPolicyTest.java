@@ -0,0 +1,222 @@
+package util;
+
+import model.Order;
+import model.OrderManager;
+import model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchedulingPolicyTest {
+    @TempDir
+    Path directory;
+
+    private static final Product LATTE = new Product("BVG100", "Latte", "Latte", "Beverage", 5.0, 100);
+
+    private static Order order(String id, String type, long enqueueTime, int items) {
+        return order(id, type, enqueueTime, items, "2025-04-03 12:00:00");
+    }
+
+    private static Order order(String id, String type, long enqueueTime, int items, String timestamp) {
+        Order order = new Order(id, timestamp, "Customer", type);
+        order.addItem(LATTE, items);
+        order.setEnqueueTime(enqueueTime);
+        return order;
+    }
+
+    private static List<String> drain(SchedulingPolicy policy) {
+        List<String> ids = new ArrayList<>();
+        Order next;
+        while ((next = policy.poll()) != null) {
+            ids.add(next.getOrderId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void testStrictPriority_PreOrdersFirstThenByEnqueueTime() {
+        SchedulingPolicy policy = new SchedulingPolicy.StrictPriority();
+        policy.add(order("W1", "WALK_IN", 1, 1));
+        policy.add(order("P2", "PRE_ORDER", 3, 1));
+        policy.add(order("P1", "PRE_ORDER", 2, 1));
+        policy.add(order("W2", "WALK_IN", 4, 1));
+
+        assertEquals(2, policy.preOrderCount());
+        assertEquals(2, policy.walkInCount());
+        assertEquals(List.of("P1", "P2", "W1", "W2"), drain(policy));
+        assertEquals(0, policy.preOrderCount() + policy.walkInCount());
+    }
+
+    @Test
+    public void testShortestJobFirst_FewestItemsFirstTiesInArrivalOrder() {
+        SchedulingPolicy policy = new SchedulingPolicy.ShortestJobFirst();
+        policy.add(order("BIG", "PRE_ORDER", 1, 5));
+        policy.add(order("SMALL1", "WALK_IN", 2, 1));
+        policy.add(order("MID", "WALK_IN", 3, 2));
+        policy.add(order("SMALL2", "PRE_ORDER", 4, 1));
+
+        assertEquals(List.of("SMALL1", "SMALL2", "MID", "BIG"), drain(policy));
+    }
+
+    @Test
+    public void testWeightedFairShare_ServesLanesByWeight() {
+        SchedulingPolicy policy = new SchedulingPolicy.WeightedFairShare(3, 1);
+        for (int i = 0; i < 8; i++) {
+            policy.add(order("P" + i, "PRE_ORDER", i, 1));
+            policy.add(order("W" + i, "WALK_IN", i, 1));
+        }
+
+        List<String> firstEight = drain(policy).subList(0, 8);
+        long walkIns = firstEight.stream().filter(id -> id.startsWith("W")).count();
+        assertEquals(2, walkIns, "Three pre-orders per walk-in while both lanes are busy: " + firstEight);
+    }
+
+    @Test
+    public void testWeightedFairShare_IdleLaneDoesNotBankCredit() {
+        SchedulingPolicy policy = new SchedulingPolicy.WeightedFairShare(1, 1);
+        for (int i = 0; i < 10; i++) {
+            policy.add(order("P" + i, "PRE_ORDER", i, 1));
+        }
+        for (int i = 0; i < 10; i++) {
+            policy.poll();
+        }
+        policy.add(order("P10", "PRE_ORDER", 10, 1));
+        policy.add(order("W0", "WALK_IN", 10, 1));
+        policy.add(order("P11", "PRE_ORDER", 11, 1));
+        policy.add(order("W1", "WALK_IN", 11, 1));
+
+        // Walk-ins arriving late must alternate with pre-orders, not get ten turns in a row
+        assertEquals(List.of("P10", "W0", "P11", "W1"), drain(policy));
+    }
+
+    @Test
+    public void testAging_LongWaitingWalkInOvertakesNewPreOrder() {
+        SchedulingPolicy policy = new SchedulingPolicy.Aging(1_000);
+        policy.add(order("OLD_WALK_IN", "WALK_IN", 10_000, 1));
+        policy.add(order("NEW_PRE_ORDER", "PRE_ORDER", 12_000, 1));
+        policy.add(order("RECENT_PRE_ORDER", "PRE_ORDER", 10_500, 1));
+
+        assertEquals(List.of("RECENT_PRE_ORDER", "OLD_WALK_IN", "NEW_PRE_ORDER"), drain(policy));
+    }
+
+    @Test
+    public void testEarliestDeadlineFirst_PreOrdersByPickupTime() {
+        SchedulingPolicy policy = new SchedulingPolicy.EarliestDeadlineFirst(60_000);
+        policy.add(order("LATE_PICKUP", "PRE_ORDER", 1, 1, "2025-04-03 12:30:00"));
+        policy.add(order("EARLY_PICKUP", "PRE_ORDER", 2, 1, "2025-04-03 12:00:00"));
+        policy.add(order("NO_PICKUP", "PRE_ORDER", Long.MAX_VALUE - 1, 1, "not a time"));
+
+        assertEquals(List.of("EARLY_PICKUP", "LATE_PICKUP", "NO_PICKUP"), drain(policy));
+    }
+
+    @Test
+    public void testOrderQueue_UsesPolicyAndTracksLaneDepths() throws InterruptedException {
+        OrderQueue queue = new OrderQueue(10, new SchedulingPolicy.ShortestJobFirst());
+        queue.addOrder(order("BIG", "PRE_ORDER", 0, 4));
+        queue.addOrder(order("SMALL", "WALK_IN", 0, 1));
+
+        assertEquals(1, queue.getPreOrderDepth());
+        assertEquals(1, queue.getWalkInDepth());
+        assertEquals("SMALL", queue.getNextOrder().getOrderId());
+        assertEquals("BIG", queue.getNextOrder().getOrderId());
+        assertEquals(0, queue.getQueueSize());
+        assertEquals("sjf", queue.getPolicyName());
+    }
+
+    @Test
+    public void testOrderQueue_ShedWalkInGetsItsStockBack() throws Exception {
+        Product muffin = new Product("BVG101", "Muffin", "Muffin", "Food", 3.0, 10);
+        OrderManager manager = new OrderManager();
+        OrderQueue queue = new OrderQueue(1);
+        queue.setAdmission(OrderQueue.Admission.SHED, 0);
+        queue.setShedHandler(manager::cancelOrder);
+
+        muffin.reduceStock(2);
+        Order walkIn = new Order("W1", "2025-04-03 12:00:00", "Customer", "WALK_IN");
+        walkIn.addItem(muffin, 2);
+        walkIn.setStockReserved(true);
+        manager.addOrder(walkIn);
+        assertEquals(OrderQueue.AdmissionResult.ACCEPTED, queue.offerOrder(walkIn));
+        assertEquals(OrderQueue.AdmissionResult.ACCEPTED, queue.offerOrder(order("P1", "PRE_ORDER", 0, 1)));
+
+        assertTrue(walkIn.isCancelled());
+        assertEquals(10, muffin.getStock());
+        assertEquals("P1", queue.getNextOrder().getOrderId());
+    }
+
+    @Test
+    public void testOrderQueue_TimeoutRejectsAfterTheWait() throws InterruptedException {
+        OrderQueue queue = new OrderQueue(1);
+        queue.setAdmission(OrderQueue.Admission.TIMEOUT, 50);
+        assertEquals(OrderQueue.AdmissionResult.ACCEPTED, queue.offerOrder(order("W1", "WALK_IN", 0, 1)));
+
+        long start = System.nanoTime();
+        assertEquals(OrderQueue.AdmissionResult.REJECTED, queue.offerOrder(order("W2", "WALK_IN", 0, 1)));
+        assertTrue(System.nanoTime() - start >= 40_000_000L, "Gave up before the timeout");
+        assertEquals(1, queue.getQueueSize());
+
+        queue.setAdmission(OrderQueue.Admission.TIMEOUT, 5_000);
+        Thread server = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                queue.getNextOrder();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        server.start();
+        assertEquals(OrderQueue.AdmissionResult.DELAYED, queue.offerOrder(order("W3", "WALK_IN", 0, 1)));
+        server.join();
+        assertEquals("W3", queue.getNextOrder().getOrderId());
+    }
+
+    @Test
+    public void testOrderQueue_RejectAnswersAtOnce() throws InterruptedException {
+        OrderQueue queue = new OrderQueue(1);
+        queue.setAdmission(OrderQueue.Admission.REJECT, 0);
+        assertEquals(OrderQueue.AdmissionResult.ACCEPTED, queue.offerOrder(order("W1", "WALK_IN", 0, 1)));
+        assertEquals(OrderQueue.AdmissionResult.REJECTED, queue.offerOrder(order("W2", "WALK_IN", 0, 1)));
+        assertEquals(OrderQueue.AdmissionResult.REJECTED, queue.offerOrder(order("P1", "PRE_ORDER", 0, 1)));
+        assertEquals(1, queue.getQueueSize());
+        assertEquals("W1", queue.getNextOrder().getOrderId());
+    }
+
+    @Test
+    public void testOrderQueue_SpilledOrdersRefillInArrivalOrder() throws Exception {
+        OrderQueue queue = new OrderQueue(2);
+        Path file = directory.resolve("overflow.txt");
+        queue.setOverflowBuffer(new OverflowBuffer(file));
+        queue.setAdmission(OrderQueue.Admission.SPILL, 0);
+        List<OrderQueue.AdmissionResult> results = new ArrayList<>();
+        for (String id : List.of("W1", "W2", "W3", "W4")) {
+            results.add(queue.offerOrder(order(id, "WALK_IN", 0, 1)));
+        }
+        assertEquals(List.of(OrderQueue.AdmissionResult.ACCEPTED, OrderQueue.AdmissionResult.ACCEPTED,
+                OrderQueue.AdmissionResult.SPILLED, OrderQueue.AdmissionResult.SPILLED), results);
+        assertEquals(2, queue.getOverflowSize());
+
+        assertEquals("W1", queue.getNextOrder().getOrderId()); // Frees a slot, W3 moves in
+        assertEquals(1, queue.getOverflowSize());
+        // W4 is still waiting, so a new arrival goes behind it
+        assertEquals(OrderQueue.AdmissionResult.SPILLED, queue.offerOrder(order("W5", "WALK_IN", 0, 1)));
+        List<String> served = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            served.add(queue.getNextOrder().getOrderId());
+        }
+        assertEquals(List.of("W2", "W3", "W4", "W5"), served);
+        assertEquals(0, queue.getOverflowSize());
+        queue.closeOverflow();
+        assertFalse(Files.exists(file)); // Nothing left to replay
+    }
+
+    @Test
+    public void testByName_UnknownPolicyRejected() {
+        assertEquals("fair", SchedulingPolicy.byName("fair").getName());
+        assertThrows(IllegalArgumentException.class, () -> SchedulingPolicy.byName("random"));
+    }
+}